@@ -0,0 +1,72 @@
+package makcon.solr.client.builder;
+
+import lombok.experimental.UtilityClass;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Aggregation functions of the JSON Facet API, used with {@link JsonFacet#stat(String, String)}.
+ */
+@UtilityClass
+public class Aggregation {
+
+    public String sum(@Nonnull String field) {
+        return function("sum", field);
+    }
+
+    public String avg(@Nonnull String field) {
+        return function("avg", field);
+    }
+
+    public String min(@Nonnull String field) {
+        return function("min", field);
+    }
+
+    public String max(@Nonnull String field) {
+        return function("max", field);
+    }
+
+    public String sumsq(@Nonnull String field) {
+        return function("sumsq", field);
+    }
+
+    public String variance(@Nonnull String field) {
+        return function("variance", field);
+    }
+
+    public String stddev(@Nonnull String field) {
+        return function("stddev", field);
+    }
+
+    /**
+     * Exact number of unique values, expensive for high cardinality fields.
+     */
+    public String unique(@Nonnull String field) {
+        return function("unique", field);
+    }
+
+    /**
+     * Distributed cardinality estimate based on HyperLogLog.
+     */
+    public String hll(@Nonnull String field) {
+        return function("hll", field);
+    }
+
+    public String countvals(@Nonnull String field) {
+        return function("countvals", field);
+    }
+
+    public String missing(@Nonnull String field) {
+        return function("missing", field);
+    }
+
+    public String percentile(@Nonnull String field,
+                             double percentile) {
+        return "percentile(" + field + ',' + percentile + ')';
+    }
+
+    private String function(String name,
+                            String field) {
+        return name + '(' + field + ')';
+    }
+}
@@ -1,6 +1,7 @@
 package makcon.solr.client.builder;
 
 import lombok.RequiredArgsConstructor;
+import makcon.solr.client.constant.JoinScoreMode;
 import makcon.solr.client.constant.QueryParams;
 
 import javax.annotation.Nonnull;
@@ -36,6 +37,7 @@ public final class FQ {
 
     private static final char PARENTHESES_OPEN = '(';
     private static final char PARENTHESES_CLOSE = ')';
+    private static final String NESTED_QUERY = "_query_:";
 
     private String param;
 
@@ -43,6 +45,7 @@ public final class FQ {
     private String value;
     private boolean exclude;
     private String prefix;
+    private boolean localParams;
 
     private FQ[] clauses;
     private JoinOperator joinOperator;
@@ -211,6 +214,77 @@ public final class FQ {
         return joinClauses(AND, clauses);
     }
 
+    /**
+     * Block join matching the parents of the children matched by the child filter.
+     *
+     * @param allParents filter matching all parent documents and no child, e.g. {@code type:parent}.
+     */
+    public static FQ parentsOf(@Nonnull FQ allParents,
+                               @Nonnull FQ childFilter) {
+        return localParamsQuery("parent", childFilter, "which", allParents.build());
+    }
+
+    /**
+     * Block join matching the children of the parents matched by the parent filter.
+     *
+     * @param allParents filter matching all parent documents and no child, e.g. {@code type:parent}.
+     */
+    public static FQ childrenOf(@Nonnull FQ allParents,
+                                @Nonnull FQ parentFilter) {
+        return localParamsQuery("child", parentFilter, "of", allParents.build());
+    }
+
+    /**
+     * Join matching documents whose to field has a value of the from field
+     * of the documents matched by the filter in the same core.
+     */
+    public static FQ join(@Nonnull String from,
+                          @Nonnull String to,
+                          @Nonnull FQ filter) {
+        return localParamsQuery("join", filter, "from", from, "to", to);
+    }
+
+    /**
+     * Join with the filter run on another core of the same node, or a single-shard collection
+     * replicated to every node of the joined collection.
+     */
+    public static FQ join(@Nonnull String fromIndex,
+                          @Nonnull String from,
+                          @Nonnull String to,
+                          @Nonnull FQ filter) {
+        return localParamsQuery("join", filter, "fromIndex", fromIndex, "from", from, "to", to);
+    }
+
+    /**
+     * Join scoring joined documents by the scores of the matching documents, for use in the main query.
+     * The from and to fields must have docValues.
+     */
+    public static FQ join(@Nonnull String fromIndex,
+                          @Nonnull String from,
+                          @Nonnull String to,
+                          @Nonnull JoinScoreMode score,
+                          @Nonnull FQ filter) {
+        return localParamsQuery("join", filter, "fromIndex", fromIndex, "from", from, "to", to, "score", score.value);
+    }
+
+    /**
+     * Join with the filter run on a collection of the same cluster with any number of shards,
+     * the from values are streamed from it. Requires Solr 8.10 or later.
+     */
+    public static FQ crossCollectionJoin(@Nonnull String fromCollection,
+                                         @Nonnull String from,
+                                         @Nonnull String to,
+                                         @Nonnull FQ filter) {
+        return localParamsQuery(
+                "join",
+                filter,
+                "method", "crossCollection",
+                "fromIndex", fromCollection,
+                "from", from,
+                "to", to
+        );
+    }
+
     public String build() {
         if (param == null) {
             joinParenthesis = false;
@@ -229,6 +303,7 @@ public final class FQ {
             return create()
                     .setExclude(clause.exclude)
                     .setPrefix(clause.prefix)
+                    .setLocalParams(clause.localParams)
                     .setField(clause.field)
                     .setValue(clause.value)
                     .setClauses(clause.clauses)
@@ -243,6 +318,30 @@ public final class FQ {
                 .setJoinParenthesis(nonEmptyCount > 1);
     }
 
+    /**
+     * Local params apply to the whole query string when it starts with them,
+     * so as a clause of {@link #and} or {@link #or} the query is nested in {@code _query_}.
+     *
+     * @param params names and values of local params, values are quoted.
+     */
+    private static FQ localParamsQuery(String parser,
+                                       FQ filter,
+                                       String... params) {
+        StringBuilder sb = new StringBuilder("{!").append(parser);
+        for (int i = 0; i < params.length; i += 2) {
+            sb.append(' ').append(params[i]).append('=').append(quoteLocalParam(params[i + 1]));
+        }
+        sb.append(" v=").append(quoteLocalParam(filter.build())).append('}');
+
+        return create()
+                .setPrefix(sb.toString())
+                .setLocalParams(true);
+    }
+
+    static String quoteLocalParam(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
     private static int getNonEmptyCount(FQ[] clauses) {
         int nonEmptyCount = 0;
         for (FQ clause : clauses) {
@@ -316,6 +415,10 @@ public final class FQ {
                 if (i != 0) {
                     sb.append(fq.joinOperator.value);
                 }
+                if (fq.clauses[i].localParams) {
+                    sb.append(NESTED_QUERY).append(quoteLocalParam(fq.clauses[i].prefix));
+                    continue;
+                }
                 buildParam(sb, fq.clauses[i]);
             }
         }
@@ -409,6 +512,11 @@ public final class FQ {
         return this;
     }
 
+    private FQ setLocalParams(boolean localParams) {
+        this.localParams = localParams;
+        return this;
+    }
+
     private FQ setEmpty(boolean empty) {
         this.empty = empty;
         return this;
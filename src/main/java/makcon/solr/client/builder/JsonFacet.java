@@ -0,0 +1,277 @@
+package makcon.solr.client.builder;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builder of the JSON Facet API request, sent in the {@code json.facet} parameter.
+ * <pre>
+ * JsonFacet.create()
+ *         .facet("categories", JsonFacet.terms("cat")
+ *                 .limit(10)
+ *                 .stat("price", Aggregation.avg("price")))
+ *         .stat("total", Aggregation.sum("price"))
+ *         .build();
+ * </pre>
+ */
+public final class JsonFacet {
+
+    @RequiredArgsConstructor
+    enum Type {
+
+        TERMS("terms"),
+        RANGE("range"),
+        QUERY("query");
+
+        private final String value;
+    }
+
+    public static final String MISSING = "missing";
+    public static final String MIN = "min";
+    public static final String MAX = "max";
+    public static final String SUM = "sum";
+    public static final String SUMSQ = "sumsq";
+    public static final String HLL = "hll";
+
+    private final Type type;
+    private final Map<String, Object> options = new LinkedHashMap<>();
+    private final Map<String, Object> facets = new LinkedHashMap<>();
+
+    private JsonFacet(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * @return top level facet which only holds named sub-facets and aggregations.
+     */
+    public static JsonFacet create() {
+        return new JsonFacet(null);
+    }
+
+    public static JsonFacet terms(@Nonnull String field) {
+        return new JsonFacet(Type.TERMS).option("field", field);
+    }
+
+    public static JsonFacet range(@Nonnull String field,
+                                  @Nonnull Object start,
+                                  @Nonnull Object end,
+                                  @Nonnull Object gap) {
+        return new JsonFacet(Type.RANGE)
+                .option("field", field)
+                .option("start", start)
+                .option("end", end)
+                .option("gap", gap);
+    }
+
+    public static JsonFacet query(@Nonnull String query) {
+        return new JsonFacet(Type.QUERY).option("q", query);
+    }
+
+    public static JsonFacet query(@Nonnull FQ query) {
+        return query(query.build());
+    }
+
+    public JsonFacet limit(int limit) {
+        return option("limit", limit);
+    }
+
+    public JsonFacet offset(int offset) {
+        return option("offset", offset);
+    }
+
+    public JsonFacet mincount(long mincount) {
+        return option("mincount", mincount);
+    }
+
+    /**
+     * @param sort e.g. {@code "count desc"} or {@code "avg_price asc"} for a sub-facet aggregation.
+     */
+    public JsonFacet sort(@Nonnull String sort) {
+        return option("sort", sort);
+    }
+
+    public JsonFacet prefix(@Nonnull String prefix) {
+        return option("prefix", prefix);
+    }
+
+    public JsonFacet missing(boolean missing) {
+        return option("missing", missing);
+    }
+
+    public JsonFacet numBuckets(boolean numBuckets) {
+        return option("numBuckets", numBuckets);
+    }
+
+    public JsonFacet allBuckets(boolean allBuckets) {
+        return option("allBuckets", allBuckets);
+    }
+
+    public JsonFacet hardend(boolean hardend) {
+        return option("hardend", hardend);
+    }
+
+    /**
+     * Any facet option not covered by the builder, e.g. {@code method} or {@code refine}.
+     */
+    public JsonFacet option(@Nonnull String name,
+                            @Nonnull Object value) {
+        if (type == null) {
+            throw new UnsupportedOperationException("Top level facet has no options");
+        }
+        options.put(name, value);
+        return this;
+    }
+
+    public JsonFacet facet(@Nonnull String name,
+                           @Nonnull JsonFacet facet) {
+        if (facet.type == null) {
+            throw new IllegalArgumentException("Sub-facet must have a type");
+        }
+        facets.put(name, facet);
+        return this;
+    }
+
+    /**
+     * @param aggregation function, see {@link Aggregation}.
+     */
+    public JsonFacet stat(@Nonnull String name,
+                          @Nonnull String aggregation) {
+        facets.put(name, aggregation);
+        return this;
+    }
+
+    /**
+     * Adds the aggregations read by {@link makcon.solr.client.dataobject.StatsResult} for every field:
+     * documents without a value, min, max, sum, sum of squares and a HyperLogLog cardinality estimate.
+     * Missing documents are counted by a query facet, the countvals and missing aggregations need Solr 8.4.
+     */
+    public JsonFacet fieldStats(@Nonnull String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            facet(fieldStatName(i, MISSING), query("*:* -" + field + ":[* TO *]"));
+            stat(fieldStatName(i, MIN), Aggregation.min(field));
+            stat(fieldStatName(i, MAX), Aggregation.max(field));
+            stat(fieldStatName(i, SUM), Aggregation.sum(field));
+            stat(fieldStatName(i, SUMSQ), Aggregation.sumsq(field));
+            stat(fieldStatName(i, HLL), Aggregation.hll(field));
+        }
+        return this;
+    }
+
+    /**
+     * @return name of the aggregation added by {@link #fieldStats(String...)} for the field at the index.
+     */
+    public static String fieldStatName(int field,
+                                       String function) {
+        return "stats_" + field + '_' + function;
+    }
+
+    public String build() {
+        StringBuilder sb = new StringBuilder();
+        buildFacet(sb, this);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonFacet{" + build() + '}';
+    }
+
+    private static void buildFacet(StringBuilder sb,
+                                   JsonFacet facet) {
+        sb.append('{');
+        boolean first = true;
+        if (facet.type != null) {
+            appendKey(sb, "type");
+            appendValue(sb, facet.type.value);
+            first = false;
+        }
+        for (Map.Entry<String, Object> option : facet.options.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            appendKey(sb, option.getKey());
+            appendValue(sb, option.getValue());
+            first = false;
+        }
+
+        if (facet.type == null) {
+            appendFacets(sb, facet);
+        } else if (!facet.facets.isEmpty()) {
+            sb.append(',');
+            appendKey(sb, "facet");
+            sb.append('{');
+            appendFacets(sb, facet);
+            sb.append('}');
+        }
+        sb.append('}');
+    }
+
+    private static void appendFacets(StringBuilder sb,
+                                     JsonFacet facet) {
+        boolean first = true;
+        for (Map.Entry<String, Object> subFacet : facet.facets.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            appendKey(sb, subFacet.getKey());
+            Object value = subFacet.getValue();
+            if (value instanceof JsonFacet) {
+                buildFacet(sb, (JsonFacet) value);
+            } else {
+                appendValue(sb, value);
+            }
+            first = false;
+        }
+    }
+
+    private static void appendKey(StringBuilder sb,
+                                  String key) {
+        appendString(sb, key);
+        sb.append(':');
+    }
+
+    private static void appendValue(StringBuilder sb,
+                                    Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            appendString(sb, String.valueOf(value));
+        }
+    }
+
+    private static void appendString(StringBuilder sb,
+                                     String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -6,9 +6,47 @@ import org.apache.solr.client.solrj.SolrQuery;
 @UtilityClass
 public class SolrQueryUtils {
 
+    private static final String ALL_FIELDS = "*";
+
     public SolrQuery getSolrQueryCopy(SolrQuery solrQuery) {
         SolrQuery copy = solrQuery.getCopy();
         copy.setSorts(solrQuery.getSorts());
         return copy;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the child documents of every found parent through the {@code [child]} transformer,
+     * all stored fields are returned if no fields are set.
+     *
+     * @param allParents filter matching all parent documents and no child.
+     * @see makcon.solr.client.dataobject.SolrDoc#getChildren()
+     */
+    public SolrQuery withChildren(SolrQuery solrQuery,
+                                  FQ allParents) {
+        return addTransformer(solrQuery, "[child parentFilter=" + FQ.quoteLocalParam(allParents.build()) + ']');
+    }
+
+    /**
+     * Returns up to limit child documents matched by the child filter of every found parent.
+     */
+    public SolrQuery withChildren(SolrQuery solrQuery,
+                                  FQ allParents,
+                                  FQ childFilter,
+                                  int limit) {
+        return addTransformer(
+                solrQuery,
+                "[child parentFilter=" + FQ.quoteLocalParam(allParents.build())
+                        + " childFilter=" + FQ.quoteLocalParam(childFilter.build())
+                        + " limit=" + limit + ']'
+        );
+    }
+
+    private SolrQuery addTransformer(SolrQuery solrQuery,
+                                     String transformer) {
+        if (solrQuery.getFields() == null) {
+            solrQuery.setFields(ALL_FIELDS);
+        }
+
+        return solrQuery.addField(transformer);
+    }
+}
@@ -0,0 +1,247 @@
+package makcon.solr.client.builder;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builder of streaming expressions sent to the /stream handler.
+ * <pre>
+ * StreamExpr.rollup(
+ *         StreamExpr.search("orders")
+ *                 .q(QueryParams.MATCH_ALL)
+ *                 .fq(FQ.field("status").value("paid"))
+ *                 .fl("customer_s", "total_d")
+ *                 .sort("customer_s asc")
+ *                 .qt("/export"),
+ *         "customer_s",
+ *         Aggregation.sum("total_d"))
+ *         .build();
+ * </pre>
+ */
+public final class StreamExpr {
+
+    private final String function;
+    private final List<Object> operands = new ArrayList<>();
+
+    private StreamExpr(String function) {
+        this.function = function;
+    }
+
+    /**
+     * Any streaming function, operands and named parameters are added in the order of calls.
+     */
+    public static StreamExpr function(@Nonnull String function) {
+        return new StreamExpr(function);
+    }
+
+    public static StreamExpr search(@Nonnull String collection) {
+        return function("search").operand(collection);
+    }
+
+    public static StreamExpr rollup(@Nonnull StreamExpr stream,
+                                    @Nonnull String over,
+                                    @Nonnull String... metrics) {
+        StreamExpr rollup = function("rollup")
+                .operand(stream)
+                .param("over", over);
+        for (String metric : metrics) {
+            rollup.operand(metric);
+        }
+
+        return rollup;
+    }
+
+    public static StreamExpr innerJoin(@Nonnull StreamExpr left,
+                                       @Nonnull StreamExpr right,
+                                       @Nonnull String on) {
+        return join("innerJoin", left, right, on);
+    }
+
+    public static StreamExpr leftOuterJoin(@Nonnull StreamExpr left,
+                                           @Nonnull StreamExpr right,
+                                           @Nonnull String on) {
+        return join("leftOuterJoin", left, right, on);
+    }
+
+    public static StreamExpr hashJoin(@Nonnull StreamExpr left,
+                                      @Nonnull StreamExpr hashed,
+                                      @Nonnull String on) {
+        return function("hashJoin")
+                .operand(left)
+                .param("hashed", hashed)
+                .param("on", on);
+    }
+
+    public static StreamExpr top(int n,
+                                 @Nonnull StreamExpr stream,
+                                 @Nonnull String sort) {
+        return function("top")
+                .param("n", String.valueOf(n))
+                .operand(stream)
+                .param("sort", sort);
+    }
+
+    public static StreamExpr unique(@Nonnull StreamExpr stream,
+                                    @Nonnull String over) {
+        return function("unique")
+                .operand(stream)
+                .param("over", over);
+    }
+
+    public static StreamExpr sort(@Nonnull StreamExpr stream,
+                                  @Nonnull String by) {
+        return function("sort")
+                .operand(stream)
+                .param("by", by);
+    }
+
+    public static StreamExpr merge(@Nonnull String on,
+                                   @Nonnull StreamExpr... streams) {
+        StreamExpr merge = function("merge");
+        for (StreamExpr stream : streams) {
+            merge.operand(stream);
+        }
+
+        return merge.param("on", on);
+    }
+
+    public static StreamExpr parallel(@Nonnull String collection,
+                                      @Nonnull StreamExpr stream,
+                                      int workers,
+                                      @Nonnull String sort) {
+        return function("parallel")
+                .operand(collection)
+                .operand(stream)
+                .param("workers", String.valueOf(workers))
+                .param("sort", sort);
+    }
+
+    public StreamExpr q(@Nonnull String query) {
+        return param("q", query);
+    }
+
+    public StreamExpr q(@Nonnull FQ query) {
+        return q(query.build());
+    }
+
+    public StreamExpr fq(@Nonnull FQ filter) {
+        return param("fq", filter.build());
+    }
+
+    public StreamExpr fl(@Nonnull String... fields) {
+        return param("fl", String.join(",", fields));
+    }
+
+    public StreamExpr sort(@Nonnull String sort) {
+        return param("sort", sort);
+    }
+
+    public StreamExpr qt(@Nonnull String handler) {
+        return param("qt", handler);
+    }
+
+    public StreamExpr rows(int rows) {
+        return param("rows", String.valueOf(rows));
+    }
+
+    /**
+     * Positional operand, added as is, e.g. a collection name or a metric like {@code sum(a_i)}.
+     */
+    public StreamExpr operand(@Nonnull String operand) {
+        operands.add(operand);
+        return this;
+    }
+
+    public StreamExpr operand(@Nonnull StreamExpr operand) {
+        operands.add(operand);
+        return this;
+    }
+
+    /**
+     * Named parameter, the value is quoted.
+     */
+    public StreamExpr param(@Nonnull String name,
+                            @Nonnull String value) {
+        operands.add(new Param(name, value));
+        return this;
+    }
+
+    public StreamExpr param(@Nonnull String name,
+                            @Nonnull StreamExpr value) {
+        operands.add(new Param(name, value));
+        return this;
+    }
+
+    public String build() {
+        StringBuilder sb = new StringBuilder();
+        buildExpression(sb, this);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamExpr{" + build() + '}';
+    }
+
+    private static StreamExpr join(String function,
+                                   StreamExpr left,
+                                   StreamExpr right,
+                                   String on) {
+        return function(function)
+                .operand(left)
+                .operand(right)
+                .param("on", on);
+    }
+
+    private static void buildExpression(StringBuilder sb,
+                                        StreamExpr expression) {
+        sb.append(expression.function).append('(');
+        for (int i = 0; i < expression.operands.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object operand = expression.operands.get(i);
+            if (operand instanceof Param) {
+                Param param = (Param) operand;
+                sb.append(param.name).append('=');
+                operand = param.value;
+                if (operand instanceof String) {
+                    appendQuoted(sb, (String) operand);
+                    continue;
+                }
+            }
+            if (operand instanceof StreamExpr) {
+                buildExpression(sb, (StreamExpr) operand);
+            } else {
+                sb.append(operand);
+            }
+        }
+        sb.append(')');
+    }
+
+    private static void appendQuoted(StringBuilder sb,
+                                     String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static final class Param {
+
+        private final String name;
+        private final Object value;
+
+        private Param(String name,
+                      Object value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package makcon.solr.client.cache;
+
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Repository keeping the documents read by {@link #getById}/{@link #getByIds} in a bounded LRU cache,
+ * so repeated lookups of the same id don't leave the process. Only reads of all fields are cached.
+ * <p>
+ * Full documents saved through this repository replace the cached ones as they were sent, without
+ * the values Solr adds on indexing (defaults, copy fields, {@code _version_}); atomic updates and
+ * deletes evict the id, a delete by query clears the cache. Failed writes evict the ids too, as they may be
+ * partially applied. Entries expire after {@code ttlMs},
+ * which bounds the staleness of documents changed by other writers. A read that overlaps a write or an
+ * eviction of the id through this repository isn't cached, as it may return the document before the write.
+ */
+public class NearCachingSolrRepository extends ForwardingSolrRepository {
+
+    private final String idField;
+    private final long ttlMs;
+    private final Map<String, Entry> cache;
+    // write sequences of ids changed while reads are in flight, a read older than them isn't cached
+    private final Map<String, Long> writtenAt = new HashMap<>();
+    private long writeSequence;
+    private long clearedAt;
+    private int readsInFlight;
+
+    public NearCachingSolrRepository(SolrRepository delegate,
+                                     String idField,
+                                     int maxEntries,
+                                     long ttlMs) {
+        super(delegate);
+        this.idField = idField;
+        this.ttlMs = ttlMs;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Optional<SolrDoc> getById(String id,
+                                     String... fields) {
+        if (fields.length > 0) {
+            return super.getById(id, fields);
+        }
+        List<SolrDoc> docs = getByIds(singletonList(id));
+
+        return docs.isEmpty() ? Optional.empty() : Optional.of(docs.get(0));
+    }
+
+    @Override
+    public List<SolrDoc> getByIds(Collection<String> ids,
+                                  String... fields) {
+        if (fields.length > 0) {
+            return super.getByIds(ids, fields);
+        }
+
+        Map<String, SolrDoc> found = new HashMap<>(ids.size() * 4 / 3 + 1);
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            SolrDoc cached = getCached(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long readSequence = startRead();
+            try {
+                for (SolrDoc doc : super.getByIds(missing)) {
+                    Object id = doc.getSolrDocument().getFieldValue(idField);
+                    if (id != null) {
+                        found.put(id.toString(), doc);
+                        putRead(id.toString(), doc, readSequence);
+                    }
+                }
+            } finally {
+                endRead();
+            }
+        }
+
+        List<SolrDoc> docs = new ArrayList<>(found.size());
+        for (String id : ids) {
+            SolrDoc doc = found.get(id);
+            if (doc != null) {
+                docs.add(doc);
+            }
+        }
+
+        return docs;
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        write(singletonList(document), () -> super.save(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        write(singletonList(document), () -> super.save(document, commitWithin));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        write(singletonList(document), () -> super.save(document, commitWithin, route));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        write(singletonList(document), () -> super.save(document, softCommit));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        write(singletonList(document), () -> super.save(document, softCommit, route));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        write(documents, () -> super.save(documents));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        write(documents, () -> super.save(documents, commitWithin));
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        try {
+            return super.saveVersioned(documents);
+        } finally {
+            documents.forEach(this::evict);
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        try {
+            super.deleteById(id);
+        } finally {
+            evict(singletonList(id));
+        }
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        try {
+            super.deleteByIds(ids);
+        } finally {
+            evict(ids);
+        }
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        try {
+            super.deleteByIds(ids, chunkSize, parallelism);
+        } finally {
+            evict(ids);
+        }
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        try {
+            super.deleteByQuery(query);
+        } finally {
+            clear();
+        }
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        try {
+            super.deleteByQuery(query);
+        } finally {
+            clear();
+        }
+    }
+
+    public synchronized void clear() {
+        clearedAt = ++writeSequence;
+        cache.clear();
+    }
+
+    private synchronized SolrDoc getCached(String id) {
+        Entry entry = cache.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.createdMs > ttlMs) {
+            cache.remove(id);
+            return null;
+        }
+
+        return entry.doc;
+    }
+
+    /**
+     * @return write sequence the read starts at, documents written after it are newer than the read ones.
+     */
+    private synchronized long startRead() {
+        readsInFlight++;
+        return writeSequence;
+    }
+
+    private synchronized void endRead() {
+        if (--readsInFlight == 0) {
+            writtenAt.clear();
+        }
+    }
+
+    /**
+     * Caches a read document unless the id was written or evicted while it was being read.
+     */
+    private synchronized void putRead(String id,
+                                      SolrDoc doc,
+                                      long readSequence) {
+        if (clearedAt > readSequence || writtenAt.getOrDefault(id, 0L) > readSequence) {
+            return;
+        }
+        cache.put(id, new Entry(doc, System.currentTimeMillis()));
+    }
+
+    /**
+     * @param doc document to cache or null to evict the id.
+     */
+    private synchronized void write(String id,
+                                    SolrDoc doc) {
+        writeSequence++;
+        if (readsInFlight > 0) {
+            writtenAt.put(id, writeSequence);
+        }
+        if (doc == null) {
+            cache.remove(id);
+        } else {
+            cache.put(id, new Entry(doc, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Caches the saved documents, a failed save may be partially applied so its documents are evicted.
+     */
+    private void write(List<SolrInputDoc> documents,
+                       Runnable save) {
+        try {
+            save.run();
+        } catch (RuntimeException e) {
+            documents.forEach(this::evict);
+            throw e;
+        }
+        documents.forEach(this::update);
+    }
+
+    private void update(SolrInputDoc document) {
+        Object id = document.getSolrInputDocument().getFieldValue(idField);
+        if (id == null) {
+            return;
+        }
+        if (document.isAtomicUpdate() || document.getSolrInputDocument().hasChildDocuments()) {
+            write(id.toString(), null);
+        } else {
+            write(id.toString(), new SolrDoc(toSolrDocument(document.getSolrInputDocument())));
+        }
+    }
+
+    private void evict(SolrInputDoc document) {
+        Object id = document.getSolrInputDocument().getFieldValue(idField);
+        if (id != null) {
+            write(id.toString(), null);
+        }
+    }
+
+    private void evict(List<String> ids) {
+        ids.forEach(id -> write(id, null));
+    }
+
+    private static SolrDocument toSolrDocument(SolrInputDocument input) {
+        SolrDocument doc = new SolrDocument();
+        for (SolrInputField field : input) {
+            doc.setField(field.getName(), field.getValue());
+        }
+
+        return doc;
+    }
+
+    private static final class Entry {
+
+        private final SolrDoc doc;
+        private final long createdMs;
+
+        private Entry(SolrDoc doc,
+                      long createdMs) {
+            this.doc = doc;
+            this.createdMs = createdMs;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package makcon.solr.client.constant;
+
+/**
+ * Format of a file imported as is, one record per line.
+ */
+public enum ImportFormat {
+
+    /**
+     * One JSON document per line, sent to the /update/json/docs handler.
+     */
+    JSON_LINES("/update/json/docs", "application/json"),
+    /**
+     * CSV with a header line, sent to the /update/csv handler with the header as field names of every chunk.
+     */
+    CSV("/update/csv", "text/csv");
+
+    public final String path;
+    public final String contentType;
+
+    ImportFormat(String path,
+                 String contentType) {
+        this.path = path;
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,31 @@
+package makcon.solr.client.constant;
+
+public enum JoinScoreMode {
+
+    /**
+     * Joined documents get a constant score.
+     */
+    NONE("none"),
+    /**
+     * Average score of the matching documents joined to a document.
+     */
+    AVG("avg"),
+    /**
+     * Highest score of the matching documents joined to a document.
+     */
+    MAX("max"),
+    /**
+     * Lowest score of the matching documents joined to a document.
+     */
+    MIN("min"),
+    /**
+     * Sum of the scores of the matching documents joined to a document.
+     */
+    TOTAL("total");
+
+    public final String value;
+
+    JoinScoreMode(String value) {
+        this.value = value;
+    }
+}
@@ -6,4 +6,16 @@ import lombok.experimental.UtilityClass;
 public class QueryParams {
 
     public static final String MATCH_ALL = "*:*";
+    public static final String DEFAULT_ID_FIELD = "id";
+    public static final String VERSION_FIELD = "_version_";
+    public static final String ROOT_FIELD = "_root_";
+    public static final String NEST_PATH_FIELD = "_nest_path_";
+    public static final String NEST_PARENT_FIELD = "_nest_parent_";
+    public static final String PARTITION_KEYS = "partitionKeys";
+    public static final String EXPR = "expr";
+    public static final String JSON_FACET = "json.facet";
+    public static final String FACETS = "facets";
+    public static final String PARTIAL_RESULTS = "partialResults";
+    public static final String RESPONSE = "response";
+    public static final String DOC = "doc";
 }
@@ -0,0 +1,146 @@
+package makcon.solr.client.dataobject;
+
+import makcon.solr.client.constant.SolrFieldModifier;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable value of an atomically updated field, e.g. {@code {"add": [...], "remove": [...]}}.
+ * <p>
+ * Solr expects atomic modifiers as a map, so the holder is a read-only {@link Map} backed by two
+ * small arrays instead of a hash table. Modifiers keep the order they were added in,
+ * Solr applies them in this order.
+ */
+public final class AtomicUpdate extends AbstractMap<String, Object> {
+
+    private final SolrFieldModifier[] modifiers;
+    private final Object[] values;
+
+    private AtomicUpdate(SolrFieldModifier[] modifiers,
+                         Object[] values) {
+        this.modifiers = modifiers;
+        this.values = values;
+    }
+
+    public static AtomicUpdate of(@Nonnull SolrFieldModifier modifier,
+                                  Object value) {
+        return new AtomicUpdate(
+                new SolrFieldModifier[]{modifier},
+                new Object[]{value}
+        );
+    }
+
+    /**
+     * @return a copy with the modifier value replaced, or appended if the modifier is absent.
+     * {@link SolrFieldModifier#SET} replaces all modifiers.
+     */
+    public AtomicUpdate with(@Nonnull SolrFieldModifier modifier,
+                             Object value) {
+        if (modifier == SolrFieldModifier.SET) {
+            return of(modifier, value);
+        }
+
+        int index = indexOf(modifier);
+        if (index >= 0) {
+            Object[] newValues = values.clone();
+            newValues[index] = value;
+            return new AtomicUpdate(modifiers, newValues);
+        }
+
+        SolrFieldModifier[] newModifiers = Arrays.copyOf(modifiers, modifiers.length + 1);
+        Object[] newValues = Arrays.copyOf(values, values.length + 1);
+        newModifiers[modifiers.length] = modifier;
+        newValues[values.length] = value;
+
+        return new AtomicUpdate(newModifiers, newValues);
+    }
+
+    public boolean has(@Nonnull SolrFieldModifier modifier) {
+        return indexOf(modifier) >= 0;
+    }
+
+    public Object get(@Nonnull SolrFieldModifier modifier) {
+        int index = indexOf(modifier);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public Object get(Object key) {
+        for (int i = 0; i < modifiers.length; i++) {
+            if (modifiers[i].value.equals(key)) {
+                return values[i];
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (SolrFieldModifier modifier : modifiers) {
+            if (modifier.value.equals(key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return modifiers.length;
+    }
+
+    @Override
+    @Nonnull
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            @Nonnull
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < modifiers.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (index >= modifiers.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(modifiers[index].value, values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return modifiers.length;
+            }
+        };
+    }
+
+    private int indexOf(SolrFieldModifier modifier) {
+        for (int i = 0; i < modifiers.length; i++) {
+            if (modifiers[i] == modifier) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
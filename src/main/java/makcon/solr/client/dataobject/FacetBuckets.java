@@ -0,0 +1,146 @@
+package makcon.solr.client.dataobject;
+
+import org.apache.solr.common.util.NamedList;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Buckets of a terms or range facet: bucket values and counts in parallel arrays,
+ * plus the decoded sub-facets and aggregations of each bucket if any were requested.
+ */
+public final class FacetBuckets {
+
+    private static final String BUCKETS = "buckets";
+    private static final String VAL = "val";
+    private static final String COUNT = "count";
+    private static final String NUM_BUCKETS = "numBuckets";
+    private static final String MISSING = "missing";
+    private static final String ALL_BUCKETS = "allBuckets";
+
+    private final Object[] values;
+    private final long[] counts;
+    private final FacetResult[] bucketResults;
+    private final long numBuckets;
+    private final FacetResult missing;
+    private final FacetResult allBuckets;
+
+    private FacetBuckets(Object[] values,
+                         long[] counts,
+                         FacetResult[] bucketResults,
+                         long numBuckets,
+                         FacetResult missing,
+                         FacetResult allBuckets) {
+        this.values = values;
+        this.counts = counts;
+        this.bucketResults = bucketResults;
+        this.numBuckets = numBuckets;
+        this.missing = missing;
+        this.allBuckets = allBuckets;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object getValue(int bucket) {
+        return values[bucket];
+    }
+
+    public String getStringValue(int bucket) {
+        return String.valueOf(values[bucket]);
+    }
+
+    /**
+     * @return numeric bucket value, dates are returned as epoch millis.
+     */
+    public long getLongValue(int bucket) {
+        Object value = values[bucket];
+        return value instanceof Date ? ((Date) value).getTime() : ((Number) value).longValue();
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * @return sub-facets and aggregations of the bucket, null if none were requested.
+     */
+    public FacetResult getBucketResult(int bucket) {
+        return bucketResults == null ? null : bucketResults[bucket];
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @return total number of buckets if {@code numBuckets} was requested, -1 otherwise.
+     */
+    public long getNumBuckets() {
+        return numBuckets;
+    }
+
+    public FacetResult getMissing() {
+        return missing;
+    }
+
+    public FacetResult getAllBuckets() {
+        return allBuckets;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FacetBuckets{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i]).append('=').append(counts[i]);
+            if (bucketResults != null && bucketResults[i] != null) {
+                sb.append(bucketResults[i]);
+            }
+        }
+
+        return sb.append('}').toString();
+    }
+
+    static FacetBuckets parse(NamedList<?> facet) {
+        List<?> buckets = (List<?>) facet.get(BUCKETS);
+        Object[] values = new Object[buckets.size()];
+        long[] counts = new long[buckets.size()];
+        FacetResult[] bucketResults = null;
+        for (int i = 0; i < buckets.size(); i++) {
+            NamedList<?> bucket = (NamedList<?>) buckets.get(i);
+            values[i] = bucket.get(VAL);
+            Number count = (Number) bucket.get(COUNT);
+            counts[i] = count == null ? 0 : count.longValue();
+            if (bucket.size() > 2) {
+                FacetResult bucketResult = FacetResult.parse(bucket, true);
+                if (bucketResult != null) {
+                    if (bucketResults == null) {
+                        bucketResults = new FacetResult[buckets.size()];
+                    }
+                    bucketResults[i] = bucketResult;
+                }
+            }
+        }
+
+        Number numBuckets = (Number) facet.get(NUM_BUCKETS);
+        NamedList<?> missing = (NamedList<?>) facet.get(MISSING);
+        NamedList<?> allBuckets = (NamedList<?>) facet.get(ALL_BUCKETS);
+
+        return new FacetBuckets(
+                values,
+                counts,
+                bucketResults,
+                numBuckets == null ? -1 : numBuckets.longValue(),
+                missing == null ? null : FacetResult.parse(missing, false),
+                allBuckets == null ? null : FacetResult.parse(allBuckets, false)
+        );
+    }
+}
@@ -0,0 +1,197 @@
+package makcon.solr.client.dataobject;
+
+import org.apache.solr.common.util.NamedList;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decoded JSON Facet API response: the document count of the facet domain,
+ * aggregations as primitives and named sub-facets.
+ * Values are held in parallel arrays, lookups by name are linear as facets rarely have more than a few entries.
+ */
+public final class FacetResult {
+
+    private static final String COUNT = "count";
+    private static final String BUCKETS = "buckets";
+    private static final String VAL = "val";
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final Object[] NO_OBJECTS = new Object[0];
+    private static final FacetResult[] NO_RESULTS = new FacetResult[0];
+    private static final FacetBuckets[] NO_BUCKETS = new FacetBuckets[0];
+
+    private final long count;
+    private final String[] statNames;
+    private final double[] stats;
+    private final String[] objectStatNames;
+    private final Object[] objectStats;
+    private final String[] queryFacetNames;
+    private final FacetResult[] queryFacets;
+    private final String[] bucketFacetNames;
+    private final FacetBuckets[] bucketFacets;
+
+    private FacetResult(long count,
+                        Entries<Double> stats,
+                        Entries<Object> objectStats,
+                        Entries<FacetResult> queryFacets,
+                        Entries<FacetBuckets> bucketFacets) {
+        this.count = count;
+        this.statNames = stats.names();
+        this.stats = new double[stats.size()];
+        for (int i = 0; i < this.stats.length; i++) {
+            this.stats[i] = stats.values.get(i);
+        }
+        this.objectStatNames = objectStats.names();
+        this.objectStats = objectStats.size() == 0 ? NO_OBJECTS : objectStats.values.toArray();
+        this.queryFacetNames = queryFacets.names();
+        this.queryFacets = queryFacets.size() == 0 ? NO_RESULTS : queryFacets.values.toArray(NO_RESULTS);
+        this.bucketFacetNames = bucketFacets.names();
+        this.bucketFacets = bucketFacets.size() == 0 ? NO_BUCKETS : bucketFacets.values.toArray(NO_BUCKETS);
+    }
+
+    /**
+     * @param facets the {@code facets} section of the response.
+     */
+    @Nonnull
+    public static FacetResult from(NamedList<?> facets) {
+        if (facets == null) {
+            return new FacetResult(0, new Entries<>(), new Entries<>(), new Entries<>(), new Entries<>());
+        }
+
+        return parse(facets, false);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return numeric aggregation value, dates are returned as epoch millis, NaN if there is no such aggregation.
+     */
+    public double getStat(String name) {
+        int index = indexOf(statNames, name);
+        return index < 0 ? Double.NaN : stats[index];
+    }
+
+    public long getLongStat(String name) {
+        return (long) getStat(name);
+    }
+
+    public boolean hasStat(String name) {
+        return indexOf(statNames, name) >= 0;
+    }
+
+    /**
+     * @return non-numeric aggregation value, e.g. min of a string field or a list of percentiles.
+     */
+    public Object getObjectStat(String name) {
+        int index = indexOf(objectStatNames, name);
+        return index < 0 ? null : objectStats[index];
+    }
+
+    /**
+     * @return result of a query facet, or of missing/allBuckets of a bucketed facet.
+     */
+    public FacetResult getQueryFacet(String name) {
+        int index = indexOf(queryFacetNames, name);
+        return index < 0 ? null : queryFacets[index];
+    }
+
+    public FacetBuckets getBuckets(String name) {
+        int index = indexOf(bucketFacetNames, name);
+        return index < 0 ? null : bucketFacets[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FacetResult{count=").append(count);
+        for (int i = 0; i < statNames.length; i++) {
+            sb.append(", ").append(statNames[i]).append('=').append(stats[i]);
+        }
+        for (int i = 0; i < objectStatNames.length; i++) {
+            sb.append(", ").append(objectStatNames[i]).append('=').append(objectStats[i]);
+        }
+        for (int i = 0; i < queryFacetNames.length; i++) {
+            sb.append(", ").append(queryFacetNames[i]).append('=').append(queryFacets[i]);
+        }
+        for (int i = 0; i < bucketFacetNames.length; i++) {
+            sb.append(", ").append(bucketFacetNames[i]).append('=').append(bucketFacets[i]);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    /**
+     * @return null for a bucket which has nothing but the value and the count.
+     */
+    static FacetResult parse(NamedList<?> facet,
+                             boolean bucket) {
+        long count = 0;
+        Entries<Double> stats = new Entries<>();
+        Entries<Object> objectStats = new Entries<>();
+        Entries<FacetResult> queryFacets = new Entries<>();
+        Entries<FacetBuckets> bucketFacets = new Entries<>();
+        for (int i = 0; i < facet.size(); i++) {
+            String name = facet.getName(i);
+            Object value = facet.getVal(i);
+            if (COUNT.equals(name)) {
+                count = ((Number) value).longValue();
+            } else if (bucket && VAL.equals(name)) {
+                continue;
+            } else if (value instanceof Number) {
+                stats.add(name, ((Number) value).doubleValue());
+            } else if (value instanceof Date) {
+                stats.add(name, (double) ((Date) value).getTime());
+            } else if (value instanceof NamedList) {
+                NamedList<?> subFacet = (NamedList<?>) value;
+                if (subFacet.get(BUCKETS) != null) {
+                    bucketFacets.add(name, FacetBuckets.parse(subFacet));
+                } else {
+                    queryFacets.add(name, parse(subFacet, false));
+                }
+            } else {
+                objectStats.add(name, value);
+            }
+        }
+
+        if (bucket && stats.size() == 0 && objectStats.size() == 0 && queryFacets.size() == 0 && bucketFacets.size() == 0) {
+            return null;
+        }
+
+        return new FacetResult(count, stats, objectStats, queryFacets, bucketFacets);
+    }
+
+    private static int indexOf(String[] names,
+                               String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static final class Entries<T> {
+
+        private final List<String> names = new ArrayList<>(0);
+        private final List<T> values = new ArrayList<>(0);
+
+        private void add(String name,
+                         T value) {
+            names.add(name);
+            values.add(value);
+        }
+
+        private int size() {
+            return names.size();
+        }
+
+        private String[] names() {
+            return names.isEmpty() ? NO_NAMES : names.toArray(NO_NAMES);
+        }
+    }
+}
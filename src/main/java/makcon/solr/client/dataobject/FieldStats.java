@@ -0,0 +1,134 @@
+package makcon.solr.client.dataobject;
+
+/**
+ * Statistics of a numeric or date field, dates are in epoch millis. Min and max are NaN if no document has a value.
+ */
+public final class FieldStats {
+
+    private final long count;
+    private final long missing;
+    private final double min;
+    private final double max;
+    private final double sum;
+    private final double sumOfSquares;
+    private final long cardinality;
+    private final boolean multiValued;
+
+    public FieldStats(long count,
+                      long missing,
+                      double min,
+                      double max,
+                      double sum,
+                      double sumOfSquares,
+                      long cardinality) {
+        this(count, missing, min, max, sum, sumOfSquares, cardinality, false);
+    }
+
+    /**
+     * @param multiValued whether documents may have more than one value, the standard deviation is undefined then.
+     */
+    public FieldStats(long count,
+                      long missing,
+                      double min,
+                      double max,
+                      double sum,
+                      double sumOfSquares,
+                      long cardinality,
+                      boolean multiValued) {
+        this.count = count;
+        this.missing = missing;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        this.cardinality = cardinality;
+        this.multiValued = multiValued;
+    }
+
+    /**
+     * @return number of documents with a value. Sums of a multi-valued field include every value,
+     * so its mean is the average total per document.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of documents without a value.
+     */
+    public long getMissing() {
+        return missing;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return mean of the values, NaN if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public boolean isMultiValued() {
+        return multiValued;
+    }
+
+    /**
+     * @return sample standard deviation of the values, 0 if there are less than two. NaN for a multi-valued field:
+     * the sum of squares includes every value while the count is of documents, so the deviation is undefined.
+     */
+    public double getStddev() {
+        if (multiValued) {
+            return Double.NaN;
+        }
+        if (count < 2) {
+            return 0;
+        }
+
+        return Math.sqrt(Math.max(0, (sumOfSquares - sum * sum / count) / (count - 1)));
+    }
+
+    /**
+     * @return estimated number of distinct values.
+     */
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Combines statistics of disjoint document sets, the cardinality of the result is the larger
+     * of the two estimates as distinct values can't be combined, so it's a lower bound.
+     */
+    public FieldStats merge(FieldStats other) {
+        return new FieldStats(
+                count + other.count,
+                missing + other.missing,
+                Double.isNaN(min) ? other.min : Double.isNaN(other.min) ? min : Math.min(min, other.min),
+                Double.isNaN(max) ? other.max : Double.isNaN(other.max) ? max : Math.max(max, other.max),
+                sum + other.sum,
+                sumOfSquares + other.sumOfSquares,
+                Math.max(cardinality, other.cardinality),
+                multiValued || other.multiValued
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "FieldStats{count=" + count + ", missing=" + missing + ", min=" + min + ", max=" + max
+                + ", sum=" + sum + ", mean=" + getMean() + ", stddev=" + getStddev() + ", cardinality=" + cardinality + '}';
+    }
+}
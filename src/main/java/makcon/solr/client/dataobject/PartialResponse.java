@@ -0,0 +1,32 @@
+package makcon.solr.client.dataobject;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+/**
+ * Response of a query limited by a deadline, the results are partial if Solr ran out
+ * of {@code timeAllowed} or some shards didn't answer.
+ */
+public final class PartialResponse {
+
+    private final QueryResponse response;
+    private final boolean partial;
+
+    public PartialResponse(QueryResponse response,
+                           boolean partial) {
+        this.response = response;
+        this.partial = partial;
+    }
+
+    public QueryResponse getResponse() {
+        return response;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    @Override
+    public String toString() {
+        return "PartialResponse{partial=" + partial + ", response=" + response + '}';
+    }
+}
@@ -0,0 +1,46 @@
+package makcon.solr.client.dataobject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Outcome of a batch save with version checks: the number of saved documents
+ * and the documents rejected because of a version conflict.
+ */
+public final class SaveResult {
+
+    private final int saved;
+    private final List<SolrInputDoc> conflicts;
+
+    public SaveResult(int saved,
+                      List<SolrInputDoc> conflicts) {
+        this.saved = saved;
+        this.conflicts = unmodifiableList(conflicts);
+    }
+
+    public int getSaved() {
+        return saved;
+    }
+
+    public List<SolrInputDoc> getConflicts() {
+        return conflicts;
+    }
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    public List<Object> getConflictIds() {
+        List<Object> ids = new ArrayList<>(conflicts.size());
+        conflicts.forEach(doc -> ids.add(doc.getId()));
+
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return "SaveResult{saved=" + saved + ", conflicts=" + getConflictIds() + '}';
+    }
+}
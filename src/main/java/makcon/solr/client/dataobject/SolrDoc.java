@@ -104,6 +104,22 @@ public final class SolrDoc {
                 .collect(toList());
     }
 
+    /**
+     * @return anonymous child documents returned by the {@code [child]} transformer.
+     */
+    @Nonnull
+    public List<SolrDoc> getChildren() {
+        List<SolrDocument> documents = solrDocument.getChildDocuments();
+
+        if (documents == null || documents.isEmpty()) {
+            return emptyList();
+        }
+
+        return documents.stream()
+                .map(SolrDoc::new)
+                .collect(toList());
+    }
+
     private Object getObject(String solrField) {
         return solrDocument.get(solrField);
     }
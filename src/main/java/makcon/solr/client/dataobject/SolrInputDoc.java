@@ -1,31 +1,78 @@
 package makcon.solr.client.dataobject;
 
+import makcon.solr.client.constant.QueryParams;
 import makcon.solr.client.constant.SolrFieldModifier;
 import org.apache.solr.common.SolrInputDocument;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public final class SolrInputDoc {
 
-    // TODO add tests
-
+    private final String idField;
     private final SolrInputDocument solrInputDocument;
 
-    private SolrInputDoc(SolrInputDocument solrInputDocument) {
+    private SolrInputDoc(String idField,
+                         SolrInputDocument solrInputDocument) {
+        this.idField = idField;
         this.solrInputDocument = solrInputDocument;
     }
 
+    public static SolrInputDoc of(String idField,
+                                  SolrInputDocument solrInputDocument) {
+        return new SolrInputDoc(idField, solrInputDocument);
+    }
+
     public SolrInputDocument getSolrInputDocument() {
         return solrInputDocument;
     }
 
+    public String getIdField() {
+        return idField;
+    }
+
+    public Object getId() {
+        return solrInputDocument.getFieldValue(idField);
+    }
+
+    /**
+     * @return expected version of the stored document or null if the save is unconditional.
+     */
+    public Long getVersion() {
+        Object version = solrInputDocument.getFieldValue(QueryParams.VERSION_FIELD);
+
+        return version instanceof Number ? ((Number) version).longValue() : null;
+    }
+
+    /**
+     * @return true if at least one field carries an atomic update modifier,
+     * i.e. the document updates an existing one instead of replacing it.
+     */
+    public boolean isAtomicUpdate() {
+        for (String field : solrInputDocument.getFieldNames()) {
+            if (isAtomicValue(solrInputDocument.getFieldValue(field))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if the field value is a map of atomic update modifiers, a child document is not.
+     */
+    public static boolean isAtomicValue(Object value) {
+        return value instanceof Map && !(value instanceof SolrInputDocument);
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T get(String field) {
         Object value = solrInputDocument.getFieldValue(field);
-        if (value instanceof Map) {
+        if (isAtomicValue(value)) {
             value = getModifiedValue(field, value);
         }
 
@@ -35,7 +82,7 @@ public final class SolrInputDoc {
     @SuppressWarnings("unchecked")
     public <T> List<T> getList(String field) {
         Object value = solrInputDocument.getFieldValues(field);
-        if (value instanceof Map) {
+        if (isAtomicValue(value)) {
             value = getModifiedValue(field, value);
         }
 
@@ -46,7 +93,7 @@ public final class SolrInputDoc {
     public <T> T getAtomic(String field,
                            SolrFieldModifier modifier) {
         Object value = solrInputDocument.getFieldValue(field);
-        if (value instanceof Map) {
+        if (isAtomicValue(value)) {
             Map<String, Object> fieldValue = (Map<String, Object>) value;
             Object atomicValue = fieldValue.get(modifier.value);
             if (atomicValue == null) {
@@ -62,20 +109,53 @@ public final class SolrInputDoc {
         return solrInputDocument.getFieldValue(field);
     }
 
+    /**
+     * @return anonymous child documents, children of a field are read by {@link #getList(String)}.
+     */
+    public List<SolrInputDoc> getChildren() {
+        List<SolrInputDocument> children = solrInputDocument.getChildDocuments();
+        if (children == null) {
+            return Collections.emptyList();
+        }
+
+        List<SolrInputDoc> docs = new ArrayList<>(children.size());
+        children.forEach(child -> docs.add(new SolrInputDoc(idField, child)));
+
+        return docs;
+    }
+
     public static Builder builder(boolean newDoc,
                                   String idField,
                                   Object id) {
-        return new Builder(newDoc, idField, id);
+        return new Builder(newDoc, idField, id, Builder.DEFAULT_EXPECTED_FIELDS);
+    }
+
+    public static Builder builder(boolean newDoc,
+                                  String idField,
+                                  Object id,
+                                  int expectedFields) {
+        return new Builder(newDoc, idField, id, expectedFields);
     }
 
     public static Builder newDoc(String idField,
                                  Object id) {
-        return new Builder(true, idField, id);
+        return builder(true, idField, id);
     }
 
     public static Builder toUpdate(String idField,
                                    Object id) {
-        return new Builder(false, idField, id);
+        return builder(false, idField, id);
+    }
+
+    /**
+     * Returns the builder bound to the current thread, reset for a new document.
+     * The builder must not be shared between threads and the document must be built
+     * before the next call on the same thread.
+     */
+    public static Builder threadLocalBuilder(boolean newDoc,
+                                             String idField,
+                                             Object id) {
+        return Builder.THREAD_BUILDER.get().reset(newDoc, idField, id);
     }
 
     @Override
@@ -124,24 +204,51 @@ public final class SolrInputDoc {
 
     public static final class Builder {
 
-        private final SolrInputDocument solrInputDocument = new SolrInputDocument();
-        private final Map<String, Object> fieldsMap = new HashMap<>();
-        private final Map<String, Map<String, Object>> fieldsToUpdateMap = new HashMap<>();
-        private final boolean newDoc;
+        private static final int DEFAULT_EXPECTED_FIELDS = 16;
+        private static final ThreadLocal<Builder> THREAD_BUILDER = ThreadLocal.withInitial(Builder::new);
+
+        private SolrInputDocument solrInputDocument;
+        private boolean newDoc;
+        private String idField;
+        private int expectedFields;
+
+        private Builder() {
+            this.expectedFields = DEFAULT_EXPECTED_FIELDS;
+        }
 
         private Builder(boolean newDoc,
                         String idField,
-                        Object id) {
+                        Object id,
+                        int expectedFields) {
+            this.expectedFields = expectedFields;
+            reset(newDoc, idField, id);
+        }
+
+        /**
+         * Starts a new document, the builder may be reused after {@link #build()}.
+         * Documents are pre-sized for the largest document built so far.
+         */
+        public Builder reset(boolean newDoc,
+                             String idField,
+                             Object id) {
+            if (solrInputDocument == null) {
+                solrInputDocument = new SolrInputDocument(new LinkedHashMap<>(expectedFields * 4 / 3 + 1));
+            } else {
+                solrInputDocument.clear();
+            }
             this.newDoc = newDoc;
+            this.idField = idField;
             solrInputDocument.setField(idField, id);
+
+            return this;
         }
 
         public Builder setField(String solrField,
                                 Object value) {
             if (newDoc) {
-                fieldsMap.put(solrField, value);
+                document().setField(solrField, value);
             } else if (value != null) {
-                fieldsToUpdateMap.put(solrField, addFieldModifier(value, SolrFieldModifier.SET));
+                document().setField(solrField, AtomicUpdate.of(SolrFieldModifier.SET, normalize(value)));
             }
 
             return this;
@@ -149,46 +256,135 @@ public final class SolrInputDoc {
 
         public Builder addField(String solrField,
                                 Object value) {
+            return modifyField(solrField, SolrFieldModifier.ADD, value);
+        }
+
+        public Builder removeField(String solrField,
+                                   Object value) {
+            return modifyField(solrField, SolrFieldModifier.REMOVE, value);
+        }
+
+        public Builder incField(String solrField,
+                                Number value) {
+            return modifyField(solrField, SolrFieldModifier.INC, value);
+        }
+
+        /**
+         * Adds an atomic modifier to the field. Different modifiers of one field are kept together
+         * (e.g. {@code add} + {@code remove}), a repeated modifier replaces the previous value
+         * and {@link SolrFieldModifier#SET} replaces all of them.
+         */
+        public Builder modifyField(String solrField,
+                                   SolrFieldModifier modifier,
+                                   Object value) {
             if (newDoc) {
                 throw new UnsupportedOperationException("Use setField method for new document");
             }
-            fieldsToUpdateMap.put(solrField, addFieldModifier(value, SolrFieldModifier.ADD));
+            SolrInputDocument document = document();
+            Object current = document.getFieldValue(solrField);
+            AtomicUpdate update = current instanceof AtomicUpdate ?
+                    ((AtomicUpdate) current).with(modifier, normalize(value)) :
+                    AtomicUpdate.of(modifier, normalize(value));
+            document.setField(solrField, update);
 
             return this;
         }
 
-        public SolrInputDoc build() {
+        /**
+         * Adds an anonymous child document of the block, the whole block is replaced on every save.
+         */
+        public Builder addChild(SolrInputDoc child) {
+            if (!newDoc) {
+                throw new UnsupportedOperationException("Anonymous children can only be added to a new document, use a child field");
+            }
+            document().addChildDocument(child.getSolrInputDocument());
+
+            return this;
+        }
+
+        /**
+         * Adds a child document under the field, a nested field of the schema.
+         * An update adds the child to the stored children of the field.
+         */
+        public Builder addChild(String solrField,
+                                SolrInputDoc child) {
             if (newDoc) {
-                buildForNew();
-            } else {
-                buildForUpdate();
+                document().addField(solrField, child.getSolrInputDocument());
+                return this;
             }
 
-            return new SolrInputDoc(solrInputDocument);
+            return modifyField(solrField, SolrFieldModifier.ADD, child.getSolrInputDocument());
         }
 
-        private void buildForNew() {
-            fieldsMap.forEach(solrInputDocument::setField);
+        /**
+         * Sets the child documents of the field, an update replaces the stored children of the field.
+         */
+        public Builder setChildren(String solrField,
+                                   Collection<SolrInputDoc> children) {
+            List<SolrInputDocument> documents = new ArrayList<>(children.size());
+            children.forEach(child -> documents.add(child.getSolrInputDocument()));
+
+            return setField(solrField, documents);
+        }
+
+        /**
+         * Removes the stored child of the field, the child needs only its id.
+         */
+        public Builder removeChild(String solrField,
+                                   SolrInputDoc child) {
+            return modifyField(solrField, SolrFieldModifier.REMOVE, child.getSolrInputDocument());
+        }
+
+        /**
+         * Saves the document only if the stored one has exactly this {@code _version_},
+         * otherwise Solr rejects it with a version conflict.
+         */
+        public Builder version(long version) {
+            document().setField(QueryParams.VERSION_FIELD, version);
+            return this;
+        }
+
+        /**
+         * Saves the document only if a document with the same id is already stored.
+         */
+        public Builder mustExist() {
+            return version(1);
         }
 
-        private void buildForUpdate() {
-            fieldsToUpdateMap.forEach(solrInputDocument::addField);
+        /**
+         * Saves the document only if no document with the same id is stored yet.
+         */
+        public Builder mustNotExist() {
+            return version(-1);
+        }
+
+        public SolrInputDoc build() {
+            SolrInputDocument document = document();
+            expectedFields = Math.max(expectedFields, document.size());
+            solrInputDocument = null;
+
+            return new SolrInputDoc(idField, document);
+        }
+
+        private SolrInputDocument document() {
+            if (solrInputDocument == null) {
+                throw new IllegalStateException("Document has been already built, reset the builder to start a new one");
+            }
+
+            return solrInputDocument;
         }
 
-        private Map<String, Object> addFieldModifier(Object value,
-                                                     SolrFieldModifier modifier) {
+        private static Object normalize(Object value) {
                 /*
                  * In the case of multi-valued fields if null is specified on set all
                  * the values in the field are removed.
                  * https://issues.apache.org/jira/browse/SOLR-3862
                  */
             if (value instanceof Collection && ((Collection<?>) value).isEmpty()) {
-                value = null;
+                return null;
             }
-            Map<String, Object> fieldModifier = new HashMap<>(1);
-            fieldModifier.put(modifier.value, value);
 
-            return fieldModifier;
+            return value;
         }
     }
 }
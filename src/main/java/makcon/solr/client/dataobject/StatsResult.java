@@ -0,0 +1,124 @@
+package makcon.solr.client.dataobject;
+
+import makcon.solr.client.builder.JsonFacet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Statistics of fields over a set of documents: the number of documents and {@link FieldStats} of every field.
+ */
+public final class StatsResult {
+
+    private final long count;
+    private final String[] fields;
+    private final FieldStats[] stats;
+
+    private StatsResult(long count,
+                        String[] fields,
+                        FieldStats[] stats) {
+        this.count = count;
+        this.fields = fields;
+        this.stats = stats;
+    }
+
+    /**
+     * @param result facet result with the aggregations of {@link JsonFacet#fieldStats(String...)}.
+     */
+    public static StatsResult from(FacetResult result,
+                                   String... fields) {
+        return from(result, Collections.emptySet(), fields);
+    }
+
+    /**
+     * @param multiValuedFields fields documents may have more than one value of, their standard deviation is undefined.
+     */
+    public static StatsResult from(FacetResult result,
+                                   Collection<String> multiValuedFields,
+                                   String... fields) {
+        FieldStats[] stats = new FieldStats[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            FacetResult missingDocs = result.getQueryFacet(JsonFacet.fieldStatName(i, JsonFacet.MISSING));
+            long missing = missingDocs == null ? 0 : missingDocs.getCount();
+            stats[i] = new FieldStats(
+                    result.getCount() - missing,
+                    missing,
+                    result.getStat(JsonFacet.fieldStatName(i, JsonFacet.MIN)),
+                    result.getStat(JsonFacet.fieldStatName(i, JsonFacet.MAX)),
+                    orZero(result.getStat(JsonFacet.fieldStatName(i, JsonFacet.SUM))),
+                    orZero(result.getStat(JsonFacet.fieldStatName(i, JsonFacet.SUMSQ))),
+                    result.getLongStat(JsonFacet.fieldStatName(i, JsonFacet.HLL)),
+                    multiValuedFields.contains(fields[i])
+            );
+        }
+
+        return new StatsResult(result.getCount(), fields.clone(), stats);
+    }
+
+    /**
+     * @return result of documents that have no statistics, e.g. a bucket Solr returned without aggregations:
+     * every document counts as missing for every field.
+     */
+    public static StatsResult empty(long count,
+                                    String... fields) {
+        FieldStats[] stats = new FieldStats[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            stats[i] = new FieldStats(0, count, Double.NaN, Double.NaN, 0, 0, 0);
+        }
+
+        return new StatsResult(count, fields.clone(), stats);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public String[] getFields() {
+        return fields.clone();
+    }
+
+    /**
+     * @return statistics of the field, null if they were not requested.
+     */
+    public FieldStats get(String field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(field)) {
+                return stats[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Combines results of disjoint document sets with the same fields.
+     *
+     * @see FieldStats#merge(FieldStats)
+     */
+    public StatsResult merge(StatsResult other) {
+        if (!Arrays.equals(fields, other.fields)) {
+            throw new IllegalArgumentException("Results of different fields can't be merged");
+        }
+        FieldStats[] merged = new FieldStats[stats.length];
+        for (int i = 0; i < stats.length; i++) {
+            merged[i] = stats[i].merge(other.stats[i]);
+        }
+
+        return new StatsResult(count + other.count, fields, merged);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StatsResult{count=").append(count);
+        for (int i = 0; i < fields.length; i++) {
+            sb.append(", ").append(fields[i]).append('=').append(stats[i]);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    private static double orZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+}
@@ -0,0 +1,30 @@
+package makcon.solr.client.exception;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Thrown when a value doesn't fit the field type of the collection schema, before anything is sent to Solr.
+ */
+public class SchemaValidationException extends RuntimeException {
+
+    private final Map<Object, String> errors;
+
+    public SchemaValidationException(String message) {
+        super(message);
+        this.errors = Collections.emptyMap();
+    }
+
+    /**
+     * @param errors validation error of every rejected document by its id.
+     */
+    public SchemaValidationException(String message,
+                                     Map<Object, String> errors) {
+        super(message + ": " + errors);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    public Map<Object, String> getErrors() {
+        return errors;
+    }
+}
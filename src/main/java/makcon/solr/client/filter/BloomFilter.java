@@ -0,0 +1,118 @@
+package makcon.solr.client.filter;
+
+import org.apache.solr.common.util.Hash;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings: {@link #mightContain(CharSequence)} never returns false
+ * for a value put before, and returns true for an absent value with the configured probability.
+ * Values can't be removed.
+ */
+public final class BloomFilter {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(AtomicLongArray words,
+                        int hashes) {
+        this.words = words;
+        this.bits = (long) words.length() * Long.SIZE;
+        this.hashes = hashes;
+    }
+
+    /**
+     * @param expectedValues number of values the filter is sized for.
+     * @param falsePositiveRate probability of a false positive once the expected number of values is put.
+     */
+    public static BloomFilter create(long expectedValues,
+                                     double falsePositiveRate) {
+        long n = Math.max(1, expectedValues);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * LN2));
+        int words = (int) Math.min(Integer.MAX_VALUE, (bits + Long.SIZE - 1) / Long.SIZE);
+
+        return new BloomFilter(new AtomicLongArray(words), hashes);
+    }
+
+    public static BloomFilter readFrom(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported Bloom filter format: " + version);
+        }
+        int hashes = in.readInt();
+        AtomicLongArray words = new AtomicLongArray(in.readInt());
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, in.readLong());
+        }
+
+        return new BloomFilter(words, hashes);
+    }
+
+    public void put(CharSequence value) {
+        int h1 = Hash.murmurhash3_x86_32(value, 0, value.length(), 0);
+        int h2 = Hash.murmurhash3_x86_32(value, 0, value.length(), h1);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1, h2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        int h1 = Hash.murmurhash3_x86_32(value, 0, value.length(), 0);
+        int h2 = Hash.murmurhash3_x86_32(value, 0, value.length(), h1);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void writeTo(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(hashes);
+        out.writeInt(words.length());
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+        out.flush();
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Double hashing: the i-th bit is {@code h1 + i * h2}, which is as good as i independent hashes.
+     */
+    private long index(int h1,
+                       int h2,
+                       int i) {
+        long combined = (h1 & 0xFFFFFFFFL) + (long) i * (h2 & 0xFFFFFFFFL);
+
+        return combined % bits;
+    }
+}
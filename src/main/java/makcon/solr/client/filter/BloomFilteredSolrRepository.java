@@ -0,0 +1,279 @@
+package makcon.solr.client.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+
+/**
+ * Repository answering {@code exists}/{@code getExistingIds} by ids from a {@link BloomFilter} of the
+ * stored ids, Solr is queried only for the ids the filter can't rule out.
+ * <p>
+ * The filter is bootstrapped by exporting the id field (it must have docValues) and then kept up to date
+ * by saves through this repository, so all writes of the collection must go through it; file imports are
+ * followed by another export of the ids. Deleted ids stay
+ * in the filter, they only cost a query to Solr. On {@link #shutdown()} the filter is written to a file
+ * and loaded on the next start; the file is removed on load, so after a crash the filter is bootstrapped again.
+ */
+@Slf4j
+public class BloomFilteredSolrRepository extends ForwardingSolrRepository {
+
+    private final String idField;
+    private final BloomFilter filter;
+    private final Path file;
+
+    private BloomFilteredSolrRepository(SolrRepository delegate,
+                                        String idField,
+                                        BloomFilter filter,
+                                        Path file) {
+        super(delegate);
+        this.idField = idField;
+        this.filter = filter;
+        this.file = file;
+    }
+
+    /**
+     * Loads the filter written by the previous {@link #shutdown()} or bootstraps a new one from Solr.
+     */
+    public static BloomFilteredSolrRepository create(SolrRepository delegate,
+                                                     String idField,
+                                                     Path file,
+                                                     long expectedIds,
+                                                     double falsePositiveRate) {
+        BloomFilter filter = load(file);
+        if (filter == null) {
+            filter = BloomFilter.create(expectedIds, falsePositiveRate);
+            long count = bootstrap(delegate, idField, filter);
+            logger.info("Bootstrapped Bloom filter with {} ids of field: {}", count, idField);
+        }
+
+        return new BloomFilteredSolrRepository(delegate, idField, filter, file);
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        put(document);
+        super.save(document);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        put(document);
+        super.save(document, commitWithin);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        put(document);
+        super.save(document, commitWithin, route);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        put(document);
+        super.save(document, softCommit);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        put(document);
+        super.save(document, softCommit, route);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        documents.forEach(this::put);
+        super.save(documents);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        documents.forEach(this::put);
+        super.save(documents, commitWithin);
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        documents.forEach(this::put);
+        return super.saveVersioned(documents);
+    }
+
+    /**
+     * The ids of an imported file aren't parsed here, so they're added by exporting the id field again
+     * once the import is done, also after a failed import as some chunks may have been applied.
+     */
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        int chunks;
+        try {
+            chunks = super.importFile(file, format, chunkBytes);
+        } catch (RuntimeException e) {
+            refreshAfter(e);
+            throw e;
+        }
+        refresh();
+
+        return chunks;
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        int chunks;
+        try {
+            chunks = super.importFile(file, format, chunkBytes, parallelism);
+        } catch (RuntimeException e) {
+            refreshAfter(e);
+            throw e;
+        }
+        refresh();
+
+        return chunks;
+    }
+
+    @Override
+    public Set<String> getExistingIds(String idField,
+                                      Set<String> ids) {
+        if (!this.idField.equals(idField)) {
+            return super.getExistingIds(idField, ids);
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (String id : ids) {
+            if (filter.mightContain(id)) {
+                candidates.add(id);
+            }
+        }
+        logger.debug("Bloom filter ruled out {} of {} ids", ids.size() - candidates.size(), ids.size());
+
+        return candidates.isEmpty() ? emptySet() : super.getExistingIds(idField, candidates);
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id) {
+        if (this.idField.equals(idField) && !filter.mightContain(id)) {
+            return false;
+        }
+
+        return super.exists(idField, id);
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id,
+                          String route) {
+        if (this.idField.equals(idField) && !filter.mightContain(id)) {
+            return false;
+        }
+
+        return super.exists(idField, id, route);
+    }
+
+    /**
+     * Writes the filter to the file, it's used instead of the bootstrap on the next start.
+     */
+    @Override
+    public void shutdown() {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                filter.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Can't write Bloom filter to: {}", file, e);
+        }
+        super.shutdown();
+    }
+
+    private void refresh() {
+        long count = bootstrap(delegate, idField, filter);
+        logger.info("Refreshed Bloom filter with {} ids of field: {} after file import", count, idField);
+    }
+
+    private void refreshAfter(RuntimeException failure) {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void put(SolrInputDoc document) {
+        Object id = document.getSolrInputDocument().getFieldValue(idField);
+        if (id != null) {
+            filter.put(id.toString());
+        }
+    }
+
+    private static BloomFilter load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            BloomFilter filter;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                filter = BloomFilter.readFrom(in);
+            }
+            Files.delete(file);
+            logger.info("Loaded Bloom filter from: {}", file);
+
+            return filter;
+        } catch (IOException e) {
+            logger.warn("Can't load Bloom filter from: {}, bootstrapping it from Solr", file, e);
+            return null;
+        }
+    }
+
+    private static long bootstrap(SolrRepository repository,
+                                  String idField,
+                                  BloomFilter filter) {
+        try {
+            return repository.export(
+                    new SolrQuery(QueryParams.MATCH_ALL),
+                    singletonList(idField),
+                    idField + " asc",
+                    tuple -> {
+                        String id = tuple.getString(idField);
+                        if (id != null) {
+                            filter.put(id);
+                        }
+                    }
+            );
+        } catch (RepositoryAccessException e) {
+            throw new RepositoryAccessException("Can't bootstrap Bloom filter of field: " + idField, e);
+        }
+    }
+}
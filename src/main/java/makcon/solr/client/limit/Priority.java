@@ -0,0 +1,9 @@
+package makcon.solr.client.limit;
+
+/**
+ * Order in which queued requests are admitted, interactive requests go ahead of all queued batch requests.
+ */
+public enum Priority {
+    INTERACTIVE,
+    BATCH
+}
@@ -0,0 +1,78 @@
+package makcon.solr.client.limit;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits requests up to a number of requests in flight and the rate of a shared bucket.
+ * Waiting requests are admitted by priority, then in arrival order, so interactive requests
+ * don't wait behind queued batch work.
+ */
+final class PriorityScheduler {
+
+    private final int maxInFlight;
+    private final TokenBucket bucket;
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing((Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.sequence)
+    );
+
+    private long sequence;
+    private int inFlight;
+
+    /**
+     * @param maxInFlight requests in flight, unlimited if not positive.
+     * @param bucket      rate limit of admitted requests, null if unlimited.
+     */
+    PriorityScheduler(int maxInFlight,
+                      TokenBucket bucket) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.bucket = bucket;
+    }
+
+    synchronized void acquire(Priority priority) throws InterruptedException {
+        Waiter waiter = new Waiter(priority, sequence++);
+        waiters.add(waiter);
+        try {
+            while (true) {
+                if (waiters.peek() != waiter || inFlight >= maxInFlight) {
+                    wait();
+                    continue;
+                }
+                long waitNanos = bucket == null ? 0 : bucket.tryAcquire();
+                if (waitNanos == 0) {
+                    waiters.poll();
+                    inFlight++;
+                    notifyAll();
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+    }
+
+    synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    private static final class Waiter {
+
+        private final Priority priority;
+        private final long sequence;
+
+        private Waiter(Priority priority,
+                       long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package makcon.solr.client.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time requests of a caller spent waiting for rate limits and admission before being sent.
+ */
+public final class QueueWaitStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long waitNanos) {
+        count.increment();
+        totalNanos.add(waitNanos);
+        maxNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(totalNanos.sum());
+    }
+
+    public long getMeanWaitMicros() {
+        long requests = count.sum();
+        return requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / requests);
+    }
+
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "QueueWaitStats{count=" + getCount() + ", meanMicros=" + getMeanWaitMicros()
+                + ", maxMicros=" + getMaxWaitMicros() + '}';
+    }
+}
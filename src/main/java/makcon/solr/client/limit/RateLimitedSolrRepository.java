@@ -0,0 +1,429 @@
+package makcon.solr.client.limit;
+
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.builder.JsonFacet;
+import makcon.solr.client.builder.StreamExpr;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.FacetResult;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.dataobject.StatsResult;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+import makcon.solr.client.stream.Tuple;
+import makcon.solr.client.stream.TupleStream;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Repository limiting the rate and the number of in-flight queries and updates, each kind separately.
+ * Callers sharing the repository get views by {@link #forCaller}, with a tag, a priority and optionally
+ * limits of their own: queued interactive requests are admitted before queued batch requests and
+ * the time every caller waits before its requests are sent is recorded per tag.
+ * <p>
+ * A call takes one permit regardless of the number of documents, a stream holds its permit only until it's opened.
+ */
+public class RateLimitedSolrRepository extends ForwardingSolrRepository {
+
+    public static final String DEFAULT_TAG = "default";
+
+    private final PriorityScheduler queries;
+    private final PriorityScheduler updates;
+    private final ConcurrentMap<String, QueueWaitStats> stats;
+    private final String tag;
+    private final Priority priority;
+    private final TokenBucket callerQueries;
+    private final TokenBucket callerUpdates;
+
+    /**
+     * Creates the repository of the default caller with interactive priority.
+     *
+     * @param queriesPerSecond   rate of queries, unlimited if not positive.
+     * @param updatesPerSecond   rate of updates, unlimited if not positive.
+     * @param maxInFlightQueries queries sent at once, unlimited if not positive.
+     * @param maxInFlightUpdates updates sent at once, unlimited if not positive.
+     */
+    public RateLimitedSolrRepository(SolrRepository delegate,
+                                     double queriesPerSecond,
+                                     double updatesPerSecond,
+                                     int maxInFlightQueries,
+                                     int maxInFlightUpdates) {
+        this(
+                delegate,
+                new PriorityScheduler(maxInFlightQueries, bucket(queriesPerSecond)),
+                new PriorityScheduler(maxInFlightUpdates, bucket(updatesPerSecond)),
+                new ConcurrentHashMap<>(),
+                DEFAULT_TAG,
+                Priority.INTERACTIVE,
+                null,
+                null
+        );
+    }
+
+    private RateLimitedSolrRepository(SolrRepository delegate,
+                                      PriorityScheduler queries,
+                                      PriorityScheduler updates,
+                                      ConcurrentMap<String, QueueWaitStats> stats,
+                                      String tag,
+                                      Priority priority,
+                                      TokenBucket callerQueries,
+                                      TokenBucket callerUpdates) {
+        super(delegate);
+        this.queries = queries;
+        this.updates = updates;
+        this.stats = stats;
+        this.tag = tag;
+        this.priority = priority;
+        this.callerQueries = callerQueries;
+        this.callerUpdates = callerUpdates;
+    }
+
+    /**
+     * @return view sharing the limits of this repository, limited only by them.
+     */
+    public RateLimitedSolrRepository forCaller(String tag,
+                                               Priority priority) {
+        return forCaller(tag, priority, 0, 0);
+    }
+
+    /**
+     * @param queriesPerSecond rate of queries of the caller, unlimited if not positive.
+     * @param updatesPerSecond rate of updates of the caller, unlimited if not positive.
+     * @return view sharing the limits of this repository, also limited by the rates of the caller.
+     */
+    public RateLimitedSolrRepository forCaller(String tag,
+                                               Priority priority,
+                                               double queriesPerSecond,
+                                               double updatesPerSecond) {
+        return new RateLimitedSolrRepository(
+                delegate,
+                queries,
+                updates,
+                stats,
+                tag,
+                priority,
+                bucket(queriesPerSecond),
+                bucket(updatesPerSecond)
+        );
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return wait statistics of all callers by tag.
+     */
+    public Map<String, QueueWaitStats> getQueueWaitStats() {
+        return new HashMap<>(stats);
+    }
+
+    public int getQueuedQueries() {
+        return queries.getQueued();
+    }
+
+    public int getQueuedUpdates() {
+        return updates.getQueued();
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        runUpdate(() -> delegate.save(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        runUpdate(() -> delegate.save(document, commitWithin));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        runUpdate(() -> delegate.save(document, commitWithin, route));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        runUpdate(() -> delegate.save(document, softCommit));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        runUpdate(() -> delegate.save(document, softCommit, route));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        runUpdate(() -> delegate.save(documents));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        runUpdate(() -> delegate.save(documents, commitWithin));
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        return update(() -> delegate.saveVersioned(documents));
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        return update(() -> delegate.importFile(file, format, chunkBytes));
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        return update(() -> delegate.importFile(file, format, chunkBytes, parallelism));
+    }
+
+    @Override
+    public void deleteById(String id) {
+        runUpdate(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        runUpdate(() -> delegate.deleteByIds(ids));
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        runUpdate(() -> delegate.deleteByIds(ids, chunkSize, parallelism));
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        runUpdate(() -> delegate.deleteByQuery(query));
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        runUpdate(() -> delegate.deleteByQuery(query));
+    }
+
+    @Override
+    public Optional<SolrDoc> find(SolrQuery query) {
+        return query(() -> delegate.find(query));
+    }
+
+    @Override
+    public Optional<SolrDoc> getById(String id,
+                                     String... fields) {
+        return query(() -> delegate.getById(id, fields));
+    }
+
+    @Override
+    public List<SolrDoc> getByIds(Collection<String> ids,
+                                  String... fields) {
+        return query(() -> delegate.getByIds(ids, fields));
+    }
+
+    @Override
+    public List<SolrDoc> findList(SolrQuery query) {
+        return query(() -> delegate.findList(query));
+    }
+
+    @Override
+    public QueryResponse findByQuery(SolrQuery query) {
+        return query(() -> delegate.findByQuery(query));
+    }
+
+    @Override
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output) {
+        return query(() -> delegate.findRaw(query, writerType, output));
+    }
+
+    @Override
+    public PartialResponse findByQuery(SolrQuery query,
+                                       Deadline deadline) {
+        return query(() -> delegate.findByQuery(query, deadline));
+    }
+
+    @Override
+    public FacetResult findFacets(SolrQuery query,
+                                  JsonFacet facet) {
+        return query(() -> delegate.findFacets(query, facet));
+    }
+
+    @Override
+    public StatsResult findStats(SolrQuery query,
+                                 String... fields) {
+        return query(() -> delegate.findStats(query, fields));
+    }
+
+    @Override
+    public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                    String facetField,
+                                                    int limit,
+                                                    String... fields) {
+        return query(() -> delegate.findBucketStats(query, facetField, limit, fields));
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        runQuery(() -> delegate.parallelScan(query, partitions, consumer));
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             String idField,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        runQuery(() -> delegate.parallelScan(query, idField, partitions, consumer));
+    }
+
+    @Override
+    public long export(SolrQuery query,
+                       List<String> fields,
+                       String sort,
+                       Consumer<Tuple> consumer) {
+        return query(() -> delegate.export(query, fields, sort, consumer));
+    }
+
+    @Override
+    public TupleStream stream(StreamExpr expression) {
+        return query(() -> delegate.stream(expression));
+    }
+
+    @Override
+    public TupleStream stream(String expression) {
+        return query(() -> delegate.stream(expression));
+    }
+
+    @Override
+    public Set<String> getExistingIds(String idField,
+                                      Set<String> ids) {
+        return query(() -> delegate.getExistingIds(idField, ids));
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField) {
+        return query(() -> delegate.getExistingIds(solrQuery, idField));
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField,
+                                      String route) {
+        return query(() -> delegate.getExistingIds(solrQuery, idField, route));
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id) {
+        return query(() -> delegate.exists(idField, id));
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id,
+                          String route) {
+        return query(() -> delegate.exists(idField, id, route));
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField) {
+        return query(() -> delegate.exists(solrQuery, idField));
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField,
+                          String route) {
+        return query(() -> delegate.exists(solrQuery, idField, route));
+    }
+
+    @Override
+    public void softCommit() {
+        runUpdate(() -> delegate.softCommit());
+    }
+
+    private <T> T query(Supplier<T> call) {
+        return limited(queries, callerQueries, call);
+    }
+
+    private void runQuery(Runnable call) {
+        limited(queries, callerQueries, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> T update(Supplier<T> call) {
+        return limited(updates, callerUpdates, call);
+    }
+
+    private void runUpdate(Runnable call) {
+        limited(updates, callerUpdates, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> T limited(PriorityScheduler scheduler,
+                          TokenBucket callerBucket,
+                          Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            if (callerBucket != null) {
+                callerBucket.acquire();
+            }
+            scheduler.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Interrupted while waiting for a rate limit", e);
+        }
+        stats.computeIfAbsent(tag, t -> new QueueWaitStats()).record(System.nanoTime() - start);
+
+        try {
+            return call.get();
+        } finally {
+            scheduler.release();
+        }
+    }
+
+    private static TokenBucket bucket(double permitsPerSecond) {
+        return permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond, Math.max(1, permitsPerSecond)) : null;
+    }
+}
@@ -0,0 +1,137 @@
+package makcon.solr.client.reactive;
+
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.repository.CursorScanner;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold publisher of the documents matched by a query. Every subscriber gets its own cursorMark scan,
+ * a page is fetched only when the subscriber requested more documents than are buffered, so a subscriber
+ * that cancels early never causes the rest of the result set to be read.
+ * <p>
+ * Pages are fetched and documents are emitted on the given executor, which should allow blocking calls.
+ */
+public final class SolrDocPublisher implements Publisher<SolrDoc> {
+
+    private final SolrRepository repository;
+    private final SolrQuery query;
+    private final String idField;
+    private final Executor executor;
+
+    public SolrDocPublisher(SolrRepository repository,
+                            SolrQuery query,
+                            String idField,
+                            Executor executor) {
+        this.repository = repository;
+        this.query = query;
+        this.idField = idField;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super SolrDoc> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+        subscriber.onSubscribe(new ScanSubscription(subscriber, new CursorScanner(repository, query, idField)));
+    }
+
+    private final class ScanSubscription implements Subscription {
+
+        private final Subscriber<? super SolrDoc> subscriber;
+        private final CursorScanner scanner;
+        private final Deque<SolrDoc> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+
+        private ScanSubscription(Subscriber<? super SolrDoc> subscriber,
+                                 CursorScanner scanner) {
+            this.subscriber = subscriber;
+            this.scanner = scanner;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested number of documents must be positive: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Runs on one thread at a time, so the buffer and the scanner are never accessed concurrently.
+         */
+        private void drain() {
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    buffer.clear();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    done = true;
+                    buffer.clear();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (demand.get() == 0) {
+                    return;
+                }
+
+                SolrDoc doc = buffer.poll();
+                if (doc != null) {
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(doc);
+                } else if (!scanner.hasNext()) {
+                    done = true;
+                    subscriber.onComplete();
+                } else {
+                    try {
+                        buffer.addAll(scanner.nextPage());
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package makcon.solr.client.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.SolrRepository;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sink saving the published documents in batches. The next batch is requested only after
+ * the previous one is saved, so the upstream never produces faster than Solr accepts documents.
+ * The sink can be subscribed once.
+ */
+@Slf4j
+public final class SolrDocSubscriber implements Subscriber<SolrInputDoc> {
+
+    private final SolrRepository repository;
+    private final int batchSize;
+    private final Integer commitWithin;
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+    private Subscription subscription;
+    private List<SolrInputDoc> batch;
+    private long saved;
+
+    /**
+     * Every batch is committed.
+     */
+    public SolrDocSubscriber(SolrRepository repository,
+                             int batchSize) {
+        this(repository, batchSize, null);
+    }
+
+    /**
+     * Batches are not committed, they become visible after commitWithin milliseconds.
+     */
+    public SolrDocSubscriber(SolrRepository repository,
+                             int batchSize,
+                             Integer commitWithin) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.commitWithin = commitWithin;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * @return future completed with the number of saved documents once the upstream completes,
+     * or exceptionally if the upstream or a save fails.
+     */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(SolrInputDoc document) {
+        if (completion.isDone()) {
+            return;
+        }
+        batch.add(document);
+        if (batch.size() >= batchSize && flush()) {
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        logger.error("Upstream of Solr documents failed, {} pending documents are not saved", batch.size(), e);
+        completion.completeExceptionally(e);
+    }
+
+    @Override
+    public void onComplete() {
+        if (flush()) {
+            completion.complete(saved);
+        }
+    }
+
+    private boolean flush() {
+        if (batch.isEmpty() || completion.isDone()) {
+            return !completion.isDone();
+        }
+        List<SolrInputDoc> documents = batch;
+        batch = new ArrayList<>(batchSize);
+        try {
+            if (commitWithin == null) {
+                repository.save(documents);
+            } else {
+                repository.save(documents, commitWithin);
+            }
+            saved += documents.size();
+            return true;
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            completion.completeExceptionally(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package makcon.solr.client.reindex;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.builder.SolrQueryUtils;
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.CursorScanner;
+import makcon.solr.client.repository.SolrRepository;
+import makcon.solr.client.schema.SchemaRegistry;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams documents from a source repository into a target one:
+ * the source is paged with a cursor on the calling thread, every page is transformed into a batch
+ * and written by a pool of writers without intermediate commits. A bounded queue between the stages
+ * keeps memory flat, and the target is committed once at the end.
+ * <p>
+ * Checkpoints carry the cursorMark after which no document is left unwritten,
+ * pass it to {@link #resumeFrom(String)} to continue an interrupted run.
+ * <p>
+ * The default copy writes nested documents only as part of their block: children returned with the parent,
+ * e.g. by a {@code [child]} transformer in fl, are copied with it, and a child matched by the query on its own
+ * is skipped, as it can't be saved outside its block. Children are told apart by a {@code _root_} other than
+ * their id, so the query must return {@code _root_} or match parents only.
+ */
+@Slf4j
+public final class ReindexPipeline {
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_WRITERS = 4;
+    private static final long DEFAULT_REPORT_INTERVAL_MS = 10_000;
+    private static final Batch END = new Batch(-1, Collections.emptyList(), null);
+
+    private final SolrRepository source;
+    private final SolrQuery query;
+    private final String idField;
+
+    private SolrRepository target;
+    private Function<SolrDoc, SolrInputDoc> transform;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int writers = DEFAULT_WRITERS;
+    private int queueCapacity;
+    private String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+    private Integer commitWithin;
+    private Consumer<ReindexProgress> checkpointListener = p -> {
+    };
+    private Consumer<ReindexProgress> progressListener = p -> logger.info("Reindex progress: {}", p);
+    private long reportIntervalMs = DEFAULT_REPORT_INTERVAL_MS;
+
+    private ReindexPipeline(SolrRepository source,
+                            SolrQuery query,
+                            String idField) {
+        this.source = source;
+        this.query = query;
+        this.idField = idField;
+    }
+
+    public static ReindexPipeline from(@Nonnull SolrRepository source,
+                                       @Nonnull SolrQuery query,
+                                       @Nonnull String idField) {
+        return new ReindexPipeline(source, query, idField);
+    }
+
+    public ReindexPipeline to(@Nonnull SolrRepository target) {
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * By default all stored fields are copied as a new document, except {@code _version_}, the fields of
+     * nested documents Solr maintains and the fields the target schema fills by copyField rules, which Solr
+     * would otherwise duplicate. Documents transformed to null are skipped.
+     */
+    public ReindexPipeline transform(@Nonnull Function<SolrDoc, SolrInputDoc> transform) {
+        this.transform = transform;
+        return this;
+    }
+
+    public ReindexPipeline batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public ReindexPipeline writers(int writers) {
+        this.writers = writers;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity batches read ahead of the writers, twice the number of writers by default.
+     */
+    public ReindexPipeline queueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public ReindexPipeline resumeFrom(@Nonnull String cursorMark) {
+        this.cursorMark = cursorMark;
+        return this;
+    }
+
+    public ReindexPipeline commitWithin(Integer commitWithin) {
+        this.commitWithin = commitWithin;
+        return this;
+    }
+
+    public ReindexPipeline onCheckpoint(@Nonnull Consumer<ReindexProgress> checkpointListener) {
+        this.checkpointListener = checkpointListener;
+        return this;
+    }
+
+    public ReindexPipeline onProgress(@Nonnull Consumer<ReindexProgress> progressListener,
+                                      long reportIntervalMs) {
+        this.progressListener = progressListener;
+        this.reportIntervalMs = reportIntervalMs;
+        return this;
+    }
+
+    public ReindexProgress run() throws RepositoryAccessException {
+        if (target == null) {
+            throw new IllegalStateException("Target repository is not set");
+        }
+
+        logger.info("Starting to reindex documents, query: {}, from cursor: {}", query, cursorMark);
+        SolrQuery pageQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        pageQuery.setRows(batchSize);
+
+        Function<SolrDoc, SolrInputDoc> transform = this.transform;
+        if (transform == null) {
+            SchemaRegistry schema = target.getSchema();
+            transform = doc -> copy(doc, schema);
+        }
+
+        Tracker tracker = new Tracker(cursorMark);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(queueCapacity > 0 ? queueCapacity : writers * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        for (int i = 0; i < writers; i++) {
+            executor.execute(() -> write(batches, tracker, failure));
+        }
+
+        try {
+            CursorScanner scanner = new CursorScanner(source, pageQuery, idField, cursorMark);
+            long sequence = 0;
+            while (scanner.hasNext() && failure.get() == null) {
+                List<SolrDoc> page = scanner.nextPage();
+                List<SolrInputDoc> docs = new ArrayList<>(page.size());
+                for (SolrDoc doc : page) {
+                    SolrInputDoc inputDoc = transform.apply(doc);
+                    if (inputDoc != null) {
+                        docs.add(inputDoc);
+                    }
+                }
+                tracker.read(page.size());
+                batches.put(new Batch(sequence++, docs, scanner.getCursorMark()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            finishWriters(executor, batches);
+        }
+
+        if (failure.get() != null) {
+            ReindexProgress progress = tracker.progress();
+            logger.error("Reindex failed, progress: {}", progress, failure.get());
+            throw new RepositoryAccessException("Reindex failed, resume from checkpoint: " + progress.getCheckpoint(), failure.get());
+        }
+
+        target.softCommit();
+        ReindexProgress progress = tracker.progress();
+        progressListener.accept(progress);
+        logger.info("Reindex has been successfully finished: {}", progress);
+
+        return progress;
+    }
+
+    private void write(BlockingQueue<Batch> batches,
+                       Tracker tracker,
+                       AtomicReference<Exception> failure) {
+        try {
+            Batch batch;
+            while ((batch = batches.take()) != END) {
+                // keep draining after a failure so the reader is never blocked on a full queue
+                if (failure.get() != null) {
+                    continue;
+                }
+                try {
+                    if (!batch.docs.isEmpty()) {
+                        target.save(batch.docs, commitWithin);
+                    }
+                    tracker.written(batch);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finishWriters(ExecutorService executor,
+                               BlockingQueue<Batch> batches) {
+        try {
+            for (int i = 0; i < writers; i++) {
+                batches.put(END);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private SolrInputDoc copy(SolrDoc doc,
+                              SchemaRegistry schema) {
+        SolrDocument document = doc.getSolrDocument();
+        Object root = document.getFieldValue(QueryParams.ROOT_FIELD);
+        if (root != null && !String.valueOf(root).equals(String.valueOf(document.getFieldValue(idField)))) {
+            return null;
+        }
+
+        return copy(document, schema);
+    }
+
+    private SolrInputDoc copy(SolrDocument document,
+                              SchemaRegistry schema) {
+        SolrInputDoc.Builder builder = SolrInputDoc.builder(true, idField, document.getFieldValue(idField), document.size());
+        document.forEach((field, value) -> {
+            if (isCopied(field, schema)) {
+                if (value instanceof SolrDocument) {
+                    builder.addChild(field, copy((SolrDocument) value, schema));
+                } else if (value instanceof Collection && isChildren((Collection<?>) value)) {
+                    ((Collection<?>) value).forEach(child -> builder.addChild(field, copy((SolrDocument) child, schema)));
+                } else {
+                    builder.setField(field, value);
+                }
+            }
+        });
+        if (document.hasChildDocuments()) {
+            document.getChildDocuments().forEach(child -> builder.addChild(copy(child, schema)));
+        }
+
+        return builder.build();
+    }
+
+    private boolean isCopied(String field,
+                             SchemaRegistry schema) {
+        return !field.equals(idField)
+                && !field.equals(QueryParams.VERSION_FIELD)
+                && !field.equals(QueryParams.ROOT_FIELD)
+                && !field.equals(QueryParams.NEST_PATH_FIELD)
+                && !field.equals(QueryParams.NEST_PARENT_FIELD)
+                && !schema.isCopyFieldTarget(field);
+    }
+
+    private static boolean isChildren(Collection<?> values) {
+        return !values.isEmpty() && values.iterator().next() instanceof SolrDocument;
+    }
+
+    private static final class Batch {
+
+        private final long sequence;
+        private final List<SolrInputDoc> docs;
+        private final String cursorMark;
+
+        private Batch(long sequence,
+                      List<SolrInputDoc> docs,
+                      String cursorMark) {
+            this.sequence = sequence;
+            this.docs = docs;
+            this.cursorMark = cursorMark;
+        }
+    }
+
+    /**
+     * Batches complete out of order, the checkpoint only moves over a contiguous prefix of written batches.
+     */
+    private final class Tracker {
+
+        private final long startedAt = System.currentTimeMillis();
+        private final Map<Long, Batch> completed = new HashMap<>();
+        private long nextSequence;
+        private long read;
+        private long written;
+        private long lastReportAt = startedAt;
+        private String checkpoint;
+
+        private Tracker(String checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        private synchronized void read(int count) {
+            read += count;
+        }
+
+        /**
+         * Listeners are called under the lock so checkpoints are never reported out of order.
+         */
+        private synchronized void written(Batch batch) {
+            written += batch.docs.size();
+            completed.put(batch.sequence, batch);
+            boolean advanced = false;
+            Batch next;
+            while ((next = completed.remove(nextSequence)) != null) {
+                checkpoint = next.cursorMark;
+                nextSequence++;
+                advanced = true;
+            }
+            if (advanced) {
+                checkpointListener.accept(progress());
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastReportAt >= reportIntervalMs) {
+                lastReportAt = now;
+                progressListener.accept(progress());
+            }
+        }
+
+        private synchronized ReindexProgress progress() {
+            return new ReindexProgress(read, written, System.currentTimeMillis() - startedAt, checkpoint);
+        }
+    }
+}
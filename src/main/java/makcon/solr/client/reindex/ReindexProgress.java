@@ -0,0 +1,56 @@
+package makcon.solr.client.reindex;
+
+/**
+ * Snapshot of a running or finished reindex.
+ */
+public final class ReindexProgress {
+
+    private final long read;
+    private final long written;
+    private final long elapsedMs;
+    private final String checkpoint;
+
+    ReindexProgress(long read,
+                    long written,
+                    long elapsedMs,
+                    String checkpoint) {
+        this.read = read;
+        this.written = written;
+        this.elapsedMs = elapsedMs;
+        this.checkpoint = checkpoint;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * @return cursorMark to resume from, all documents before it have been written.
+     */
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public double getDocsPerSecond() {
+        return elapsedMs == 0 ? 0 : written * 1000d / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexProgress{" +
+                "read=" + read +
+                ", written=" + written +
+                ", elapsedMs=" + elapsedMs +
+                ", docsPerSecond=" + (long) getDocsPerSecond() +
+                ", checkpoint='" + checkpoint + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package makcon.solr.client.repository;
+
+import makcon.solr.client.builder.SolrQueryUtils;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.solr.client.solrj.SolrQuery.ORDER.asc;
+
+/**
+ * Pages through all documents matched by a query using cursorMark, which unlike start/rows paging
+ * costs the same for every page. The query sort is extended by the id field as cursors require.
+ */
+public final class CursorScanner {
+
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final SolrRepository repository;
+    private final SolrQuery query;
+    private final int pageSize;
+
+    private String cursorMark;
+    private boolean finished;
+
+    public CursorScanner(SolrRepository repository,
+                         SolrQuery query,
+                         String idField) {
+        this(repository, query, idField, CursorMarkParams.CURSOR_MARK_START);
+    }
+
+    /**
+     * @param cursorMark cursor to resume from, see {@link #getCursorMark()}.
+     */
+    public CursorScanner(SolrRepository repository,
+                         SolrQuery query,
+                         String idField,
+                         String cursorMark) {
+        this.repository = repository;
+        this.query = prepareQuery(query, idField);
+        this.pageSize = this.query.getRows();
+        this.cursorMark = cursorMark;
+    }
+
+    public boolean hasNext() {
+        return !finished;
+    }
+
+    public List<SolrDoc> nextPage() throws RepositoryAccessException {
+        if (finished) {
+            return new ArrayList<>(0);
+        }
+
+        query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        QueryResponse response = repository.findByQuery(query);
+        SolrDocumentList results = response.getResults();
+        String nextCursorMark = response.getNextCursorMark();
+
+        finished = nextCursorMark == null ||
+                nextCursorMark.equals(cursorMark) ||
+                results.size() < pageSize;
+        cursorMark = nextCursorMark;
+
+        List<SolrDoc> docs = new ArrayList<>(results.size());
+        results.forEach(d -> docs.add(new SolrDoc(d)));
+
+        return docs;
+    }
+
+    /**
+     * @return cursor pointing after the last returned page.
+     */
+    public String getCursorMark() {
+        return cursorMark;
+    }
+
+    private static SolrQuery prepareQuery(SolrQuery query,
+                                          String idField) {
+        SolrQuery cursorQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        cursorQuery.setStart(null);
+        if (cursorQuery.getRows() == null) {
+            cursorQuery.setRows(DEFAULT_PAGE_SIZE);
+        }
+
+        boolean sortedById = cursorQuery.getSorts().stream()
+                .anyMatch(s -> s.getItem().equals(idField));
+        if (!sortedById) {
+            cursorQuery.addSort(idField, asc);
+        }
+
+        return cursorQuery;
+    }
+}
@@ -0,0 +1,282 @@
+package makcon.solr.client.repository;
+
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.builder.JsonFacet;
+import makcon.solr.client.builder.StreamExpr;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.FacetResult;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.dataobject.StatsResult;
+import makcon.solr.client.schema.SchemaRegistry;
+import makcon.solr.client.stream.Tuple;
+import makcon.solr.client.stream.TupleStream;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Base class of repository decorators: forwards every call to the delegate,
+ * subclasses override only the calls they change.
+ */
+public abstract class ForwardingSolrRepository implements SolrRepository {
+
+    protected final SolrRepository delegate;
+
+    protected ForwardingSolrRepository(SolrRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        delegate.save(document);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        delegate.save(document, commitWithin);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        delegate.save(document, commitWithin, route);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        delegate.save(document, softCommit);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        delegate.save(document, softCommit, route);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        delegate.save(documents);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        delegate.save(documents, commitWithin);
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        return delegate.saveVersioned(documents);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        return delegate.importFile(file, format, chunkBytes);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        return delegate.importFile(file, format, chunkBytes, parallelism);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        delegate.deleteByIds(ids);
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        delegate.deleteByIds(ids, chunkSize, parallelism);
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        delegate.deleteByQuery(query);
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        delegate.deleteByQuery(query);
+    }
+
+    @Override
+    public Optional<SolrDoc> find(SolrQuery query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public Optional<SolrDoc> getById(String id,
+                                     String... fields) {
+        return delegate.getById(id, fields);
+    }
+
+    @Override
+    public List<SolrDoc> getByIds(Collection<String> ids,
+                                  String... fields) {
+        return delegate.getByIds(ids, fields);
+    }
+
+    @Override
+    public List<SolrDoc> findList(SolrQuery query) {
+        return delegate.findList(query);
+    }
+
+    @Override
+    public QueryResponse findByQuery(SolrQuery query) {
+        return delegate.findByQuery(query);
+    }
+
+    @Override
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output) {
+        return delegate.findRaw(query, writerType, output);
+    }
+
+    @Override
+    public PartialResponse findByQuery(SolrQuery query,
+                                       Deadline deadline) {
+        return delegate.findByQuery(query, deadline);
+    }
+
+    @Override
+    public FacetResult findFacets(SolrQuery query,
+                                  JsonFacet facet) {
+        return delegate.findFacets(query, facet);
+    }
+
+    @Override
+    public StatsResult findStats(SolrQuery query,
+                                 String... fields) {
+        return delegate.findStats(query, fields);
+    }
+
+    @Override
+    public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                    String facetField,
+                                                    int limit,
+                                                    String... fields) {
+        return delegate.findBucketStats(query, facetField, limit, fields);
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        delegate.parallelScan(query, partitions, consumer);
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             String idField,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        delegate.parallelScan(query, idField, partitions, consumer);
+    }
+
+    @Override
+    public long export(SolrQuery query,
+                       List<String> fields,
+                       String sort,
+                       Consumer<Tuple> consumer) {
+        return delegate.export(query, fields, sort, consumer);
+    }
+
+    @Override
+    public TupleStream stream(StreamExpr expression) {
+        return delegate.stream(expression);
+    }
+
+    @Override
+    public TupleStream stream(String expression) {
+        return delegate.stream(expression);
+    }
+
+    @Override
+    public Set<String> getExistingIds(String idField,
+                                      Set<String> ids) {
+        return delegate.getExistingIds(idField, ids);
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField) {
+        return delegate.getExistingIds(solrQuery, idField);
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField,
+                                      String route) {
+        return delegate.getExistingIds(solrQuery, idField, route);
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id) {
+        return delegate.exists(idField, id);
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id,
+                          String route) {
+        return delegate.exists(idField, id, route);
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField) {
+        return delegate.exists(solrQuery, idField);
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField,
+                          String route) {
+        return delegate.exists(solrQuery, idField, route);
+    }
+
+    @Override
+    public SchemaRegistry getSchema() {
+        return delegate.getSchema();
+    }
+
+    @Override
+    public void softCommit() {
+        delegate.softCommit();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -1,14 +1,31 @@
 package makcon.solr.client.repository;
 
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.builder.JsonFacet;
+import makcon.solr.client.builder.StreamExpr;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.FacetResult;
+import makcon.solr.client.dataobject.SaveResult;
 import makcon.solr.client.dataobject.SolrInputDoc;
 import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.StatsResult;
 import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.schema.SchemaRegistry;
+import makcon.solr.client.stream.Tuple;
+import makcon.solr.client.stream.TupleStream;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface SolrRepository {
 
@@ -30,18 +47,162 @@ public interface SolrRepository {
 
     void save(List<SolrInputDoc> document) throws RepositoryAccessException;
 
+    /**
+     * Saves documents without an explicit commit, they become visible after commitWithin
+     * milliseconds if set, or after the next commit.
+     */
+    void save(List<SolrInputDoc> documents,
+              Integer commitWithin) throws RepositoryAccessException;
+
+    /**
+     * Saves documents carrying an expected {@code _version_} and commits. A document rejected with
+     * a version conflict doesn't fail the batch, it's reported in the result and the rest is saved.
+     * Solr stops the update at a conflict, so every conflict costs one more request for the rest of the batch.
+     *
+     * @see SolrInputDoc.Builder#version(long)
+     */
+    SaveResult saveVersioned(List<SolrInputDoc> documents) throws RepositoryAccessException;
+
+    /**
+     * Sends the file as is to the update handler of the format, in chunks of about chunkBytes
+     * split at line ends, and commits once all chunks are sent. Records must be one per line.
+     *
+     * @return number of sent chunks.
+     */
+    int importFile(Path file,
+                   ImportFormat format,
+                   long chunkBytes) throws RepositoryAccessException;
+
+    /**
+     * Same as {@link #importFile(Path, ImportFormat, long)}, sending up to parallelism chunks at once.
+     */
+    int importFile(Path file,
+                   ImportFormat format,
+                   long chunkBytes,
+                   int parallelism) throws RepositoryAccessException;
+
     void deleteById(String id) throws RepositoryAccessException;
 
     void deleteByIds(List<String> ids) throws RepositoryAccessException;
 
+    /**
+     * Deletes IDs in chunks of at most chunkSize IDs, sending up to parallelism chunks at once,
+     * and commits once all chunks are deleted.
+     */
+    void deleteByIds(List<String> ids,
+                     int chunkSize,
+                     int parallelism) throws RepositoryAccessException;
+
     void deleteByQuery(String query) throws RepositoryAccessException;
 
+    void deleteByQuery(FQ query) throws RepositoryAccessException;
+
     Optional<SolrDoc> find(SolrQuery query) throws RepositoryAccessException;
 
+    /**
+     * Real-time get of the document through the /get handler, saved documents are visible without a commit.
+     *
+     * @param fields fields to return, all stored fields if none.
+     */
+    Optional<SolrDoc> getById(String id,
+                              String... fields) throws RepositoryAccessException;
+
+    /**
+     * Real-time get of the documents through the /get handler, sent in chunks of ids.
+     *
+     * @param fields fields to return, all stored fields if none.
+     * @return found documents, missing ids are skipped.
+     */
+    List<SolrDoc> getByIds(Collection<String> ids,
+                           String... fields) throws RepositoryAccessException;
+
     List<SolrDoc> findList(SolrQuery query) throws RepositoryAccessException;
 
     QueryResponse findByQuery(SolrQuery query) throws RepositoryAccessException;
 
+    /**
+     * Copies the response of the /select handler in the writer type format, e.g. {@code json},
+     * to the output as it arrives, without parsing it. A response with a status other than 200 fails
+     * with the error message of Solr before anything is written. The output is not closed.
+     *
+     * @return number of copied bytes.
+     */
+    long findRaw(SolrQuery query,
+                 String writerType,
+                 OutputStream output) throws RepositoryAccessException;
+
+    /**
+     * Runs the query within the time left until the deadline: Solr gets most of it as {@code timeAllowed}
+     * with {@code shards.tolerant}, returning what it found so far instead of failing. The call fails
+     * with {@link RepositoryAccessException} if no response arrives by the deadline, the request is aborted then.
+     */
+    PartialResponse findByQuery(SolrQuery query,
+                                Deadline deadline) throws RepositoryAccessException;
+
+    /**
+     * Runs the JSON Facet API request over documents matched by the query, no documents are returned.
+     */
+    FacetResult findFacets(SolrQuery query,
+                           JsonFacet facet) throws RepositoryAccessException;
+
+    /**
+     * Computes count, missing, min, max, sum, mean, standard deviation and a cardinality estimate
+     * of every numeric or date field over documents matched by the query, no documents are returned.
+     * The standard deviation of a field the schema declares multi-valued is NaN.
+     */
+    StatsResult findStats(SolrQuery query,
+                          String... fields) throws RepositoryAccessException;
+
+    /**
+     * Same as {@link #findStats(SolrQuery, String...)} for every bucket of the top limit values
+     * of the facet field, by bucket value in the order of bucket counts.
+     */
+    Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                             String facetField,
+                                             int limit,
+                                             String... fields) throws RepositoryAccessException;
+
+    /**
+     * Scans all documents matched by the query using the default id field.
+     *
+     * @see #parallelScan(SolrQuery, String, int, Consumer)
+     */
+    void parallelScan(SolrQuery query,
+                      int partitions,
+                      Consumer<SolrDoc> consumer) throws RepositoryAccessException;
+
+    /**
+     * Splits documents matched by the query into disjoint partitions by hash of the id field
+     * and pages through every partition with its own cursor on a separate thread.
+     * Documents are passed to the consumer on the calling thread, one at a time.
+     *
+     * @throws IllegalArgumentException if partitions is not positive.
+     */
+    void parallelScan(SolrQuery query,
+                      String idField,
+                      int partitions,
+                      Consumer<SolrDoc> consumer) throws RepositoryAccessException;
+
+    /**
+     * Streams all documents matched by the query through the /export handler.
+     * Fields and sort fields must have docValues. The consumer receives the same {@link Tuple} instance
+     * refilled for every document, copy it to keep it.
+     *
+     * @return number of exported documents.
+     */
+    long export(SolrQuery query,
+                List<String> fields,
+                String sort,
+                Consumer<Tuple> consumer) throws RepositoryAccessException;
+
+    /**
+     * Submits the streaming expression to the /stream handler. Tuples are read lazily,
+     * the returned stream must be closed if it is not consumed to the end.
+     */
+    TupleStream stream(StreamExpr expression) throws RepositoryAccessException;
+
+    TupleStream stream(String expression) throws RepositoryAccessException;
+
     Set<String> getExistingIds(String idField,
                                Set<String> ids) throws RepositoryAccessException;
 
@@ -66,6 +227,11 @@ public interface SolrRepository {
                    String idField,
                    String route) throws RepositoryAccessException;
 
+    /**
+     * @return fields of the collection schema, fetched from the Schema API on the first call and cached.
+     */
+    SchemaRegistry getSchema() throws RepositoryAccessException;
+
     void softCommit();
 
     void shutdown();
@@ -3,25 +3,82 @@ package makcon.solr.client.repository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import makcon.solr.client.builder.FQ;
+import makcon.solr.client.builder.JsonFacet;
+import makcon.solr.client.builder.SolrQueryUtils;
+import makcon.solr.client.builder.StreamExpr;
 import makcon.solr.client.builder.UrlBuilder;
+import makcon.solr.client.constant.ImportFormat;
 import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.FacetBuckets;
+import makcon.solr.client.dataobject.FacetResult;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
 import makcon.solr.client.dataobject.SolrDoc;
 import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.dataobject.StatsResult;
 import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.schema.SchemaField;
+import makcon.solr.client.schema.SchemaRegistry;
+import makcon.solr.client.stream.ResponseStream;
+import makcon.solr.client.stream.Tuple;
+import makcon.solr.client.stream.TupleReader;
+import makcon.solr.client.stream.TupleStream;
+import makcon.solr.client.update.AtomicUpdateMerger;
+import makcon.solr.client.update.Batches;
+import makcon.solr.client.update.FileChunkContentStream;
+import makcon.solr.client.update.FileChunks;
+import makcon.solr.client.update.VersionConflicts;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.impl.InputStreamResponseParser;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.solr.client.solrj.SolrRequest.METHOD.POST;
@@ -33,11 +90,31 @@ public class SolrRepositoryImpl implements SolrRepository {
 
     private static final int DEFAULT_CONNECTION_TIMEOUT_MS = 1000;
     private static final int DEFAULT_SOCKET_TIMEOUT_MS = 30000;
+    private static final int DEFAULT_DELETE_CHUNK_SIZE = 1000;
+    private static final long DEFAULT_DELETE_CHUNK_BYTES = 1024 * 1024;
+    private static final int ID_OVERHEAD_BYTES = 16;
+    private static final int SCAN_PAGES_PER_PARTITION = 2;
+    private static final String SELECT_PATH = "/select";
+    private static final String EXPORT_PATH = "/export";
+    private static final String STREAM_PATH = "/stream";
+    private static final String GET_PATH = "/get";
+    private static final int GET_CHUNK_SIZE = 500;
+    private static final long GET_CHUNK_BYTES = 256 * 1024;
+    private static final String CSV_FIELD_NAMES = "fieldnames";
+    private static final String CSV_HEADER = "header";
+    private static final String JSON_WRITER = "json";
+    private static final String STREAM = "stream";
+    private static final String CLOSEABLE_RESPONSE = "closeableResponse";
+    private static final int RAW_BUFFER_SIZE = 8192;
+    private static final List<SolrDoc> SCAN_END = new ArrayList<>(0);
+    private static final int TIME_ALLOWED_PERCENT = 80;
 
     private final SolrClient solrClient;
     private final String url;
     private final boolean softCommit;
 
+    private volatile SchemaRegistry schema;
+
     protected SolrRepositoryImpl(SolrClient solrClient, boolean softCommit) {
         this(solrClient, null, softCommit);
     }
@@ -152,19 +229,102 @@ public class SolrRepositoryImpl implements SolrRepository {
 
     @Override
     public void save(List<SolrInputDoc> documents) throws RepositoryAccessException {
-        logger.info("Starting to add documents in Solr: {}, documents: {}", url, documents);
+        save(documents, true, null);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) throws RepositoryAccessException {
+        save(documents, false, commitWithin);
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) throws RepositoryAccessException {
+        logger.info("Starting to add {} versioned documents in Solr: {}", documents.size(), url);
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(documents);
+        List<SolrInputDoc> conflicts = new ArrayList<>();
         try {
-            List<SolrInputDocument> solrDocuments = documents.stream()
-                    .map(SolrInputDoc::getSolrInputDocument)
-                    .collect(toList());
+            int from = 0;
+            while (from < merged.size()) {
+                List<SolrInputDoc> remaining = merged.subList(from, merged.size());
+                List<SolrInputDoc> sent = remaining.subList(0, VersionConflicts.distinctIdPrefix(remaining));
+                try {
+                    process(sent.stream().map(SolrInputDoc::getSolrInputDocument).collect(toList()), null);
+                    from += sent.size();
+                } catch (SolrException | SolrServerException e) {
+                    String id = VersionConflicts.conflictId(e);
+                    int conflict = id == null ? -1 : VersionConflicts.indexOf(sent, id);
+                    if (conflict < 0) {
+                        throw e;
+                    }
+                    // documents before the conflict are applied, Solr skipped the rest of the request
+                    conflicts.add(sent.get(conflict));
+                    from += conflict + 1;
+                }
+            }
+            softCommit();
+            logger.info("Documents have been successfully added in Solr: {}, version conflicts: {}", url, conflicts.size());
+        } catch (Exception e) {
+            logger.error("Can't save versioned documents in Solr: {}", url);
+            throw new RepositoryAccessException("Can't save versioned documents in Solr: " + url, e);
+        }
+
+        return new SaveResult(merged.size() - conflicts.size(), conflicts);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        return importFile(file, format, chunkBytes, 1);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        logger.info("Starting to import file {} as {} in Solr: {}", file, format, url);
+        try {
+            String fieldNames = null;
+            long[] bounds;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long from = 0;
+                if (format == ImportFormat.CSV) {
+                    // every chunk but the first lacks the header, so it's sent as a parameter instead
+                    from = FileChunks.lineEnd(channel, 0);
+                    ByteBuffer header = ByteBuffer.allocate((int) from);
+                    channel.read(header, 0);
+                    fieldNames = new String(header.array(), UTF_8).trim();
+                }
+                bounds = FileChunks.split(channel, from, chunkBytes);
+            }
 
-            process(solrDocuments);
+            String csvFieldNames = fieldNames;
+            List<Callable<Void>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(() -> {
+                    ContentStreamUpdateRequest request = new ContentStreamUpdateRequest(format.path);
+                    request.addContentStream(new FileChunkContentStream(file, start, end, format.contentType));
+                    if (csvFieldNames != null) {
+                        request.setParam(CSV_FIELD_NAMES, csvFieldNames);
+                        request.setParam(CSV_HEADER, Boolean.FALSE.toString());
+                    }
+                    request.process(solrClient);
+                    return null;
+                });
+            }
+            runAll(tasks, parallelism);
 
             softCommit();
-            logger.info("Documents have been successfully added in Solr: {}", url);
+            logger.info("File {} has been successfully imported in {} chunks in Solr: {}", file, tasks.size(), url);
+
+            return tasks.size();
         } catch (Exception e) {
-            logger.error("Can't save documents in Solr: {}", url);
-            throw new RepositoryAccessException("Can't save documents in Solr: " + url, e);
+            logger.error("Can't import file {} in Solr: {}", file, url);
+            throw new RepositoryAccessException("Can't import file " + file + " in Solr: " + url, e);
         }
     }
 
@@ -175,16 +335,35 @@ public class SolrRepositoryImpl implements SolrRepository {
 
     @Override
     public void deleteByIds(List<String> ids) {
-        logger.info("Deleting documents from the Solr: {}, document IDs: {}", url, ids);
+        deleteByIds(ids, DEFAULT_DELETE_CHUNK_SIZE, 1);
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        logger.info("Deleting {} documents from the Solr: {}", ids.size(), url);
+        logger.debug("Document IDs to delete from Solr: {}, IDs: {}", url, ids);
+        List<List<String>> chunks = Batches.partition(
+                ids,
+                chunkSize,
+                DEFAULT_DELETE_CHUNK_BYTES,
+                id -> id.length() + ID_OVERHEAD_BYTES
+        );
         try {
-            UpdateRequest updateRequest = createRequest();
+            List<Callable<Void>> tasks = chunks.stream()
+                    .map(chunk -> (Callable<Void>) () -> {
+                        createRequest().deleteById(chunk).process(solrClient);
+                        return null;
+                    })
+                    .collect(toList());
+            runAll(tasks, parallelism);
 
-            updateRequest.deleteById(ids).process(solrClient);
             softCommit();
-            logger.info("Documents {} have been successfully deleted from Solr: {}", ids, url);
+            logger.info("{} documents have been successfully deleted in {} chunks from Solr: {}", ids.size(), chunks.size(), url);
         } catch (Exception e) {
-            logger.error("Can't delete documents for IDs {} from Solr: {}", ids, url);
-            throw new RepositoryAccessException("Can't delete documents for ids " + ids + " from the Solr: " + url, e);
+            logger.error("Can't delete {} documents from Solr: {}", ids.size(), url);
+            throw new RepositoryAccessException("Can't delete " + ids.size() + " documents from the Solr: " + url, e);
         }
     }
 
@@ -203,6 +382,11 @@ public class SolrRepositoryImpl implements SolrRepository {
         }
     }
 
+    @Override
+    public void deleteByQuery(FQ query) throws RepositoryAccessException {
+        deleteByQuery(query.build());
+    }
+
     @Override
     public Optional<SolrDoc> find(SolrQuery query) {
         List<SolrDoc> solrDocs = findList(query);
@@ -211,6 +395,52 @@ public class SolrRepositoryImpl implements SolrRepository {
                 Optional.empty() : Optional.of(solrDocs.get(0));
     }
 
+    @Override
+    public Optional<SolrDoc> getById(String id,
+                                     String... fields) {
+        List<SolrDoc> docs = getByIds(Collections.singletonList(id), fields);
+
+        return docs.isEmpty() ? Optional.empty() : Optional.of(docs.get(0));
+    }
+
+    @Override
+    public List<SolrDoc> getByIds(Collection<String> ids,
+                                  String... fields) {
+        logger.debug("Getting {} documents by id from Solr: {}", ids.size(), url);
+        List<SolrDoc> docs = new ArrayList<>(ids.size());
+        List<List<String>> chunks = Batches.partition(
+                new ArrayList<>(ids),
+                GET_CHUNK_SIZE,
+                GET_CHUNK_BYTES,
+                id -> id.length() + ID_OVERHEAD_BYTES
+        );
+        try {
+            for (List<String> chunk : chunks) {
+                ModifiableSolrParams params = new ModifiableSolrParams();
+                params.add(CommonParams.ID, chunk.toArray(new String[0]));
+                if (fields.length > 0) {
+                    params.set(CommonParams.FL, String.join(",", fields));
+                }
+                QueryRequest request = new QueryRequest(params, POST);
+                request.setPath(GET_PATH);
+
+                // a single id is answered with "doc" instead of the "response" list
+                NamedList<Object> response = solrClient.request(request);
+                Object found = response.get(QueryParams.RESPONSE);
+                if (found instanceof SolrDocumentList) {
+                    ((SolrDocumentList) found).forEach(d -> docs.add(new SolrDoc(d)));
+                } else if (response.get(QueryParams.DOC) instanceof SolrDocument) {
+                    docs.add(new SolrDoc((SolrDocument) response.get(QueryParams.DOC)));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Can't get {} documents by id from Solr: {}", ids.size(), url, e);
+            throw new RepositoryAccessException("Can't get documents by id from Solr: " + url, e);
+        }
+
+        return docs;
+    }
+
     @Override
     public List<SolrDoc> findList(SolrQuery query) {
         return findByQuery(query)
@@ -233,6 +463,255 @@ public class SolrRepositoryImpl implements SolrRepository {
         }
     }
 
+    @Override
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output) {
+        logger.info("Sending raw Solr query to server: {}{}?{}", url, SELECT_PATH, query);
+        try (InputStream input = openStream(query, SELECT_PATH, writerType)) {
+            byte[] buffer = new byte[RAW_BUFFER_SIZE];
+            long copied = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+                copied += read;
+            }
+            logger.debug("Finished to copy raw response from the server: {}, bytes: {}", url, copied);
+
+            return copied;
+        } catch (Exception e) {
+            logger.error("Can't retrieve data from Solr: {}{}?{}", url, SELECT_PATH, query, e);
+            throw new RepositoryAccessException("Can't retrieve data from Solr: " + url, e);
+        }
+    }
+
+    @Override
+    public PartialResponse findByQuery(SolrQuery query,
+                                       Deadline deadline) {
+        long remainingMs = deadline.remainingMillis();
+        if (remainingMs <= 0) {
+            throw new RepositoryAccessException("Deadline expired before querying Solr: " + url);
+        }
+
+        // the rest of the budget is left for the network and the response parsing
+        SolrQuery budgetedQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        budgetedQuery.setTimeAllowed((int) Math.max(1, remainingMs * TIME_ALLOWED_PERCENT / 100));
+        budgetedQuery.set(ShardParams.SHARDS_TOLERANT, true);
+
+        // timeAllowed makes Solr stop collecting and return what it has, the wait for a server
+        // that doesn't answer at all is bounded on the client side
+        logger.info("Sending Solr query to server: {}/select?{}, deadline: {}ms", url, budgetedQuery, remainingMs);
+        QueryRequest request = new QueryRequest(budgetedQuery, POST);
+        try {
+            QueryResponse response = solrClient instanceof HttpSolrClient ?
+                    queryUntil((HttpSolrClient) solrClient, request, deadline) : request.process(solrClient);
+            boolean partial = Boolean.TRUE.equals(response.getResponseHeader().get(QueryParams.PARTIAL_RESULTS));
+            if (partial) {
+                logger.info("Solr returned partial results within deadline: {}/select?{}", url, budgetedQuery);
+            }
+
+            return new PartialResponse(response, partial);
+        } catch (RepositoryAccessException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Can't retrieve data from Solr: {}/select?{}", url, budgetedQuery, e);
+            throw new RepositoryAccessException("Can't retrieve data from Solr: " + url, e);
+        }
+    }
+
+    /**
+     * SolrJ has no per-request socket timeout, so the request runs asynchronously
+     * and its connection is aborted once the deadline passes.
+     */
+    private QueryResponse queryUntil(HttpSolrClient client,
+                                     QueryRequest request,
+                                     Deadline deadline) throws Exception {
+        HttpSolrClient.HttpUriRequestResponse call = client.httpUriRequest(request);
+        try {
+            return new QueryResponse(call.future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS), client);
+        } catch (TimeoutException e) {
+            call.httpUriRequest.abort();
+            logger.error("Solr query exceeded the deadline: {}/select?{}", url, request.getParams());
+            throw new RepositoryAccessException("Solr query exceeded the deadline: " + url, e);
+        } catch (InterruptedException e) {
+            call.httpUriRequest.abort();
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Interrupted while querying Solr: " + url, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    @Override
+    public FacetResult findFacets(SolrQuery query,
+                                  JsonFacet facet) {
+        SolrQuery facetQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        facetQuery.setRows(0);
+        facetQuery.set(QueryParams.JSON_FACET, facet.build());
+
+        NamedList<?> facets = (NamedList<?>) findByQuery(facetQuery)
+                .getResponse()
+                .get(QueryParams.FACETS);
+
+        return FacetResult.from(facets);
+    }
+
+    @Override
+    public StatsResult findStats(SolrQuery query,
+                                 String... fields) {
+        return StatsResult.from(findFacets(query, JsonFacet.create().fieldStats(fields)), multiValued(fields), fields);
+    }
+
+    @Override
+    public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                    String facetField,
+                                                    int limit,
+                                                    String... fields) {
+        FacetBuckets buckets = findFacets(
+                query,
+                JsonFacet.create().facet(facetField, JsonFacet.terms(facetField).limit(limit).fieldStats(fields))
+        ).getBuckets(facetField);
+
+        Set<String> multiValued = multiValued(fields);
+        Map<Object, StatsResult> stats = new LinkedHashMap<>();
+        if (buckets != null) {
+            for (int i = 0; i < buckets.size(); i++) {
+                FacetResult bucket = buckets.getBucketResult(i);
+                stats.put(
+                        buckets.getValue(i),
+                        bucket == null ? StatsResult.empty(buckets.getCount(i), fields) : StatsResult.from(bucket, multiValued, fields)
+                );
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * @return fields the schema declares multi-valued, none if the schema can't be read.
+     */
+    private Set<String> multiValued(String... fields) {
+        SchemaRegistry registry;
+        try {
+            registry = getSchema();
+        } catch (RepositoryAccessException e) {
+            logger.warn("Can't tell multi-valued fields without the schema of Solr: {}", url);
+            return Collections.emptySet();
+        }
+        Set<String> multiValued = new HashSet<>();
+        for (String field : fields) {
+            SchemaField schemaField = registry.getField(field);
+            if (schemaField != null && schemaField.isMultiValued()) {
+                multiValued.add(field);
+            }
+        }
+
+        return multiValued;
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        parallelScan(query, QueryParams.DEFAULT_ID_FIELD, partitions, consumer);
+    }
+
+    @Override
+    public void parallelScan(SolrQuery query,
+                             String idField,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+        }
+        logger.info("Starting to scan Solr: {} in {} partitions, query: {}", url, partitions, query);
+        BlockingQueue<List<SolrDoc>> pages = new ArrayBlockingQueue<>(partitions * SCAN_PAGES_PER_PARTITION);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(partitions);
+        try {
+            for (int partition = 0; partition < partitions; partition++) {
+                SolrQuery partitionQuery = createPartitionQuery(query, idField, partitions, partition);
+                executor.execute(() -> scanPartition(partitionQuery, idField, pages, failure));
+            }
+
+            long count = 0;
+            int finishedPartitions = 0;
+            while (finishedPartitions < partitions) {
+                List<SolrDoc> page = pages.take();
+                if (page == SCAN_END) {
+                    finishedPartitions++;
+                    continue;
+                }
+                page.forEach(consumer);
+                count += page.size();
+            }
+
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            logger.info("Finished to scan Solr: {}, documents: {}", url, count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Scan of Solr: " + url + " has been interrupted", e);
+        } catch (RepositoryAccessException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Can't scan data from Solr: {}/select?{}", url, query, e);
+            throw new RepositoryAccessException("Can't scan data from Solr: " + url, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public long export(SolrQuery query,
+                       List<String> fields,
+                       String sort,
+                       Consumer<Tuple> consumer) {
+        SolrQuery exportQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        exportQuery.setFields(fields.toArray(new String[0]));
+        exportQuery.set(CommonParams.SORT, sort);
+
+        logger.info("Starting to export from Solr: {}{}?{}", url, EXPORT_PATH, exportQuery);
+        try (TupleReader reader = new TupleReader(openStream(exportQuery, EXPORT_PATH, JSON_WRITER), TupleReader.EXPORT_DOCS_PATH)) {
+            Tuple tuple = new Tuple();
+            long count = 0;
+            while (reader.next(tuple)) {
+                consumer.accept(tuple);
+                count++;
+            }
+            logger.info("Finished to export from Solr: {}, documents: {}", url, count);
+
+            return count;
+        } catch (RepositoryAccessException e) {
+            logger.error("Can't export data from Solr: {}{}?{}", url, EXPORT_PATH, exportQuery, e);
+            throw e;
+        } catch (Exception e) {
+            logger.error("Can't export data from Solr: {}{}?{}", url, EXPORT_PATH, exportQuery, e);
+            throw new RepositoryAccessException("Can't export data from Solr: " + url, e);
+        }
+    }
+
+    @Override
+    public TupleStream stream(StreamExpr expression) {
+        return stream(expression.build());
+    }
+
+    @Override
+    public TupleStream stream(String expression) {
+        logger.info("Sending streaming expression to Solr: {}{}, expression: {}", url, STREAM_PATH, expression);
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(QueryParams.EXPR, expression);
+        try {
+            InputStream stream = openStream(params, STREAM_PATH, JSON_WRITER);
+
+            return new TupleStream(new TupleReader(stream, TupleReader.STREAM_DOCS_PATH));
+        } catch (Exception e) {
+            logger.error("Can't stream data from Solr: {}{}, expression: {}", url, STREAM_PATH, expression, e);
+            throw new RepositoryAccessException("Can't stream data from Solr: " + url, e);
+        }
+    }
+
     @Override
     public Set<String> getExistingIds(String idField,
                                       Set<String> ids) throws RepositoryAccessException {
@@ -301,6 +780,23 @@ public class SolrRepositoryImpl implements SolrRepository {
         return exists(solrQuery, idField, null);
     }
 
+    @Override
+    public SchemaRegistry getSchema() {
+        SchemaRegistry registry = schema;
+        if (registry == null) {
+            try {
+                registry = SchemaRegistry.from(new SchemaRequest().process(solrClient).getSchemaRepresentation());
+                schema = registry;
+                logger.info("Fetched schema of Solr: {}", url);
+            } catch (Exception e) {
+                logger.error("Can't fetch schema of Solr: {}", url, e);
+                throw new RepositoryAccessException("Can't fetch schema of Solr: " + url, e);
+            }
+        }
+
+        return registry;
+    }
+
     @Override
     public void softCommit() {
         try {
@@ -332,10 +828,36 @@ public class SolrRepositoryImpl implements SolrRepository {
         }
     }
 
-    private void process(List<SolrInputDocument> docs) throws IOException, SolrServerException {
+    private void save(List<SolrInputDoc> documents,
+                      boolean commit,
+                      Integer commitWithin) {
+        logger.info("Starting to add {} documents in Solr: {}", documents.size(), url);
+        logger.debug("Documents to add in Solr: {}, documents: {}", url, documents);
+        try {
+            List<SolrInputDocument> solrDocuments = AtomicUpdateMerger.merge(documents).stream()
+                    .map(SolrInputDoc::getSolrInputDocument)
+                    .collect(toList());
+
+            process(solrDocuments, commitWithin);
+
+            if (commit) {
+                softCommit();
+            }
+            logger.info("Documents have been successfully added in Solr: {}", url);
+        } catch (Exception e) {
+            logger.error("Can't save documents in Solr: {}", url);
+            throw new RepositoryAccessException("Can't save documents in Solr: " + url, e);
+        }
+    }
+
+    private void process(List<SolrInputDocument> docs,
+                         Integer commitWithin) throws IOException, SolrServerException {
         UpdateRequest updateRequest =
                 createRequest()
                 .add(docs);
+        if (commitWithin != null) {
+            updateRequest.setCommitWithin(commitWithin);
+        }
 
         updateRequest.process(solrClient);
     }
@@ -348,7 +870,82 @@ public class SolrRepositoryImpl implements SolrRepository {
         updateRequest.process(solrClient);
     }
 
+    /**
+     * Sends the request and returns the raw response body, the caller must close it.
+     */
+    private InputStream openStream(SolrParams params,
+                                   String path,
+                                   String writerType) throws IOException, SolrServerException {
+        QueryRequest request = new QueryRequest(params, POST);
+        request.setPath(path);
+        request.setResponseParser(new InputStreamResponseParser(writerType));
+
+        NamedList<Object> response = solrClient.request(request);
+
+        return ResponseStream.open((InputStream) response.get(STREAM), (Closeable) response.get(CLOSEABLE_RESPONSE));
+    }
+
+    private SolrQuery createPartitionQuery(SolrQuery query,
+                                           String idField,
+                                           int partitions,
+                                           int partition) {
+        SolrQuery partitionQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        if (partitions > 1) {
+            partitionQuery.addFilterQuery("{!hash workers=" + partitions + " worker=" + partition + "}");
+            partitionQuery.set(QueryParams.PARTITION_KEYS, idField);
+        }
+
+        return partitionQuery;
+    }
+
+    private void scanPartition(SolrQuery query,
+                               String idField,
+                               BlockingQueue<List<SolrDoc>> pages,
+                               AtomicReference<Exception> failure) {
+        try {
+            CursorScanner scanner = new CursorScanner(this, query, idField);
+            while (scanner.hasNext() && failure.get() == null) {
+                List<SolrDoc> page = scanner.nextPage();
+                if (!page.isEmpty()) {
+                    pages.put(page);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+
+        try {
+            pages.put(SCAN_END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private UpdateRequest createRequest() {
         return new UpdateRequest();
     }
+
+    private void runAll(List<Callable<Void>> tasks,
+                        int parallelism) throws Exception {
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            for (Callable<Void> task : tasks) {
+                task.call();
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
\ No newline at end of file
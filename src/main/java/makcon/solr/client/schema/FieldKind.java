@@ -0,0 +1,54 @@
+package makcon.solr.client.schema;
+
+/**
+ * Java value kind of a Solr field type, derived from the field type class.
+ */
+public enum FieldKind {
+
+    STRING,
+    TEXT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    BOOLEAN,
+    DATE,
+    /**
+     * Any other type (spatial, binary, enum, currency...), values are passed as is.
+     */
+    OTHER;
+
+    static FieldKind fromClass(String typeClass) {
+        if (typeClass == null) {
+            return OTHER;
+        }
+        String name = typeClass.substring(typeClass.lastIndexOf('.') + 1);
+        switch (name) {
+            case "StrField":
+            case "UUIDField":
+                return STRING;
+            case "TextField":
+            case "SortableTextField":
+                return TEXT;
+            case "IntPointField":
+            case "TrieIntField":
+                return INT;
+            case "LongPointField":
+            case "TrieLongField":
+                return LONG;
+            case "FloatPointField":
+            case "TrieFloatField":
+                return FLOAT;
+            case "DoublePointField":
+            case "TrieDoubleField":
+                return DOUBLE;
+            case "BoolField":
+                return BOOLEAN;
+            case "DatePointField":
+            case "TrieDateField":
+                return DATE;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package makcon.solr.client.schema;
+
+/**
+ * Field or dynamic field of the collection schema with the properties resolved from its field type.
+ */
+public final class SchemaField {
+
+    private final String name;
+    private final String type;
+    private final FieldKind kind;
+    private final boolean multiValued;
+    private final boolean docValues;
+    private final boolean stored;
+    private final boolean required;
+    private final boolean hasDefault;
+
+    SchemaField(String name,
+                String type,
+                FieldKind kind,
+                boolean multiValued,
+                boolean docValues,
+                boolean stored,
+                boolean required,
+                boolean hasDefault) {
+        this.name = name;
+        this.type = type;
+        this.kind = kind;
+        this.multiValued = multiValued;
+        this.docValues = docValues;
+        this.stored = stored;
+        this.required = required;
+        this.hasDefault = hasDefault;
+    }
+
+    /**
+     * @return field name or dynamic field pattern.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public FieldKind getKind() {
+        return kind;
+    }
+
+    public boolean isMultiValued() {
+        return multiValued;
+    }
+
+    public boolean isDocValues() {
+        return docValues;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public boolean hasDefault() {
+        return hasDefault;
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaField{" +
+                "name='" + name + '\'' +
+                ", type='" + type + '\'' +
+                ", kind=" + kind +
+                ", multiValued=" + multiValued +
+                ", docValues=" + docValues +
+                '}';
+    }
+}
@@ -0,0 +1,485 @@
+package makcon.solr.client.schema;
+
+import makcon.solr.client.constant.SolrFieldModifier;
+import makcon.solr.client.dataobject.AtomicUpdate;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.SchemaValidationException;
+import org.apache.solr.client.solrj.request.schema.FieldTypeDefinition;
+import org.apache.solr.client.solrj.response.schema.SchemaRepresentation;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fields of the collection schema with their types, used to convert values to the Java types Solr
+ * expects and to reject invalid documents before they're sent. Dynamic fields are matched by the
+ * longest pattern, as Solr does.
+ */
+public final class SchemaRegistry {
+
+    private final String uniqueKey;
+    private final Map<String, SchemaField> fields;
+    private final List<SchemaField> dynamicFields;
+    private final List<String> copyFieldTargets;
+
+    private SchemaRegistry(String uniqueKey,
+                           Map<String, SchemaField> fields,
+                           List<SchemaField> dynamicFields,
+                           List<String> copyFieldTargets) {
+        this.uniqueKey = uniqueKey;
+        this.fields = fields;
+        this.dynamicFields = dynamicFields;
+        this.copyFieldTargets = copyFieldTargets;
+    }
+
+    public static SchemaRegistry from(SchemaRepresentation schema) {
+        Map<String, Map<String, Object>> types = new HashMap<>();
+        for (FieldTypeDefinition type : schema.getFieldTypes()) {
+            types.put((String) type.getAttributes().get("name"), type.getAttributes());
+        }
+
+        Map<String, SchemaField> fields = new HashMap<>();
+        for (Map<String, Object> field : schema.getFields()) {
+            SchemaField schemaField = toField(field, types);
+            fields.put(schemaField.getName(), schemaField);
+        }
+
+        List<SchemaField> dynamicFields = new ArrayList<>();
+        for (Map<String, Object> field : schema.getDynamicFields()) {
+            dynamicFields.add(toField(field, types));
+        }
+        dynamicFields.sort((a, b) -> b.getName().length() - a.getName().length());
+
+        List<String> copyFieldTargets = new ArrayList<>();
+        if (schema.getCopyFields() != null) {
+            for (Map<String, Object> copyField : schema.getCopyFields()) {
+                copyFieldTargets.add((String) copyField.get("dest"));
+            }
+        }
+
+        return new SchemaRegistry(schema.getUniqueKey(), fields, dynamicFields, copyFieldTargets);
+    }
+
+    public String getUniqueKey() {
+        return uniqueKey;
+    }
+
+    /**
+     * @return the field or the matching dynamic field, null if the schema has none.
+     */
+    public SchemaField getField(String name) {
+        SchemaField field = fields.get(name);
+        if (field != null) {
+            return field;
+        }
+        for (SchemaField dynamicField : dynamicFields) {
+            if (matches(dynamicField.getName(), name)) {
+                return dynamicField;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if Solr fills the field from other fields by a copyField rule, the destination may be a pattern.
+     */
+    public boolean isCopyFieldTarget(String name) {
+        for (String target : copyFieldTargets) {
+            if (matches(target, name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Converts every field value of the document in place, including atomic update values.
+     * Child documents are validated as documents of their own, except children to remove.
+     *
+     * @return the same document.
+     * @throws SchemaValidationException if a field is unknown, a value can't be converted
+     *                                   or a required field of a new document is missing.
+     */
+    public SolrInputDoc validate(SolrInputDoc document) {
+        SolrInputDocument solrDocument = document.getSolrInputDocument();
+        for (String name : new ArrayList<>(solrDocument.getFieldNames())) {
+            // the raw value, getFieldValue returns only the first of several child documents
+            Object value = solrDocument.getField(name).getValue();
+            if (validateChildren(document.getIdField(), value)) {
+                continue;
+            }
+            SchemaField field = requireField(name);
+            Object converted = SolrInputDoc.isAtomicValue(value) ?
+                    convertAtomic(field, (Map<?, ?>) value) :
+                    convertValue(field, solrDocument.getFieldValues(name));
+            solrDocument.setField(name, converted);
+        }
+        document.getChildren().forEach(this::validate);
+
+        if (!document.isAtomicUpdate()) {
+            for (SchemaField field : fields.values()) {
+                if (field.isRequired() && !field.hasDefault() && !solrDocument.containsKey(field.getName())) {
+                    throw new SchemaValidationException("Required field is missing: " + field.getName());
+                }
+            }
+        }
+
+        return document;
+    }
+
+    /**
+     * Validates all documents before reporting, so one call reveals every invalid document of a batch.
+     *
+     * @throws SchemaValidationException with the error of every invalid document.
+     */
+    public List<SolrInputDoc> validate(List<SolrInputDoc> documents) {
+        Map<Object, String> errors = new LinkedHashMap<>();
+        for (SolrInputDoc document : documents) {
+            try {
+                validate(document);
+            } catch (SchemaValidationException e) {
+                errors.put(document.getId(), e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new SchemaValidationException(errors.size() + " of " + documents.size() + " documents are invalid", errors);
+        }
+
+        return documents;
+    }
+
+    /**
+     * @return value of the field converted to the type Solr expects, a collection for multi-valued values.
+     */
+    public Object convert(String name,
+                          Object value) {
+        return convertValue(requireField(name), value);
+    }
+
+    /**
+     * Reads the field converting the stored value to the type: numbers between numeric types,
+     * dates to {@link Instant}/{@link LocalDateTime} (UTC)/epoch millis, strings to enums.
+     */
+    public <T> T read(SolrDoc doc,
+                      String name,
+                      Class<T> type) {
+        requireField(name);
+        return convertTo(name, doc.getSolrDocument().getFirstValue(name), type);
+    }
+
+    public <T> List<T> readList(SolrDoc doc,
+                                String name,
+                                Class<T> type) {
+        requireField(name);
+        Collection<Object> values = doc.getSolrDocument().getFieldValues(name);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        List<T> converted = new ArrayList<>(values.size());
+        for (Object value : values) {
+            converted.add(convertTo(name, value, type));
+        }
+
+        return converted;
+    }
+
+    private SchemaField requireField(String name) {
+        SchemaField field = getField(name);
+        if (field == null) {
+            throw new SchemaValidationException("Field is not defined in schema: " + name);
+        }
+
+        return field;
+    }
+
+    private Object convertAtomic(SchemaField field,
+                                 Map<?, ?> operations) {
+        AtomicUpdate update = null;
+        for (Map.Entry<?, ?> operation : operations.entrySet()) {
+            SolrFieldModifier modifier = toModifier(field, String.valueOf(operation.getKey()));
+            Object value = operation.getValue();
+            if (modifier == SolrFieldModifier.INC) {
+                if (!isNumeric(field.getKind())) {
+                    throw new SchemaValidationException("Field " + field.getName() + " of type " + field.getType() + " can't be incremented");
+                }
+                value = convertSingle(field, value);
+            } else if (modifier != SolrFieldModifier.REMOVE_REGEX) {
+                value = convertValue(field, value);
+            }
+            update = update == null ? AtomicUpdate.of(modifier, value) : update.with(modifier, value);
+        }
+
+        return update;
+    }
+
+    private Object convertValue(SchemaField field,
+                                Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            if (values.size() == 1) {
+                return convertSingle(field, values.iterator().next());
+            }
+            if (!field.isMultiValued()) {
+                throw new SchemaValidationException("Field " + field.getName() + " is single-valued, got: " + values.size() + " values");
+            }
+            List<Object> converted = new ArrayList<>(values.size());
+            for (Object v : values) {
+                converted.add(convertSingle(field, v));
+            }
+            return converted;
+        }
+
+        return convertSingle(field, value);
+    }
+
+    private Object convertSingle(SchemaField field,
+                                 Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (field.getKind()) {
+                case STRING:
+                case TEXT:
+                    return toText(value);
+                case INT:
+                    return Math.toIntExact(toLong(value));
+                case LONG:
+                    return toLong(value);
+                case FLOAT:
+                    return value instanceof String ? Float.parseFloat((String) value) : ((Number) value).floatValue();
+                case DOUBLE:
+                    return value instanceof String ? Double.parseDouble((String) value) : ((Number) value).doubleValue();
+                case BOOLEAN:
+                    return toBoolean(value);
+                case DATE:
+                    return toDate(value);
+                default:
+                    return value;
+            }
+        } catch (ClassCastException | NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            throw new SchemaValidationException(
+                    "Value '" + value + "' of " + value.getClass().getSimpleName() +
+                            " doesn't fit field " + field.getName() + " of type " + field.getType()
+            );
+        }
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean ||
+                value instanceof Character || value instanceof UUID) {
+            return value.toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+
+        throw new ClassCastException();
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof String) {
+            return Long.parseLong((String) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).longValueExact();
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).longValueExact();
+        }
+
+        throw new ClassCastException();
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if ("true".equalsIgnoreCase(String.valueOf(value))) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(String.valueOf(value))) {
+            return Boolean.FALSE;
+        }
+
+        throw new ClassCastException();
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof Instant) {
+            return Date.from((Instant) value);
+        }
+        if (value instanceof LocalDateTime) {
+            return Date.from(((LocalDateTime) value).toInstant(ZoneOffset.UTC));
+        }
+        if (value instanceof LocalDate) {
+            return Date.from(((LocalDate) value).atStartOfDay().toInstant(ZoneOffset.UTC));
+        }
+        if (value instanceof ZonedDateTime) {
+            return Date.from(((ZonedDateTime) value).toInstant());
+        }
+        if (value instanceof OffsetDateTime) {
+            return Date.from(((OffsetDateTime) value).toInstant());
+        }
+        if (value instanceof Long) {
+            return new Date((Long) value);
+        }
+        if (value instanceof String) {
+            return Date.from(Instant.parse((String) value));
+        }
+
+        throw new ClassCastException();
+    }
+
+    /**
+     * @return true if the value holds child documents of a nested field.
+     */
+    private boolean validateChildren(String idField,
+                                     Object value) {
+        boolean children = false;
+        boolean atomic = SolrInputDoc.isAtomicValue(value);
+        Collection<?> values = atomic ? ((Map<?, ?>) value).entrySet() : Collections.singletonList(value);
+        for (Object entry : values) {
+            boolean remove = false;
+            Object entryValue = entry;
+            if (atomic) {
+                remove = SolrFieldModifier.REMOVE.value.equals(((Map.Entry<?, ?>) entry).getKey());
+                entryValue = ((Map.Entry<?, ?>) entry).getValue();
+            }
+            for (Object item : entryValue instanceof Collection ? (Collection<?>) entryValue : Collections.singletonList(entryValue)) {
+                if (item instanceof SolrInputDocument) {
+                    children = true;
+                    if (!remove) {
+                        validate(SolrInputDoc.of(idField, (SolrInputDocument) item));
+                    }
+                }
+            }
+        }
+
+        return children;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> T convertTo(String name,
+                                   Object value,
+                                   Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        try {
+            Object converted;
+            if (type == Long.class) {
+                converted = toLong(value instanceof Date ? ((Date) value).getTime() : value);
+            } else if (type == Integer.class) {
+                converted = Math.toIntExact(toLong(value));
+            } else if (type == Double.class) {
+                converted = value instanceof String ? Double.parseDouble((String) value) : ((Number) value).doubleValue();
+            } else if (type == Float.class) {
+                converted = value instanceof String ? Float.parseFloat((String) value) : ((Number) value).floatValue();
+            } else if (type == Boolean.class) {
+                converted = toBoolean(value);
+            } else if (type == String.class) {
+                converted = value instanceof Date ? ((Date) value).toInstant().toString() : toText(value);
+            } else if (type == Instant.class) {
+                converted = toDate(value).toInstant();
+            } else if (type == LocalDateTime.class) {
+                converted = LocalDateTime.ofInstant(toDate(value).toInstant(), ZoneOffset.UTC);
+            } else if (type == Date.class) {
+                converted = toDate(value);
+            } else if (type.isEnum()) {
+                converted = Enum.valueOf((Class<Enum>) type, value.toString());
+            } else {
+                throw new ClassCastException();
+            }
+            return type.cast(converted);
+        } catch (ClassCastException | IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+            throw new SchemaValidationException(
+                    "Value '" + value + "' of field " + name + " can't be read as " + type.getSimpleName()
+            );
+        }
+    }
+
+    private static SolrFieldModifier toModifier(SchemaField field,
+                                                String name) {
+        for (SolrFieldModifier modifier : SolrFieldModifier.values()) {
+            if (modifier.value.equals(name)) {
+                return modifier;
+            }
+        }
+
+        throw new SchemaValidationException("Unknown atomic update modifier '" + name + "' of field " + field.getName());
+    }
+
+    private static boolean isNumeric(FieldKind kind) {
+        return kind == FieldKind.INT || kind == FieldKind.LONG || kind == FieldKind.FLOAT || kind == FieldKind.DOUBLE;
+    }
+
+    private static boolean matches(String pattern,
+                                   String name) {
+        if (pattern.startsWith("*")) {
+            return name.endsWith(pattern.substring(1));
+        }
+        if (pattern.endsWith("*")) {
+            return name.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+
+        return pattern.equals(name);
+    }
+
+    private static SchemaField toField(Map<String, Object> field,
+                                       Map<String, Map<String, Object>> types) {
+        String typeName = (String) field.get("type");
+        Map<String, Object> type = types.getOrDefault(typeName, Collections.emptyMap());
+
+        return new SchemaField(
+                (String) field.get("name"),
+                typeName,
+                FieldKind.fromClass((String) type.get("class")),
+                flag("multiValued", field, type),
+                flag("docValues", field, type),
+                !Boolean.FALSE.equals(field.getOrDefault("stored", type.get("stored"))),
+                flag("required", field, type),
+                field.containsKey("default")
+        );
+    }
+
+    /**
+     * Field property, inherited from the field type if the field doesn't set it.
+     */
+    private static boolean flag(String property,
+                                Map<String, Object> field,
+                                Map<String, Object> type) {
+        Object value = field.containsKey(property) ? field.get(property) : type.get(property);
+
+        return Boolean.TRUE.equals(value) || "true".equals(value);
+    }
+}
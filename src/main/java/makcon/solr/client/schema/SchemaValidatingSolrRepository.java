@@ -0,0 +1,68 @@
+package makcon.solr.client.schema;
+
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.SchemaValidationException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+
+import java.util.List;
+
+/**
+ * Repository converting the values of saved documents to the types of the collection schema
+ * and throwing {@link SchemaValidationException} for invalid documents instead of sending them,
+ * so a bad field fails before the round trip and without failing the rest of a batch on the server.
+ */
+public class SchemaValidatingSolrRepository extends ForwardingSolrRepository {
+
+    public SchemaValidatingSolrRepository(SolrRepository delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        super.save(getSchema().validate(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        super.save(getSchema().validate(document), commitWithin);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        super.save(getSchema().validate(document), commitWithin, route);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        super.save(getSchema().validate(document), softCommit);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        super.save(getSchema().validate(document), softCommit, route);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        super.save(getSchema().validate(documents));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        super.save(getSchema().validate(documents), commitWithin);
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        return super.saveVersioned(getSchema().validate(documents));
+    }
+}
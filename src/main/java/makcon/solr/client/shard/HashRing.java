@@ -0,0 +1,47 @@
+package makcon.solr.client.shard;
+
+import org.apache.solr.common.util.Hash;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring of shards: every shard owns virtualNodes points of the 32-bit murmur3 hash space
+ * and a key belongs to the shard owning the first point at or after the hash of the key.
+ * Appending a shard moves only the keys taken over by its points, about 1/n of all keys.
+ */
+final class HashRing {
+
+    private final int[] points;
+    private final int[] shards;
+
+    HashRing(int shardCount,
+             int virtualNodes) {
+        long[] ring = new long[shardCount * virtualNodes];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring[shard * virtualNodes + node] = (long) hash("shard-" + shard + "#" + node) << 32 | shard;
+            }
+        }
+        Arrays.sort(ring);
+
+        this.points = new int[ring.length];
+        this.shards = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = (int) (ring[i] >> 32);
+            shards[i] = (int) ring[i];
+        }
+    }
+
+    int shardFor(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return shards[index == points.length ? 0 : index];
+    }
+
+    static int hash(String key) {
+        return Hash.murmurhash3_x86_32(key, 0, key.length(), 0);
+    }
+}
@@ -0,0 +1,793 @@
+package makcon.solr.client.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.builder.JsonFacet;
+import makcon.solr.client.builder.SolrQueryUtils;
+import makcon.solr.client.builder.StreamExpr;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.FacetResult;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.dataobject.StatsResult;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.SolrRepository;
+import makcon.solr.client.schema.SchemaRegistry;
+import makcon.solr.client.stream.Tuple;
+import makcon.solr.client.stream.TupleStream;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Repository spreading documents over standalone cores by consistent hashing of the id, or of the route key
+ * where one is given. Calls on documents go to their shard, queries go to all shards in parallel and
+ * the sorted results are merged client-side; only documents, numFound and maxScore are merged.
+ * <p>
+ * Calls by id look up the shard of the id, so documents saved with a route key are found by id only through
+ * the overloads taking the route, e.g. {@link #getRoutedById} and {@link #deleteById(String, String)}.
+ * <p>
+ * Raw responses, JSON facets, streaming expressions and file imports can't be merged or routed across shards,
+ * they are supported with a single shard or through the overloads running on the shard of the route keys.
+ * Bucket statistics are merged exactly from all buckets of every shard.
+ * <p>
+ * Shards are identified by their position, keep the order and append new shards at the end.
+ * Every shard is asked for start + rows documents, so deep paging gets more expensive with every shard.
+ */
+@Slf4j
+public class ShardedSolrRepository implements SolrRepository {
+
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+    private static final int DEFAULT_ROWS = 10;
+    private static final String ALL_FIELDS = "*";
+    private static final String RESPONSE_HEADER = "responseHeader";
+    private static final String QTIME = "QTime";
+    private static final int ALL_BUCKETS = -1;
+    // Solr's order of terms buckets: by count descending, then by value
+    @SuppressWarnings("unchecked")
+    private static final Comparator<Map.Entry<Object, StatsResult>> BUCKET_ORDER =
+            Comparator.<Map.Entry<Object, StatsResult>>comparingLong(bucket -> -bucket.getValue().getCount())
+                    .thenComparing(bucket -> (Comparable<Object>) bucket.getKey());
+
+    private final List<SolrRepository> shards;
+    private final HashRing ring;
+    private final List<Integer> allShards;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "solr-shard-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardedSolrRepository(List<SolrRepository> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param virtualNodes points of every shard on the hash ring, more points spread keys more evenly.
+     */
+    public ShardedSolrRepository(List<SolrRepository> shards,
+                                 int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = new ArrayList<>(shards);
+        this.ring = new HashRing(shards.size(), virtualNodes);
+        List<Integer> indexes = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            indexes.add(i);
+        }
+        this.allShards = Collections.unmodifiableList(indexes);
+    }
+
+    public List<SolrRepository> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * @return shard owning documents with the id or route key.
+     */
+    public SolrRepository shardFor(String routeKey) {
+        return shards.get(ring.shardFor(routeKey));
+    }
+
+    /**
+     * Runs the query on the shards owning the route keys only.
+     */
+    public QueryResponse findByQuery(SolrQuery query,
+                                     Collection<String> routeKeys) {
+        return merge(query, onShards(shardsOf(routeKeys), forShards(query)), false);
+    }
+
+    /**
+     * Runs the query on the shards owning the route keys only.
+     */
+    public List<SolrDoc> findList(SolrQuery query,
+                                  Collection<String> routeKeys) {
+        return toDocs(findByQuery(query, routeKeys));
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        shardOf(document).save(document);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        shardOf(document).save(document, commitWithin);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        (route == null ? shardOf(document) : shardFor(route)).save(document, commitWithin);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        shardOf(document).save(document, softCommit);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        (route == null ? shardOf(document) : shardFor(route)).save(document, softCommit);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        List<List<SolrInputDoc>> byShard = groupDocuments(documents);
+        runOnShards(nonEmpty(byShard), shard -> shards.get(shard).save(byShard.get(shard)));
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        List<List<SolrInputDoc>> byShard = groupDocuments(documents);
+        runOnShards(nonEmpty(byShard), shard -> shards.get(shard).save(byShard.get(shard), commitWithin));
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        List<List<SolrInputDoc>> byShard = groupDocuments(documents);
+        int saved = 0;
+        List<SolrInputDoc> conflicts = new ArrayList<>();
+        for (SaveResult result : onShards(nonEmpty(byShard), shard -> shards.get(shard).saveVersioned(byShard.get(shard)))) {
+            saved += result.getSaved();
+            conflicts.addAll(result.getConflicts());
+        }
+
+        return new SaveResult(saved, conflicts);
+    }
+
+    /**
+     * Supported with a single shard only: records of a file can't be routed without parsing them,
+     * import the files per shard or with a route key.
+     */
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        return onlyShard("Files can't be routed to shards, import them per shard").importFile(file, format, chunkBytes);
+    }
+
+    /**
+     * Supported with a single shard only: records of a file can't be routed without parsing them,
+     * import the files per shard or with a route key.
+     */
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        return onlyShard("Files can't be routed to shards, import them per shard").importFile(file, format, chunkBytes, parallelism);
+    }
+
+    /**
+     * Imports the file to the shard of the route key, all records of the file must be saved with it.
+     */
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          String route) {
+        return shardFor(route).importFile(file, format, chunkBytes);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        shardFor(id).deleteById(id);
+    }
+
+    /**
+     * Deletes a document saved with the route key.
+     */
+    public void deleteById(String id,
+                           String route) {
+        shardFor(route).deleteById(id);
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        List<List<String>> byShard = groupIds(ids);
+        runOnShards(nonEmpty(byShard), shard -> shards.get(shard).deleteByIds(byShard.get(shard)));
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        List<List<String>> byShard = groupIds(ids);
+        runOnShards(nonEmpty(byShard), shard -> shards.get(shard).deleteByIds(byShard.get(shard), chunkSize, parallelism));
+    }
+
+    /**
+     * Deletes documents saved with the route key.
+     */
+    public void deleteByIds(List<String> ids,
+                            String route) {
+        shardFor(route).deleteByIds(ids);
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        runOnShards(allShards, shard -> shards.get(shard).deleteByQuery(query));
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        deleteByQuery(query.build());
+    }
+
+    @Override
+    public Optional<SolrDoc> find(SolrQuery query) {
+        List<SolrDoc> solrDocs = findList(query);
+
+        return solrDocs.isEmpty() ?
+                Optional.empty() : Optional.of(solrDocs.get(0));
+    }
+
+    @Override
+    public Optional<SolrDoc> getById(String id,
+                                     String... fields) {
+        return shardFor(id).getById(id, fields);
+    }
+
+    /**
+     * Gets a document saved with the route key.
+     */
+    public Optional<SolrDoc> getRoutedById(String id,
+                                           String route,
+                                           String... fields) {
+        return shardFor(route).getById(id, fields);
+    }
+
+    @Override
+    public List<SolrDoc> getByIds(Collection<String> ids,
+                                  String... fields) {
+        List<List<String>> byShard = groupIds(ids);
+        List<SolrDoc> docs = new ArrayList<>(ids.size());
+        onShards(nonEmpty(byShard), shard -> shards.get(shard).getByIds(byShard.get(shard), fields)).forEach(docs::addAll);
+
+        return docs;
+    }
+
+    /**
+     * Gets documents saved with the route key.
+     */
+    public List<SolrDoc> getRoutedByIds(Collection<String> ids,
+                                        String route,
+                                        String... fields) {
+        return shardFor(route).getByIds(ids, fields);
+    }
+
+    @Override
+    public List<SolrDoc> findList(SolrQuery query) {
+        return toDocs(findByQuery(query));
+    }
+
+    @Override
+    public QueryResponse findByQuery(SolrQuery query) {
+        return merge(query, onShards(allShards, forShards(query)), false);
+    }
+
+    /**
+     * Supported with a single shard only: raw responses of the shards can't be merged without parsing them.
+     */
+    @Override
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output) {
+        return onlyShard("Raw responses can't be merged across shards").findRaw(query, writerType, output);
+    }
+
+    /**
+     * Runs the query on the shard owning the route keys, the keys must all belong to one shard.
+     */
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output,
+                        Collection<String> routeKeys) {
+        return singleShard(routeKeys, "Raw responses").findRaw(query, writerType, output);
+    }
+
+    /**
+     * Runs the query on all shards with the deadline, shards failing to answer in time make the response partial.
+     */
+    @Override
+    public PartialResponse findByQuery(SolrQuery query,
+                                       Deadline deadline) {
+        SolrQuery shardQuery = toShardQuery(query);
+        List<PartialResponse> responses = onShards(allShards, shard -> {
+            try {
+                return shards.get(shard).findByQuery(shardQuery, deadline);
+            } catch (RepositoryAccessException e) {
+                logger.warn("Shard {} didn't answer before the deadline: {}", shard, e.getMessage());
+                return null;
+            }
+        });
+
+        boolean partial = false;
+        List<QueryResponse> answered = new ArrayList<>(responses.size());
+        for (PartialResponse response : responses) {
+            if (response == null) {
+                partial = true;
+                answered.add(null);
+            } else {
+                partial |= response.isPartial();
+                answered.add(response.getResponse());
+            }
+        }
+        if (answered.stream().allMatch(Objects::isNull)) {
+            throw new RepositoryAccessException("No shard answered before the deadline");
+        }
+
+        return new PartialResponse(merge(query, answered, partial), partial);
+    }
+
+    /**
+     * Supported with a single shard only: facet buckets and aggregations can't be merged exactly
+     * from the top buckets of every shard.
+     */
+    @Override
+    public FacetResult findFacets(SolrQuery query,
+                                  JsonFacet facet) {
+        return onlyShard("JSON facets can't be merged across shards").findFacets(query, facet);
+    }
+
+    /**
+     * Runs the facet request on the shard owning the route keys, the keys must all belong to one shard.
+     */
+    public FacetResult findFacets(SolrQuery query,
+                                  JsonFacet facet,
+                                  Collection<String> routeKeys) {
+        return singleShard(routeKeys, "JSON facets").findFacets(query, facet);
+    }
+
+    @Override
+    public StatsResult findStats(SolrQuery query,
+                                 String... fields) {
+        StatsResult merged = null;
+        for (StatsResult result : onShards(allShards, shard -> shards.get(shard).findStats(query, fields))) {
+            merged = merged == null ? result : merged.merge(result);
+        }
+
+        return merged;
+    }
+
+    /**
+     * The top buckets of every shard don't add up to the top buckets of all shards, so every shard
+     * returns all its buckets and the top limit ones are picked after merging them.
+     */
+    @Override
+    public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                    String facetField,
+                                                    int limit,
+                                                    String... fields) {
+        if (shards.size() == 1) {
+            return shards.get(0).findBucketStats(query, facetField, limit, fields);
+        }
+        Map<Object, StatsResult> merged = new HashMap<>();
+        for (Map<Object, StatsResult> buckets : onShards(allShards, shard -> shards.get(shard).findBucketStats(query, facetField, ALL_BUCKETS, fields))) {
+            buckets.forEach((value, stats) -> merged.merge(value, stats, StatsResult::merge));
+        }
+
+        List<Map.Entry<Object, StatsResult>> sorted = new ArrayList<>(merged.entrySet());
+        sorted.sort(BUCKET_ORDER);
+        Map<Object, StatsResult> top = new LinkedHashMap<>();
+        for (Map.Entry<Object, StatsResult> bucket : sorted) {
+            if (limit >= 0 && top.size() >= limit) {
+                break;
+            }
+            top.put(bucket.getKey(), bucket.getValue());
+        }
+
+        return top;
+    }
+
+    /**
+     * Computes the bucket statistics on the shard owning the route keys, the keys must all belong to one shard.
+     */
+    public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                    String facetField,
+                                                    int limit,
+                                                    Collection<String> routeKeys,
+                                                    String... fields) {
+        return singleShard(routeKeys, "Bucket statistics").findBucketStats(query, facetField, limit, fields);
+    }
+
+    /**
+     * Scans the shards one after another, documents are passed to the consumer on the calling thread.
+     */
+    @Override
+    public void parallelScan(SolrQuery query,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        shards.forEach(shard -> shard.parallelScan(query, partitions, consumer));
+    }
+
+    /**
+     * Scans the shards one after another, documents are passed to the consumer on the calling thread.
+     */
+    @Override
+    public void parallelScan(SolrQuery query,
+                             String idField,
+                             int partitions,
+                             Consumer<SolrDoc> consumer) {
+        shards.forEach(shard -> shard.parallelScan(query, idField, partitions, consumer));
+    }
+
+    /**
+     * Exports the shards one after another, documents are sorted within every shard only.
+     */
+    @Override
+    public long export(SolrQuery query,
+                       List<String> fields,
+                       String sort,
+                       Consumer<Tuple> consumer) {
+        long exported = 0;
+        for (SolrRepository shard : shards) {
+            exported += shard.export(query, fields, sort, consumer);
+        }
+
+        return exported;
+    }
+
+    /**
+     * Supported with a single shard only: streaming expressions need SolrCloud to reach more than one core.
+     */
+    @Override
+    public TupleStream stream(StreamExpr expression) {
+        return stream(expression.build());
+    }
+
+    /**
+     * Supported with a single shard only: streaming expressions need SolrCloud to reach more than one core.
+     */
+    @Override
+    public TupleStream stream(String expression) {
+        return onlyShard("Streaming expressions are not supported across standalone shards").stream(expression);
+    }
+
+    /**
+     * Runs the expression on the shard of the route key.
+     */
+    public TupleStream stream(StreamExpr expression,
+                              String route) {
+        return shardFor(route).stream(expression);
+    }
+
+    @Override
+    public Set<String> getExistingIds(String idField,
+                                      Set<String> ids) {
+        List<List<String>> byShard = groupIds(ids);
+        Set<String> existing = new HashSet<>();
+        onShards(nonEmpty(byShard), shard -> shards.get(shard).getExistingIds(idField, new HashSet<>(byShard.get(shard))))
+                .forEach(existing::addAll);
+
+        return existing;
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField) {
+        Set<String> existing = new HashSet<>();
+        onShards(allShards, shard -> shards.get(shard).getExistingIds(solrQuery, idField)).forEach(existing::addAll);
+
+        return existing;
+    }
+
+    @Override
+    public Set<String> getExistingIds(SolrQuery solrQuery,
+                                      String idField,
+                                      String route) {
+        return shardFor(route).getExistingIds(solrQuery, idField);
+    }
+
+    /**
+     * Looks up the shard owning the id, the id field must be the field documents are routed by.
+     */
+    @Override
+    public boolean exists(String idField,
+                          String id) {
+        return shardFor(id).exists(idField, id);
+    }
+
+    @Override
+    public boolean exists(String idField,
+                          String id,
+                          String route) {
+        return shardFor(route).exists(idField, id);
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField) {
+        return onShards(allShards, shard -> shards.get(shard).exists(solrQuery, idField)).contains(true);
+    }
+
+    @Override
+    public boolean exists(SolrQuery solrQuery,
+                          String idField,
+                          String route) {
+        return shardFor(route).exists(solrQuery, idField);
+    }
+
+    /**
+     * @return schema of the first shard, all shards are expected to share the schema.
+     */
+    @Override
+    public SchemaRegistry getSchema() {
+        return shards.get(0).getSchema();
+    }
+
+    @Override
+    public void softCommit() {
+        runOnShards(allShards, shard -> shards.get(shard).softCommit());
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+        shards.forEach(SolrRepository::shutdown);
+    }
+
+    private SolrRepository onlyShard(String unsupported) {
+        if (shards.size() > 1) {
+            throw new UnsupportedOperationException(unsupported);
+        }
+
+        return shards.get(0);
+    }
+
+    private SolrRepository singleShard(Collection<String> routeKeys,
+                                       String call) {
+        List<Integer> indexes = shardsOf(routeKeys);
+        if (indexes.size() != 1) {
+            throw new UnsupportedOperationException(call + " can't be merged across shards, route keys belong to " + indexes.size() + " shards");
+        }
+
+        return shards.get(indexes.get(0));
+    }
+
+    private SolrRepository shardOf(SolrInputDoc document) {
+        return shardFor(String.valueOf(document.getId()));
+    }
+
+    private List<Integer> shardsOf(Collection<String> routeKeys) {
+        Set<Integer> indexes = new TreeSet<>();
+        routeKeys.forEach(key -> indexes.add(ring.shardFor(key)));
+
+        return new ArrayList<>(indexes);
+    }
+
+    private List<List<SolrInputDoc>> groupDocuments(List<SolrInputDoc> documents) {
+        List<List<SolrInputDoc>> byShard = emptyGroups();
+        documents.forEach(document -> byShard.get(ring.shardFor(String.valueOf(document.getId()))).add(document));
+
+        return byShard;
+    }
+
+    private List<List<String>> groupIds(Collection<String> ids) {
+        List<List<String>> byShard = emptyGroups();
+        ids.forEach(id -> byShard.get(ring.shardFor(id)).add(id));
+
+        return byShard;
+    }
+
+    private <T> List<List<T>> emptyGroups() {
+        List<List<T>> groups = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        return groups;
+    }
+
+    private List<Integer> nonEmpty(List<? extends List<?>> groups) {
+        List<Integer> indexes = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            if (!groups.get(i).isEmpty()) {
+                indexes.add(i);
+            }
+        }
+
+        return indexes;
+    }
+
+    private IntFunction<QueryResponse> forShards(SolrQuery query) {
+        SolrQuery shardQuery = toShardQuery(query);
+        return shard -> shards.get(shard).findByQuery(shardQuery);
+    }
+
+    /**
+     * Asks every shard for the first start + rows documents and adds the sort fields to the returned fields.
+     */
+    private SolrQuery toShardQuery(SolrQuery query) {
+        SolrQuery shardQuery = SolrQueryUtils.getSolrQueryCopy(query);
+        shardQuery.setStart(0);
+        shardQuery.setRows(start(query) + rows(query));
+
+        Set<String> returned = new HashSet<>();
+        if (query.getFields() != null) {
+            for (String field : query.getFields().split(",")) {
+                returned.add(field.trim());
+            }
+        }
+        for (String field : sortFields(query.get(CommonParams.SORT))) {
+            boolean missing = SortedMerge.SCORE.equals(field) ?
+                    !returned.contains(field) : !returned.isEmpty() && !returned.contains(ALL_FIELDS) && !returned.contains(field);
+            if (missing) {
+                if (shardQuery.getFields() == null) {
+                    shardQuery.setFields(ALL_FIELDS);
+                }
+                shardQuery.addField(field);
+            }
+        }
+
+        return shardQuery;
+    }
+
+    private List<String> sortFields(String sort) {
+        List<String> fields = new ArrayList<>();
+        if (sort == null || sort.trim().isEmpty()) {
+            fields.add(SortedMerge.SCORE);
+            return fields;
+        }
+        for (String clause : sort.split(",")) {
+            String trimmed = clause.trim();
+            int space = trimmed.lastIndexOf(' ');
+            fields.add(space < 0 ? trimmed : trimmed.substring(0, space).trim());
+        }
+
+        return fields;
+    }
+
+    private QueryResponse merge(SolrQuery query,
+                                List<QueryResponse> responses,
+                                boolean partial) {
+        long numFound = 0;
+        float maxScore = Float.NaN;
+        int qTime = 0;
+        List<SolrDocumentList> results = new ArrayList<>(responses.size());
+        for (QueryResponse response : responses) {
+            SolrDocumentList documents = response == null ? null : response.getResults();
+            results.add(documents);
+            if (documents == null) {
+                continue;
+            }
+            numFound += documents.getNumFound();
+            if (documents.getMaxScore() != null && !(documents.getMaxScore() <= maxScore)) {
+                maxScore = documents.getMaxScore();
+            }
+            qTime = Math.max(qTime, response.getQTime());
+        }
+
+        Comparator<SolrDocument> comparator = SortedMerge.comparator(query.get(CommonParams.SORT));
+        SolrDocumentList merged = new SolrDocumentList();
+        merged.addAll(SortedMerge.merge(results, comparator, start(query), rows(query)));
+        merged.setNumFound(numFound);
+        merged.setStart(start(query));
+        if (!Float.isNaN(maxScore)) {
+            merged.setMaxScore(maxScore);
+        }
+
+        NamedList<Object> header = new NamedList<>();
+        header.add("status", 0);
+        header.add(QTIME, qTime);
+        if (partial) {
+            header.add(QueryParams.PARTIAL_RESULTS, true);
+        }
+        NamedList<Object> response = new NamedList<>();
+        response.add(RESPONSE_HEADER, header);
+        response.add(QueryParams.RESPONSE, merged);
+
+        QueryResponse queryResponse = new QueryResponse();
+        queryResponse.setResponse(response);
+
+        return queryResponse;
+    }
+
+    private List<SolrDoc> toDocs(QueryResponse response) {
+        List<SolrDoc> docs = new ArrayList<>(response.getResults().size());
+        response.getResults().forEach(document -> docs.add(new SolrDoc(document)));
+
+        return docs;
+    }
+
+    private int start(SolrQuery query) {
+        return query.getStart() == null ? 0 : query.getStart();
+    }
+
+    private int rows(SolrQuery query) {
+        return query.getRows() == null ? DEFAULT_ROWS : query.getRows();
+    }
+
+    private void runOnShards(List<Integer> indexes,
+                             Consumer<Integer> call) {
+        onShards(indexes, shard -> {
+            call.accept(shard);
+            return null;
+        });
+    }
+
+    /**
+     * Calls the shards in parallel and waits for all of them, the first failure is rethrown.
+     */
+    private <T> List<T> onShards(List<Integer> indexes,
+                                 IntFunction<T> call) {
+        if (indexes.size() == 1) {
+            return Collections.singletonList(call.apply(indexes.get(0)));
+        }
+
+        List<Future<T>> futures = new ArrayList<>(indexes.size());
+        indexes.forEach(shard -> futures.add(executor.submit(() -> call.apply(shard))));
+        List<T> results = new ArrayList<>(indexes.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException ?
+                    (RuntimeException) e.getCause() : new RepositoryAccessException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Interrupted while waiting for shards", e);
+        }
+
+        return results;
+    }
+}
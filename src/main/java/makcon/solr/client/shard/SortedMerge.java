@@ -0,0 +1,117 @@
+package makcon.solr.client.shard;
+
+import lombok.experimental.UtilityClass;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Top-k merge of results sorted by every shard in the same order: a heap holds the head of every
+ * shard list, so taking start + rows documents costs O((start + rows) log shards).
+ */
+@UtilityClass
+class SortedMerge {
+
+    static final String SCORE = "score";
+
+    private static final String DESC = "desc";
+
+    /**
+     * @param sort the {@code sort} parameter, by score if empty. Sort fields must be returned in documents,
+     *             missing values go last.
+     */
+    Comparator<SolrDocument> comparator(String sort) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return (first, second) -> -compareValues(first.getFieldValue(SCORE), second.getFieldValue(SCORE));
+        }
+
+        Comparator<SolrDocument> comparator = (first, second) -> 0;
+        for (String clause : sort.split(",")) {
+            String trimmed = clause.trim();
+            int space = trimmed.lastIndexOf(' ');
+            String field = space < 0 ? trimmed : trimmed.substring(0, space).trim();
+            boolean descending = space >= 0 && DESC.equalsIgnoreCase(trimmed.substring(space + 1));
+            comparator = comparator.thenComparing((first, second) -> {
+                Object firstValue = first.getFieldValue(field);
+                Object secondValue = second.getFieldValue(field);
+                if (firstValue == null || secondValue == null) {
+                    return firstValue == secondValue ? 0 : firstValue == null ? 1 : -1;
+                }
+                int result = compareValues(firstValue, secondValue);
+                return descending ? -result : result;
+            });
+        }
+
+        return comparator;
+    }
+
+    /**
+     * @param results sorted documents of every shard, each starting at offset 0.
+     * @return documents from start to start + rows of the merged order, ties keep the shard order.
+     */
+    List<SolrDocument> merge(List<SolrDocumentList> results,
+                             Comparator<SolrDocument> comparator,
+                             int start,
+                             int rows) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, results.size()), (first, second) -> {
+            int result = comparator.compare(first.head(), second.head());
+            return result != 0 ? result : Integer.compare(first.shard, second.shard);
+        });
+        for (int shard = 0; shard < results.size(); shard++) {
+            SolrDocumentList documents = results.get(shard);
+            if (documents != null && !documents.isEmpty()) {
+                heads.add(new Cursor(shard, documents));
+            }
+        }
+
+        List<SolrDocument> merged = new ArrayList<>(Math.max(0, rows));
+        for (int taken = 0; taken < start + rows && !heads.isEmpty(); taken++) {
+            Cursor cursor = heads.poll();
+            if (taken >= start) {
+                merged.add(cursor.head());
+            }
+            if (++cursor.position < cursor.documents.size()) {
+                heads.add(cursor);
+            }
+        }
+
+        return merged;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compareValues(Object first,
+                              Object second) {
+        if (first == null || second == null) {
+            return first == second ? 0 : first == null ? -1 : 1;
+        }
+        if (first instanceof Number && second instanceof Number) {
+            return Double.compare(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+        if (first instanceof Comparable && first.getClass() == second.getClass()) {
+            return ((Comparable) first).compareTo(second);
+        }
+
+        return String.valueOf(first).compareTo(String.valueOf(second));
+    }
+
+    private static final class Cursor {
+
+        private final int shard;
+        private final SolrDocumentList documents;
+        private int position;
+
+        private Cursor(int shard,
+                       SolrDocumentList documents) {
+            this.shard = shard;
+            this.documents = documents;
+        }
+
+        private SolrDocument head() {
+            return documents.get(position);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package makcon.solr.client.spool;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background thread draining the {@link UpdateSpool} to Solr. Consecutive saves of a batch
+ * are sent as one committed update, deletes are applied in between in the original order.
+ * A batch is acknowledged, and its segment eventually deleted, only after Solr accepted it;
+ * failures are retried with exponential backoff.
+ * <p>
+ * Delivery is at-least-once: a batch interrupted by a crash or a failure is replayed again,
+ * so non-idempotent atomic updates like {@code inc} may be applied twice.
+ * A batch rejected by Solr as invalid (4xx) is bisected down to the rejected records, or the rejected
+ * document of a save, which are logged and skipped; the rest of the batch is applied.
+ */
+@Slf4j
+public class SpoolReplayer {
+
+    private static final int DEFAULT_BATCH_RECORDS = 100;
+    private static final long POLL_MS = 1000;
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final UpdateSpool spool;
+    private final SolrRepository target;
+    private final int batchRecords;
+    private final Thread thread;
+
+    private volatile boolean running;
+
+    public SpoolReplayer(UpdateSpool spool,
+                         SolrRepository target) {
+        this(spool, target, DEFAULT_BATCH_RECORDS);
+    }
+
+    public SpoolReplayer(UpdateSpool spool,
+                         SolrRepository target,
+                         int batchRecords) {
+        this.spool = spool;
+        this.target = target;
+        this.batchRecords = batchRecords;
+        this.thread = new Thread(this::run, "solr-spool-replayer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops after the batch in progress, not replayed records stay in the spool.
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long backoffMs = MIN_BACKOFF_MS;
+        while (running) {
+            try {
+                UpdateSpool.Batch batch = spool.read(batchRecords, POLL_MS);
+                if (batch == null) {
+                    continue;
+                }
+                List<List<Object>> records = new ArrayList<>(batch.getRecords().size());
+                batch.getRecords().forEach(record -> records.add(new ArrayList<>(record)));
+                int done = 0;
+                while ((done += replay(records.subList(done, records.size()))) < records.size()) {
+                    Thread.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                }
+                spool.acknowledge(batch);
+                backoffMs = MIN_BACKOFF_MS;
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected failure of update spool replay", e);
+            }
+        }
+    }
+
+    /**
+     * Applies the records, bisecting them on a rejection to skip only the rejected ones.
+     * Documents of a partially applied save record are removed from it, so a retry resumes after them.
+     *
+     * @return number of leading records applied or skipped, the rest must be retried.
+     */
+    private int replay(List<List<Object>> records) {
+        try {
+            apply(records);
+            return records.size();
+        } catch (RuntimeException e) {
+            if (!isRejected(e)) {
+                logger.warn("Can't replay {} spooled updates, will retry", records.size(), e);
+                return 0;
+            }
+            if (records.size() > 1) {
+                int middle = records.size() / 2;
+                int done = replay(records.subList(0, middle));
+                return done < middle ? done : middle + replay(records.subList(middle, records.size()));
+            }
+
+            return replayRejected(records.get(0), e);
+        }
+    }
+
+    private int replayRejected(List<Object> record,
+                               RuntimeException rejection) {
+        int documents = (record.size() - 1) / 2;
+        if (!UpdateSpool.SAVE.equals(record.get(0)) || documents <= 1) {
+            logger.error("Solr rejected spooled update, skipping it: {}", describe(record), rejection);
+            return 1;
+        }
+
+        int split = 1 + 2 * (documents / 2);
+        List<Object> first = new ArrayList<>(record.subList(0, split));
+        List<Object> second = new ArrayList<>(record.size() - split + 1);
+        second.add(record.get(0));
+        second.addAll(record.subList(split, record.size()));
+        List<List<Object>> halves = new ArrayList<>(2);
+        halves.add(first);
+        halves.add(second);
+
+        int done = replay(halves);
+        if (done == halves.size()) {
+            return 1;
+        }
+        int remaining = (second.size() - 1) / 2 + (done == 0 ? (first.size() - 1) / 2 : 0);
+        record.subList(1, 1 + 2 * (documents - remaining)).clear();
+
+        return 0;
+    }
+
+    private void apply(List<List<Object>> records) {
+        List<SolrInputDoc> documents = new ArrayList<>();
+        for (List<Object> record : records) {
+            String type = (String) record.get(0);
+            if (UpdateSpool.SAVE.equals(type)) {
+                for (int i = 1; i + 1 < record.size(); i += 2) {
+                    documents.add(SolrInputDoc.of((String) record.get(i), (SolrInputDocument) record.get(i + 1)));
+                }
+                continue;
+            }
+
+            saveAll(documents);
+            if (UpdateSpool.DELETE_BY_IDS.equals(type)) {
+                List<String> ids = new ArrayList<>(record.size() - 1);
+                for (int i = 1; i < record.size(); i++) {
+                    ids.add((String) record.get(i));
+                }
+                target.deleteByIds(ids);
+            } else if (UpdateSpool.DELETE_BY_QUERY.equals(type)) {
+                target.deleteByQuery((String) record.get(1));
+            }
+        }
+        saveAll(documents);
+    }
+
+    private void saveAll(List<SolrInputDoc> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        target.save(new ArrayList<>(documents));
+        documents.clear();
+    }
+
+    private static String describe(List<Object> record) {
+        if (!UpdateSpool.SAVE.equals(record.get(0))) {
+            return record.toString();
+        }
+
+        return record.get(0) + " " + SolrInputDoc.of((String) record.get(1), (SolrInputDocument) record.get(2));
+    }
+
+    private static boolean isRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SolrException) {
+                int code = ((SolrException) cause).code();
+                return code >= 400 && code < 500 && code != 409 && code != 429;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package makcon.solr.client.spool;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, append-only segment file of the update spool.
+ * <pre>
+ * [long acknowledged offset] [int length][int crc32][payload] [int length][int crc32][payload] ...
+ * </pre>
+ * A zero length or a crc mismatch marks the end of the written records,
+ * so a record torn by a crash is dropped on recovery.
+ */
+final class SpoolSegment {
+
+    static final int HEADER_BYTES = Long.BYTES;
+    static final int RECORD_HEADER_BYTES = Integer.BYTES * 2;
+
+    private final long index;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    private int writePosition;
+    private int acknowledged;
+
+    private SpoolSegment(long index,
+                         Path file,
+                         MappedByteBuffer buffer) {
+        this.index = index;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment create(long index,
+                               Path file,
+                               int capacity) throws IOException {
+        SpoolSegment segment = new SpoolSegment(index, file, map(file, capacity));
+        segment.writePosition = HEADER_BYTES;
+        segment.acknowledge(HEADER_BYTES);
+
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment and finds the end of its last complete record.
+     */
+    static SpoolSegment recover(long index,
+                                Path file) throws IOException {
+        SpoolSegment segment = new SpoolSegment(index, file, map(file, (int) Files.size(file)));
+        int acknowledged = (int) segment.buffer.getLong(0);
+        segment.acknowledged = Math.max(acknowledged, HEADER_BYTES);
+
+        int position = segment.acknowledged;
+        byte[] payload;
+        while ((payload = segment.read(position)) != null) {
+            position += RECORD_HEADER_BYTES + payload.length;
+        }
+        segment.writePosition = position;
+
+        return segment;
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    int getAcknowledged() {
+        return acknowledged;
+    }
+
+    int pendingBytes() {
+        return writePosition - acknowledged;
+    }
+
+    boolean isFullyAcknowledged() {
+        return acknowledged == writePosition;
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return buffer.capacity() - writePosition >= RECORD_HEADER_BYTES + payloadLength;
+    }
+
+    /**
+     * Appends the record and forces it to the storage device.
+     */
+    void append(byte[] payload) {
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+
+        buffer.position(writePosition + RECORD_HEADER_BYTES);
+        buffer.put(payload);
+        buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(writePosition, payload.length);
+        buffer.force();
+
+        writePosition += RECORD_HEADER_BYTES + payload.length;
+    }
+
+    /**
+     * @return payload of the record at the position or null if there's no complete record.
+     */
+    byte[] read(int position) {
+        if (buffer.capacity() - position < RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.position(position + RECORD_HEADER_BYTES);
+        buffer.get(payload);
+
+        crc.reset();
+        crc.update(payload, 0, length);
+
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES) ? payload : null;
+    }
+
+    void acknowledge(int position) {
+        acknowledged = position;
+        buffer.putLong(0, position);
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static MappedByteBuffer map(Path file,
+                                        int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package makcon.solr.client.spool;
+
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Repository whose updates are acknowledged once they are durably written to the local
+ * {@link UpdateSpool}, a {@link SpoolReplayer} sends them to Solr in the background.
+ * Ingest keeps going while Solr is slow or down, until the spool reaches its size limit.
+ * <p>
+ * Reads go to Solr directly and see spooled updates only after they are replayed.
+ * Commit options of spooled saves are ignored, each replayed batch is committed.
+ * Routed and versioned saves and file imports are not spooled: they wait for the spooled updates
+ * to be replayed and are sent to Solr directly, so they block while Solr is down.
+ */
+public class SpoolingSolrRepository extends ForwardingSolrRepository {
+
+    private final UpdateSpool spool;
+    private final SpoolReplayer replayer;
+
+    public SpoolingSolrRepository(SolrRepository delegate,
+                                  UpdateSpool spool) {
+        this(delegate, spool, new SpoolReplayer(spool, delegate));
+    }
+
+    public SpoolingSolrRepository(SolrRepository delegate,
+                                  UpdateSpool spool,
+                                  int batchRecords) {
+        this(delegate, spool, new SpoolReplayer(spool, delegate, batchRecords));
+    }
+
+    private SpoolingSolrRepository(SolrRepository delegate,
+                                   UpdateSpool spool,
+                                   SpoolReplayer replayer) {
+        super(delegate);
+        this.spool = spool;
+        this.replayer = replayer;
+        this.replayer.start();
+    }
+
+    @Override
+    public void save(SolrInputDoc document) {
+        spool.appendSave(singletonList(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin) {
+        spool.appendSave(singletonList(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        spool.appendSave(singletonList(document));
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     Integer commitWithin,
+                     String route) {
+        spool.awaitReplayed();
+        super.save(document, commitWithin, route);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        spool.awaitReplayed();
+        super.save(document, softCommit, route);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        spool.appendSave(documents);
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents,
+                     Integer commitWithin) {
+        spool.appendSave(documents);
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        spool.awaitReplayed();
+        return super.saveVersioned(documents);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        spool.awaitReplayed();
+        return super.importFile(file, format, chunkBytes);
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        spool.awaitReplayed();
+        return super.importFile(file, format, chunkBytes, parallelism);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        spool.appendDeleteByIds(singletonList(id));
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        spool.appendDeleteByIds(ids);
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        spool.appendDeleteByIds(ids);
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        spool.appendDeleteByQuery(query);
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        spool.appendDeleteByQuery(query.build());
+    }
+
+    /**
+     * Stops the replay, the records left in the spool are replayed on the next start.
+     */
+    @Override
+    public void shutdown() {
+        replayer.shutdown();
+        spool.close();
+        super.shutdown();
+    }
+}
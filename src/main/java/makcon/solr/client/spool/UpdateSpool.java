@@ -0,0 +1,304 @@
+package makcon.solr.client.spool;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.apache.solr.common.util.JavaBinCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Local write-ahead journal of updates. Every append is javabin-encoded into a record of
+ * a memory-mapped segment file and forced to disk before the call returns, so the update
+ * survives a crash of the process or an outage of Solr.
+ * <p>
+ * Records are consumed in the order of appends by a single reader ({@link SpoolReplayer}),
+ * segments are deleted once all their records are acknowledged. Appends block while the
+ * not yet acknowledged records take more than {@code maxBytes}.
+ * <p>
+ * Segments left by a previous run are recovered on start and replayed first.
+ */
+@Slf4j
+public class UpdateSpool implements Closeable {
+
+    static final String SAVE = "save";
+    static final String DELETE_BY_IDS = "deleteByIds";
+    static final String DELETE_BY_QUERY = "deleteByQuery";
+
+    private static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+
+    private long pendingBytes;
+    private long acknowledgedBytes;
+    private boolean closed;
+
+    public UpdateSpool(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_BYTES);
+    }
+
+    public UpdateSpool(Path directory,
+                       int segmentBytes,
+                       long maxBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            recover();
+            // recovered segments are sealed, new records always go to a fresh segment
+            long index = segments.isEmpty() ? 0 : segments.peekLast().getIndex() + 1;
+            segments.addLast(SpoolSegment.create(index, segmentFile(index), segmentBytes));
+            dropAcknowledged();
+        } catch (IOException e) {
+            throw new RepositoryAccessException("Can't open update spool: " + directory, e);
+        }
+    }
+
+    public void appendSave(List<SolrInputDoc> documents) {
+        List<Object> record = new ArrayList<>(documents.size() * 2 + 1);
+        record.add(SAVE);
+        for (SolrInputDoc document : documents) {
+            record.add(document.getIdField());
+            record.add(document.getSolrInputDocument());
+        }
+        append(record);
+    }
+
+    public void appendDeleteByIds(List<String> ids) {
+        List<Object> record = new ArrayList<>(ids.size() + 1);
+        record.add(DELETE_BY_IDS);
+        record.addAll(ids);
+        append(record);
+    }
+
+    public void appendDeleteByQuery(String query) {
+        List<Object> record = new ArrayList<>(2);
+        record.add(DELETE_BY_QUERY);
+        record.add(query);
+        append(record);
+    }
+
+    /**
+     * @return size of the records which are not acknowledged yet.
+     */
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingBytes == 0;
+    }
+
+    /**
+     * Waits until the records appended before the call are replayed and acknowledged.
+     */
+    public synchronized void awaitReplayed() {
+        long target = acknowledgedBytes + pendingBytes;
+        try {
+            while (!closed && acknowledgedBytes < target) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Interrupted while waiting for update spool replay", e);
+        }
+        if (acknowledgedBytes < target) {
+            throw new RepositoryAccessException("Update spool is closed: " + directory);
+        }
+    }
+
+    /**
+     * Releases blocked appends and readers, the segments stay on disk for the next start.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Reads the oldest not acknowledged records, waiting for them up to {@code waitMs}.
+     * The same records are returned until the batch is acknowledged.
+     *
+     * @return batch of at most {@code maxRecords} records or null if there's nothing to read.
+     */
+    Batch read(int maxRecords,
+               long waitMs) throws InterruptedException {
+        SpoolSegment segment;
+        int start;
+        int position;
+        List<byte[]> payloads = new ArrayList<>();
+        synchronized (this) {
+            long deadline = System.currentTimeMillis() + waitMs;
+            while (pendingBytes == 0 && !closed) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+            if (pendingBytes == 0) {
+                return null;
+            }
+
+            segment = segments.peekFirst();
+            start = segment.getAcknowledged();
+            position = start;
+            while (payloads.size() < maxRecords && position < segment.getWritePosition()) {
+                byte[] payload = segment.read(position);
+                payloads.add(payload);
+                position += SpoolSegment.RECORD_HEADER_BYTES + payload.length;
+            }
+        }
+
+        List<List<Object>> records = new ArrayList<>(payloads.size());
+        for (byte[] payload : payloads) {
+            records.add(decode(payload));
+        }
+
+        return new Batch(segment, start, position, records);
+    }
+
+    synchronized void acknowledge(Batch batch) {
+        batch.segment.acknowledge(batch.end);
+        pendingBytes -= batch.end - batch.start;
+        acknowledgedBytes += batch.end - batch.start;
+        dropAcknowledged();
+        notifyAll();
+    }
+
+    private void append(List<Object> record) {
+        byte[] payload = encode(record);
+        synchronized (this) {
+            try {
+                while (!closed && pendingBytes > 0 && pendingBytes + payload.length > maxBytes) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RepositoryAccessException("Interrupted while waiting for update spool space", e);
+            }
+            if (closed) {
+                throw new RepositoryAccessException("Update spool is closed: " + directory);
+            }
+
+            SpoolSegment tail = segments.peekLast();
+            if (!tail.hasRoom(payload.length)) {
+                tail = roll(tail, payload.length);
+            }
+            tail.append(payload);
+            pendingBytes += SpoolSegment.RECORD_HEADER_BYTES + payload.length;
+            notifyAll();
+        }
+    }
+
+    private SpoolSegment roll(SpoolSegment tail,
+                              int payloadLength) {
+        long index = tail.getIndex() + 1;
+        int capacity = Math.max(
+                segmentBytes,
+                SpoolSegment.HEADER_BYTES + SpoolSegment.RECORD_HEADER_BYTES + payloadLength
+        );
+        try {
+            SpoolSegment segment = SpoolSegment.create(index, segmentFile(index), capacity);
+            segments.addLast(segment);
+            dropAcknowledged();
+            return segment;
+        } catch (IOException e) {
+            throw new RepositoryAccessException("Can't create update spool segment: " + segmentFile(index), e);
+        }
+    }
+
+    private void dropAcknowledged() {
+        while (segments.size() > 1 && segments.peekFirst().isFullyAcknowledged()) {
+            SpoolSegment segment = segments.pollFirst();
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                logger.warn("Can't delete replayed update spool segment: {}", segmentFile(segment.getIndex()), e);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            SpoolSegment segment = SpoolSegment.recover(index, file);
+            segments.addLast(segment);
+            pendingBytes += segment.pendingBytes();
+        }
+        if (pendingBytes > 0) {
+            logger.info("Recovered {} bytes of not replayed updates from spool: {}", pendingBytes, directory);
+        }
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] encode(List<Object> record) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JavaBinCodec codec = new JavaBinCodec()) {
+            codec.marshal(record, out);
+        } catch (IOException e) {
+            throw new RepositoryAccessException("Can't encode update spool record", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> decode(byte[] payload) {
+        try (JavaBinCodec codec = new JavaBinCodec()) {
+            return (List<Object>) codec.unmarshal(payload);
+        } catch (IOException e) {
+            throw new RepositoryAccessException("Can't decode update spool record", e);
+        }
+    }
+
+    static final class Batch {
+
+        private final SpoolSegment segment;
+        private final int start;
+        private final int end;
+        private final List<List<Object>> records;
+
+        private Batch(SpoolSegment segment,
+                      int start,
+                      int end,
+                      List<List<Object>> records) {
+            this.segment = segment;
+            this.start = start;
+            this.end = end;
+            this.records = unmodifiableList(records);
+        }
+
+        List<List<Object>> getRecords() {
+            return records;
+        }
+    }
+}
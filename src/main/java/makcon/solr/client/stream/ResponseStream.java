@@ -0,0 +1,118 @@
+package makcon.solr.client.stream;
+
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.noggit.ObjectBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Body of a streamed HTTP response. Closing the body of the HTTP client reads the rest of the response
+ * to reuse the connection, so a body not read to the end is closed by closing the response instead,
+ * which drops the connection without reading the rest.
+ */
+public final class ResponseStream extends FilterInputStream {
+
+    private static final int MAX_ERROR_BYTES = 64 * 1024;
+
+    private final Closeable response;
+
+    private boolean finished;
+
+    /**
+     * @param response the HTTP response of the body, null if the body may be closed as is.
+     */
+    public ResponseStream(InputStream body,
+                          Closeable response) {
+        super(body);
+        this.response = response;
+    }
+
+    /**
+     * The raw response parser of SolrJ returns error responses as bodies too, so the status is checked
+     * before anything is read from the body.
+     *
+     * @throws RepositoryAccessException with the error message of Solr if the status is not 200,
+     *                                   the response is closed then.
+     */
+    public static ResponseStream open(InputStream body,
+                                      Closeable response) throws IOException {
+        if (response instanceof HttpResponse) {
+            int status = ((HttpResponse) response).getStatusLine().getStatusCode();
+            if (status != HttpStatus.SC_OK) {
+                String message;
+                try {
+                    message = readError(body);
+                } finally {
+                    response.close();
+                }
+                throw new RepositoryAccessException("Solr responded with status " + status + ": " + message);
+            }
+        }
+
+        return new ResponseStream(body, response);
+    }
+
+    /**
+     * @return {@code error.msg} of a JSON error body, otherwise the beginning of the body.
+     */
+    @SuppressWarnings("unchecked")
+    static String readError(InputStream body) {
+        String text;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while (out.size() < MAX_ERROR_BYTES && (read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            text = new String(out.toByteArray(), UTF_8);
+        } catch (IOException e) {
+            return "can't read error body: " + e.getMessage();
+        }
+
+        try {
+            Object error = ((Map<String, Object>) ObjectBuilder.fromJSON(text)).get("error");
+            if (error instanceof Map && ((Map<String, Object>) error).get("msg") != null) {
+                return String.valueOf(((Map<String, Object>) error).get("msg"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // not a JSON error, e.g. the body of a proxy or another response writer
+        }
+
+        return text.trim();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        finished |= read == -1;
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b,
+                    int off,
+                    int len) throws IOException {
+        int read = super.read(b, off, len);
+        finished |= read == -1;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (finished || response == null) {
+            super.close();
+        } else {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package makcon.solr.client.stream;
+
+import makcon.solr.client.exception.FieldNotFoundException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flat document read from a streaming response (/export, /stream).
+ * <p>
+ * Readers refill the same instance for every document: numeric values are kept in primitive arrays
+ * and field names are reused between documents, so reading a stream allocates nothing but
+ * string values. Use {@link #copy()} to keep a tuple after the next one has been read.
+ */
+public final class Tuple {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte OBJECT = 4;
+
+    private String[] names;
+    private byte[] types;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+    private int size;
+
+    public Tuple() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private Tuple(int capacity) {
+        names = new String[capacity];
+        types = new byte[capacity];
+        longs = new long[capacity];
+        doubles = new double[capacity];
+        objects = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public boolean has(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    public boolean isNull(String name) {
+        int index = indexOf(name);
+        return index < 0 || types[index] == NULL;
+    }
+
+    public long getLong(String name) {
+        int index = requireIndex(name);
+        switch (types[index]) {
+            case LONG:
+                return longs[index];
+            case DOUBLE:
+                return (long) doubles[index];
+            default:
+                return ((Number) objects[index]).longValue();
+        }
+    }
+
+    public int getInt(String name) {
+        return (int) getLong(name);
+    }
+
+    public double getDouble(String name) {
+        int index = requireIndex(name);
+        switch (types[index]) {
+            case LONG:
+                return longs[index];
+            case DOUBLE:
+                return doubles[index];
+            default:
+                return ((Number) objects[index]).doubleValue();
+        }
+    }
+
+    public boolean getBool(String name) {
+        int index = requireIndex(name);
+        return types[index] == BOOLEAN ? longs[index] != 0 : Boolean.parseBoolean(String.valueOf(objects[index]));
+    }
+
+    /**
+     * @return string value, numbers are converted, null if the field is absent or null.
+     */
+    public String getString(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        Object value = get(index);
+        return value == null ? null : String.valueOf(value);
+    }
+
+    /**
+     * @return value of a multi-valued field, empty if the field is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(String name) {
+        int index = indexOf(name);
+        if (index < 0 || types[index] == NULL) {
+            return Collections.emptyList();
+        }
+        Object value = get(index);
+        return value instanceof List ? (List<T>) value : Collections.singletonList((T) value);
+    }
+
+    /**
+     * @return boxed value, null if the field is absent.
+     */
+    public Object get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : get(index);
+    }
+
+    public Object get(int index) {
+        switch (types[index]) {
+            case NULL:
+                return null;
+            case LONG:
+                return longs[index];
+            case DOUBLE:
+                return doubles[index];
+            case BOOLEAN:
+                return longs[index] != 0;
+            default:
+                return objects[index];
+        }
+    }
+
+    public Tuple copy() {
+        Tuple copy = new Tuple(Math.max(size, 1));
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(types, 0, copy.types, 0, size);
+        System.arraycopy(longs, 0, copy.longs, 0, size);
+        System.arraycopy(doubles, 0, copy.doubles, 0, size);
+        System.arraycopy(objects, 0, copy.objects, 0, size);
+        copy.size = size;
+
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Tuple{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append('=').append(get(i));
+        }
+
+        return sb.append('}').toString();
+    }
+
+    void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return name the next value will be stored under, kept from the previous document.
+     */
+    String nextName() {
+        return size < names.length ? names[size] : null;
+    }
+
+    void addNull(String name) {
+        types[add(name)] = NULL;
+    }
+
+    void addLong(String name,
+                 long value) {
+        int index = add(name);
+        types[index] = LONG;
+        longs[index] = value;
+    }
+
+    void addDouble(String name,
+                   double value) {
+        int index = add(name);
+        types[index] = DOUBLE;
+        doubles[index] = value;
+    }
+
+    void addBool(String name,
+                 boolean value) {
+        int index = add(name);
+        types[index] = BOOLEAN;
+        longs[index] = value ? 1 : 0;
+    }
+
+    void addObject(String name,
+                   Object value) {
+        int index = add(name);
+        types[index] = value == null ? NULL : OBJECT;
+        objects[index] = value;
+    }
+
+    private int add(String name) {
+        if (size == names.length) {
+            int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            longs = Arrays.copyOf(longs, capacity);
+            doubles = Arrays.copyOf(doubles, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        names[size] = name;
+
+        return size++;
+    }
+
+    private int requireIndex(String name) {
+        int index = indexOf(name);
+        if (index < 0 || types[index] == NULL) {
+            throw new FieldNotFoundException("Field: " + name + " not found for tuple: " + this);
+        }
+
+        return index;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,231 @@
+package makcon.solr.client.stream;
+
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.noggit.CharArr;
+import org.noggit.JSONParser;
+import org.noggit.ObjectBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Incremental reader of the documents array of a JSON streaming response,
+ * e.g. {@code response.docs} of /export or {@code result-set.docs} of /stream.
+ * Only the current document is held in memory.
+ */
+public final class TupleReader implements Closeable {
+
+    public static final String[] EXPORT_DOCS_PATH = {"response", "docs"};
+    public static final String[] STREAM_DOCS_PATH = {"result-set", "docs"};
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String EOF = "EOF";
+    private static final String EXCEPTION = "EXCEPTION";
+    private static final String ERROR = "error";
+    private static final String ERROR_MSG = "msg";
+
+    private final Reader reader;
+    private final JSONParser parser;
+    private final String[] docsPath;
+
+    private boolean started;
+    private boolean finished;
+
+    public TupleReader(InputStream stream,
+                       String[] docsPath) {
+        this.reader = new InputStreamReader(stream, UTF_8);
+        this.parser = new JSONParser(reader, new char[BUFFER_SIZE]);
+        this.docsPath = docsPath;
+    }
+
+    /**
+     * Reads the next document into the tuple.
+     *
+     * @return false if there are no more documents.
+     * @throws RepositoryAccessException if Solr reported an error or the response has no documents array.
+     */
+    public boolean next(Tuple tuple) throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            if (!moveToDocs()) {
+                finished = true;
+                throw new RepositoryAccessException("Documents not found in Solr stream at: " + String.join(".", docsPath));
+            }
+        }
+
+        int event = parser.nextEvent();
+        if (event == JSONParser.ARRAY_END) {
+            finished = true;
+            return false;
+        }
+        expect(event, JSONParser.OBJECT_START);
+
+        tuple.clear();
+        readObject(tuple);
+
+        if (tuple.has(EXCEPTION)) {
+            finished = true;
+            throw new RepositoryAccessException("Solr stream failed: " + tuple.getString(EXCEPTION));
+        }
+        if (tuple.has(EOF)) {
+            finished = true;
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readObject(Tuple tuple) throws IOException {
+        int event;
+        while ((event = parser.nextEvent()) != JSONParser.OBJECT_END) {
+            expect(event, JSONParser.STRING);
+            String name = readName(tuple.nextName());
+            event = parser.nextEvent();
+            switch (event) {
+                case JSONParser.LONG:
+                    tuple.addLong(name, parser.getLong());
+                    break;
+                case JSONParser.NUMBER:
+                    tuple.addDouble(name, parser.getDouble());
+                    break;
+                case JSONParser.BIGNUMBER:
+                    tuple.addObject(name, new BigDecimal(parser.getNumberChars().toString()));
+                    break;
+                case JSONParser.BOOLEAN:
+                    tuple.addBool(name, parser.getBoolean());
+                    break;
+                case JSONParser.NULL:
+                    parser.getNull();
+                    tuple.addNull(name);
+                    break;
+                case JSONParser.STRING:
+                    tuple.addObject(name, parser.getString());
+                    break;
+                default:
+                    tuple.addObject(name, ObjectBuilder.getVal(parser));
+            }
+        }
+    }
+
+    /**
+     * Documents of a stream share field names, the previous name at the same position is reused
+     * instead of allocating a new string.
+     */
+    private String readName(String previous) throws IOException {
+        CharArr chars = parser.getStringChars();
+        if (previous != null && contentEquals(chars, previous)) {
+            return previous;
+        }
+
+        return chars.toString();
+    }
+
+    private boolean contentEquals(CharArr chars,
+                                  String value) {
+        if (chars.size() != value.length()) {
+            return false;
+        }
+        char[] array = chars.getArray();
+        int start = chars.getStart();
+        for (int i = 0; i < value.length(); i++) {
+            if (array[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Skips everything up to the start of the documents array.
+     */
+    private boolean moveToDocs() throws IOException {
+        expect(parser.nextEvent(), JSONParser.OBJECT_START);
+        for (int i = 0; i < docsPath.length; i++) {
+            if (!moveToKey(docsPath[i], i == 0)) {
+                return false;
+            }
+            int expected = i == docsPath.length - 1 ? JSONParser.ARRAY_START : JSONParser.OBJECT_START;
+            if (parser.nextEvent() != expected) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param root true for the keys of the response object, where Solr puts the error of a failed request.
+     */
+    private boolean moveToKey(String key,
+                              boolean root) throws IOException {
+        int event;
+        while ((event = parser.nextEvent()) != JSONParser.OBJECT_END && event != JSONParser.EOF) {
+            expect(event, JSONParser.STRING);
+            String name = parser.getString();
+            if (key.equals(name)) {
+                return true;
+            }
+            if (root && ERROR.equals(name)) {
+                finished = true;
+                parser.nextEvent();
+                throw new RepositoryAccessException("Solr request failed: " + errorMessage(ObjectBuilder.getVal(parser)));
+            }
+            skipValue(parser.nextEvent());
+        }
+
+        return false;
+    }
+
+    private static Object errorMessage(Object error) {
+        if (error instanceof Map && ((Map<?, ?>) error).get(ERROR_MSG) != null) {
+            return ((Map<?, ?>) error).get(ERROR_MSG);
+        }
+
+        return error;
+    }
+
+    private void skipValue(int event) throws IOException {
+        if (event != JSONParser.OBJECT_START && event != JSONParser.ARRAY_START) {
+            return;
+        }
+
+        int depth = 1;
+        while (depth > 0) {
+            event = parser.nextEvent();
+            if (event == JSONParser.OBJECT_START || event == JSONParser.ARRAY_START) {
+                depth++;
+            } else if (event == JSONParser.OBJECT_END || event == JSONParser.ARRAY_END) {
+                depth--;
+            } else if (event == JSONParser.EOF) {
+                throw new IOException("Unexpected end of stream");
+            }
+        }
+    }
+
+    private void expect(int event,
+                        int expected) throws IOException {
+        if (event != expected) {
+            throw new IOException(
+                    "Unexpected JSON event: " + JSONParser.getEventString(event) +
+                    ", expected: " + JSONParser.getEventString(expected) +
+                    " at position: " + parser.getPosition()
+            );
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package makcon.solr.client.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.exception.RepositoryAccessException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterator over tuples of a streaming response. Tuples are read from the connection
+ * only when requested, the connection is released once the stream ends or is closed.
+ */
+@Slf4j
+public final class TupleStream implements Iterator<Tuple>, Closeable {
+
+    private final TupleReader reader;
+
+    private Tuple next;
+    private boolean finished;
+
+    public TupleStream(TupleReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        Tuple tuple = new Tuple();
+        try {
+            if (reader.next(tuple)) {
+                next = tuple;
+                return true;
+            }
+        } catch (IOException e) {
+            close();
+            throw new RepositoryAccessException("Can't read Solr stream", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        close();
+
+        return false;
+    }
+
+    @Override
+    public Tuple next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Tuple tuple = next;
+        next = null;
+
+        return tuple;
+    }
+
+    /**
+     * @return sequential stream of the remaining tuples, closing it closes this iterator.
+     */
+    public Stream<Tuple> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close Solr stream", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package makcon.solr.client.update;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.SolrRepository;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves documents in batches whose size and number of concurrent requests adapt to the observed latency
+ * with additive increase, multiplicative decrease: a batch answered within the target latency grows
+ * the batch size by a step and every round of such batches adds one concurrent request, a slower batch
+ * halves the batch size and drops one request, a failed batch halves both.
+ * The settings are kept between calls, so the writer converges once per collection.
+ */
+@Slf4j
+public class AdaptiveBatchWriter {
+
+    private static final int STEPS_TO_MAX = 20;
+
+    private final SolrRepository repository;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int maxConcurrency;
+    private final long targetLatencyMs;
+    private final Integer commitWithin;
+    private final int step;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "solr-adaptive-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int batchSize;
+    private int concurrency = 1;
+    private int successes;
+    private int inFlight;
+
+    /**
+     * The documents of every call are committed once all its batches are sent,
+     * so the latency the writer adapts to doesn't include the commit.
+     */
+    public AdaptiveBatchWriter(SolrRepository repository,
+                               int minBatchSize,
+                               int maxBatchSize,
+                               int maxConcurrency,
+                               long targetLatencyMs) {
+        this(repository, minBatchSize, maxBatchSize, maxConcurrency, targetLatencyMs, null);
+    }
+
+    /**
+     * Batches are not committed, they become visible after commitWithin milliseconds.
+     */
+    public AdaptiveBatchWriter(SolrRepository repository,
+                               int minBatchSize,
+                               int maxBatchSize,
+                               int maxConcurrency,
+                               long targetLatencyMs,
+                               Integer commitWithin) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize || maxConcurrency < 1) {
+            throw new IllegalArgumentException("Invalid batch limits");
+        }
+        this.repository = repository;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrency = maxConcurrency;
+        this.targetLatencyMs = targetLatencyMs;
+        this.commitWithin = commitWithin;
+        this.step = Math.max(1, (maxBatchSize - minBatchSize) / STEPS_TO_MAX);
+        this.batchSize = minBatchSize;
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Saves the documents and waits for all batches. Batches of different requests may be applied
+     * in any order, use {@link OrderedUpdateDispatcher} if updates of the same id must keep their order.
+     *
+     * @throws RepositoryAccessException the first failure once the batches in flight are done,
+     *                                   batches not sent yet are dropped.
+     */
+    public void save(List<SolrInputDoc> documents) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            int from = 0;
+            while (from < documents.size() && failure.get() == null) {
+                int size;
+                synchronized (this) {
+                    while (inFlight >= concurrency) {
+                        wait();
+                    }
+                    inFlight++;
+                    size = batchSize;
+                }
+                List<SolrInputDoc> batch = documents.subList(from, Math.min(documents.size(), from + size));
+                from += batch.size();
+                try {
+                    executor.execute(() -> send(batch, failure));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    synchronized (this) {
+                        inFlight--;
+                        notifyAll();
+                    }
+                }
+            }
+            synchronized (this) {
+                while (inFlight > 0) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryAccessException("Interrupted while saving documents", e);
+        }
+
+        if (commitWithin == null) {
+            // batches saved before a failure are committed too, as they would be by a save of every batch
+            try {
+                repository.softCommit();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    synchronized void onBatch(long latencyMs,
+                              boolean failed) {
+        if (failed) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            concurrency = Math.max(1, concurrency / 2);
+            successes = 0;
+        } else if (latencyMs > targetLatencyMs) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            concurrency = Math.max(1, concurrency - 1);
+            successes = 0;
+        } else {
+            batchSize = Math.min(maxBatchSize, batchSize + step);
+            if (++successes >= concurrency) {
+                concurrency = Math.min(maxConcurrency, concurrency + 1);
+                successes = 0;
+            }
+        }
+        logger.trace("Adapted batch size to {} and concurrency to {}", batchSize, concurrency);
+    }
+
+    private void send(List<SolrInputDoc> batch,
+                      AtomicReference<RuntimeException> failure) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            // a null commitWithin sends the batch without a commit, it's committed by save once all batches are done
+            repository.save(batch, commitWithin);
+        } catch (RuntimeException e) {
+            failed = true;
+            failure.compareAndSet(null, e);
+        } finally {
+            synchronized (this) {
+                onBatch(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+                inFlight--;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package makcon.solr.client.update;
+
+import lombok.experimental.UtilityClass;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static makcon.solr.client.constant.SolrFieldModifier.ADD;
+import static makcon.solr.client.constant.SolrFieldModifier.INC;
+import static makcon.solr.client.constant.SolrFieldModifier.SET;
+
+/**
+ * Collapses several documents with the same id within one batch into as few documents as possible,
+ * so Solr reads and rewrites every stored document once per batch instead of once per update.
+ * <p>
+ * Rules applied to atomic updates of the same field, in batch order:
+ * <ul>
+ * <li>{@code set} overrides everything sent before it;</li>
+ * <li>{@code inc} amounts are summed, {@code inc} after {@code set} is folded into the set value;</li>
+ * <li>{@code add}/{@code remove} values are concatenated, {@code add} after {@code set} extends the set value.</li>
+ * </ul>
+ * A full document drops every earlier document for the same id. Updates that can't be merged
+ * without changing the result are kept as separate documents in their original order.
+ * Once a document with an expected {@code _version_} appears, the documents of its id are kept as is,
+ * so every version check is done by Solr. The batch order is kept: a merged update takes the position
+ * of the document it's merged into, a full document keeps its own position.
+ */
+@UtilityClass
+public class AtomicUpdateMerger {
+
+    public List<SolrInputDoc> merge(List<SolrInputDoc> documents) {
+        if (documents.size() < 2) {
+            return documents;
+        }
+
+        // documents stay at their batch positions, a merged or dropped document leaves an empty slot
+        List<SolrInputDoc> slots = new ArrayList<>(documents);
+        Map<Object, Chain> chains = new HashMap<>();
+        boolean changed = false;
+        for (int i = 0; i < slots.size(); i++) {
+            SolrInputDoc doc = slots.get(i);
+            Object id = doc.getIdField() == null ? null : doc.getId();
+            if (id == null) {
+                continue;
+            }
+
+            Chain chain = chains.get(id);
+            if (chain == null) {
+                chains.put(id, new Chain(slots, i));
+            } else {
+                changed |= chain.append(i);
+            }
+        }
+
+        if (!changed) {
+            return documents;
+        }
+        slots.removeIf(Objects::isNull);
+
+        return slots;
+    }
+
+    private static final class Chain {
+
+        private final List<SolrInputDoc> slots;
+        private final List<Integer> indexes = new ArrayList<>(1);
+        private boolean lastOwned;
+        private boolean versioned;
+
+        private Chain(List<SolrInputDoc> slots,
+                      int index) {
+            this.slots = slots;
+            indexes.add(index);
+            versioned = slots.get(index).getVersion() != null;
+        }
+
+        /**
+         * @return true if the document was merged into an earlier one or replaced earlier ones.
+         */
+        private boolean append(int index) {
+            SolrInputDoc doc = slots.get(index);
+            if (versioned || doc.getVersion() != null) {
+                indexes.add(index);
+                lastOwned = false;
+                versioned = true;
+                return false;
+            }
+            if (!doc.isAtomicUpdate()) {
+                indexes.forEach(i -> slots.set(i, null));
+                indexes.clear();
+                indexes.add(index);
+                lastOwned = false;
+                return true;
+            }
+
+            int lastIndex = indexes.get(indexes.size() - 1);
+            SolrInputDoc last = slots.get(lastIndex);
+            if (!last.isAtomicUpdate()) {
+                indexes.add(index);
+                lastOwned = false;
+                return false;
+            }
+
+            Map<String, Object> mergedFields = mergeFields(last, doc);
+            if (mergedFields == null) {
+                indexes.add(index);
+                lastOwned = false;
+                return false;
+            }
+
+            if (!lastOwned) {
+                last = SolrInputDoc.of(last.getIdField(), last.getSolrInputDocument().deepCopy());
+                slots.set(lastIndex, last);
+                lastOwned = true;
+            }
+            mergedFields.forEach(last.getSolrInputDocument()::setField);
+            slots.set(index, null);
+
+            return true;
+        }
+    }
+
+    /**
+     * @return fields of the target to replace, or null if the update can't be merged into the target.
+     */
+    private Map<String, Object> mergeFields(SolrInputDoc target,
+                                            SolrInputDoc update) {
+        SolrInputDocument targetDoc = target.getSolrInputDocument();
+        SolrInputDocument updateDoc = update.getSolrInputDocument();
+        if (targetDoc.hasChildDocuments() || updateDoc.hasChildDocuments()) {
+            return null;
+        }
+
+        Map<String, Object> mergedFields = new HashMap<>();
+        for (String field : updateDoc.getFieldNames()) {
+            if (field.equals(update.getIdField())) {
+                continue;
+            }
+
+            // getFieldValue would return only the first of several values
+            Object value = updateDoc.getField(field).getValue();
+            if (!targetDoc.containsKey(field)) {
+                mergedFields.put(field, value);
+                continue;
+            }
+
+            Map<String, Object> operations = toOperations(targetDoc.getField(field).getValue());
+            for (Map.Entry<String, Object> operation : toOperations(value).entrySet()) {
+                if (!apply(operations, operation.getKey(), operation.getValue())) {
+                    return null;
+                }
+            }
+            mergedFields.put(field, operations);
+        }
+
+        return mergedFields;
+    }
+
+    /**
+     * A plain value in an atomic update document is treated by Solr as {@code set}.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toOperations(Object value) {
+        Map<String, Object> operations = new LinkedHashMap<>(2);
+        if (SolrInputDoc.isAtomicValue(value)) {
+            operations.putAll((Map<String, Object>) value);
+        } else {
+            operations.put(SET.value, value);
+        }
+
+        return operations;
+    }
+
+    private boolean apply(Map<String, Object> operations,
+                          String modifier,
+                          Object value) {
+        if (SET.value.equals(modifier)) {
+            operations.clear();
+            operations.put(modifier, value);
+            return true;
+        }
+
+        String lastModifier = getLastKey(operations);
+        if (INC.value.equals(modifier)) {
+            if (operations.size() != 1 || !(INC.value.equals(lastModifier) || SET.value.equals(lastModifier))) {
+                return false;
+            }
+            Object current = operations.get(lastModifier);
+            if (current == null && SET.value.equals(lastModifier)) {
+                // inc of a removed field starts from zero
+                operations.put(SET.value, value);
+                return true;
+            }
+            Number sum = sum(current, value);
+            if (sum == null) {
+                return false;
+            }
+            operations.put(lastModifier, sum);
+            return true;
+        }
+
+        if (SET.value.equals(lastModifier)) {
+            if (!ADD.value.equals(modifier)) {
+                return false;
+            }
+            operations.put(SET.value, concat(operations.get(SET.value), value));
+            return true;
+        }
+        if (modifier.equals(lastModifier)) {
+            operations.put(modifier, concat(operations.get(modifier), value));
+            return true;
+        }
+        if (operations.containsKey(modifier) || operations.containsKey(INC.value)) {
+            return false;
+        }
+        // Solr applies modifiers of one field in the order they were sent
+        operations.put(modifier, value);
+
+        return true;
+    }
+
+    private String getLastKey(Map<String, Object> operations) {
+        String last = null;
+        Iterator<String> iterator = operations.keySet().iterator();
+        while (iterator.hasNext()) {
+            last = iterator.next();
+        }
+
+        return last;
+    }
+
+    private List<Object> concat(Object first,
+                                Object second) {
+        List<Object> values = new ArrayList<>();
+        addValues(values, first);
+        addValues(values, second);
+
+        return values;
+    }
+
+    private void addValues(List<Object> values,
+                           Object value) {
+        if (value instanceof Collection) {
+            values.addAll((Collection<?>) value);
+        } else if (value != null) {
+            values.add(value);
+        }
+    }
+
+    private Number sum(Object first,
+                       Object second) {
+        if (!(first instanceof Number) || !(second instanceof Number)) {
+            return null;
+        }
+        if (isFloating(first) || isFloating(second)) {
+            return ((Number) first).doubleValue() + ((Number) second).doubleValue();
+        }
+
+        long sum = ((Number) first).longValue() + ((Number) second).longValue();
+        if (first instanceof Integer && second instanceof Integer && sum == (int) sum) {
+            return (int) sum;
+        }
+
+        return sum;
+    }
+
+    private boolean isFloating(Object number) {
+        return number instanceof Double || number instanceof Float || number instanceof BigDecimal;
+    }
+}
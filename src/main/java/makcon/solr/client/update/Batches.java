@@ -0,0 +1,44 @@
+package makcon.solr.client.update;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+@UtilityClass
+public class Batches {
+
+    /**
+     * Splits items into consecutive chunks limited both by item count and by estimated size in bytes.
+     * An item larger than maxBytes gets a chunk of its own.
+     */
+    public <T> List<List<T>> partition(List<T> items,
+                                       int maxCount,
+                                       long maxBytes,
+                                       ToLongFunction<T> sizeOf) {
+        if (maxCount < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Chunk limits must be positive");
+        }
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<List<T>> chunks = new ArrayList<>(items.size() / maxCount + 1);
+        int from = 0;
+        long bytes = 0;
+        for (int i = 0; i < items.size(); i++) {
+            long itemBytes = sizeOf.applyAsLong(items.get(i));
+            if (i > from && (i - from == maxCount || bytes + itemBytes > maxBytes)) {
+                chunks.add(items.subList(from, i));
+                from = i;
+                bytes = 0;
+            }
+            bytes += itemBytes;
+        }
+        chunks.add(items.subList(from, items.size()));
+
+        return chunks;
+    }
+}
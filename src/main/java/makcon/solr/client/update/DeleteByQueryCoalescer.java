@@ -0,0 +1,176 @@
+package makcon.solr.client.update;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.repository.SolrRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects deleteByQuery calls arriving within a short window and sends them to Solr
+ * as one OR'd query, so the commit that follows a delete is paid once per window.
+ * Queries that can't be nested in parentheses, i.e. starting with a negation or local params,
+ * are sent alone in the flush of their window.
+ */
+@Slf4j
+public class DeleteByQueryCoalescer {
+
+    private static final int DEFAULT_MAX_QUERIES = 256;
+    private static final String OR = " OR ";
+    private static final String NOT = "NOT ";
+    private static final String LOCAL_PARAMS = "{!";
+
+    private final SolrRepository repository;
+    private final long windowMs;
+    private final int maxQueries;
+    private final ScheduledExecutorService scheduler;
+
+    private List<PendingDelete> pending = new ArrayList<>();
+    // incremented on every flush, so the timer of a window flushed early doesn't cut the next one short
+    private long window;
+    private boolean closed;
+
+    public DeleteByQueryCoalescer(SolrRepository repository,
+                                  long windowMs) {
+        this(repository, windowMs, DEFAULT_MAX_QUERIES);
+    }
+
+    public DeleteByQueryCoalescer(SolrRepository repository,
+                                  long windowMs,
+                                  int maxQueries) {
+        this.repository = repository;
+        this.windowMs = windowMs;
+        this.maxQueries = maxQueries;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "solr-delete-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Void> deleteByQuery(FQ query) {
+        return deleteByQuery(query.build());
+    }
+
+    /**
+     * @return future completed once the query has been deleted and committed.
+     */
+    public CompletableFuture<Void> deleteByQuery(String query) {
+        PendingDelete delete = new PendingDelete(query);
+        long flushWindow = -1;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Coalescer is shut down");
+            }
+            pending.add(delete);
+            long current = window;
+            if (pending.size() == 1) {
+                scheduler.schedule(() -> flush(current), windowMs, TimeUnit.MILLISECONDS);
+            }
+            if (pending.size() >= maxQueries) {
+                flushWindow = current;
+            }
+        }
+        if (flushWindow >= 0) {
+            long full = flushWindow;
+            scheduler.execute(() -> flush(full));
+        }
+
+        return delete.future;
+    }
+
+    /**
+     * Stops accepting queries, the pending ones are still sent.
+     */
+    public void shutdown() {
+        long current;
+        synchronized (this) {
+            closed = true;
+            current = window;
+        }
+        scheduler.execute(() -> flush(current));
+        scheduler.shutdown();
+    }
+
+    /**
+     * @param expectedWindow window the flush was scheduled for, a window already flushed by size is skipped.
+     */
+    private void flush(long expectedWindow) {
+        List<PendingDelete> deletes;
+        synchronized (this) {
+            if (window != expectedWindow || pending.isEmpty()) {
+                return;
+            }
+            deletes = pending;
+            pending = new ArrayList<>();
+            window++;
+        }
+
+        List<PendingDelete> joinable = new ArrayList<>();
+        for (PendingDelete delete : deletes) {
+            if (isJoinable(delete.query)) {
+                joinable.add(delete);
+            } else {
+                send(delete.query, Collections.singletonList(delete));
+            }
+        }
+        if (!joinable.isEmpty()) {
+            send(join(joinable), joinable);
+        }
+    }
+
+    private void send(String query,
+                      List<PendingDelete> deletes) {
+        try {
+            repository.deleteByQuery(query);
+            deletes.forEach(d -> d.future.complete(null));
+        } catch (Exception e) {
+            logger.error("Can't delete {} coalesced queries", deletes.size(), e);
+            deletes.forEach(d -> d.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * A pure negative query matches nothing inside parentheses,
+     * and local params must start the query string.
+     */
+    private static boolean isJoinable(String query) {
+        String trimmed = query.trim();
+        return !trimmed.startsWith("-")
+                && !trimmed.startsWith("!")
+                && !trimmed.startsWith(NOT)
+                && !trimmed.startsWith(LOCAL_PARAMS);
+    }
+
+    private String join(List<PendingDelete> deletes) {
+        if (deletes.size() == 1) {
+            return deletes.get(0).query;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (PendingDelete delete : deletes) {
+            if (sb.length() > 0) {
+                sb.append(OR);
+            }
+            sb.append('(').append(delete.query).append(')');
+        }
+
+        return sb.toString();
+    }
+
+    private static final class PendingDelete {
+
+        private final String query;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingDelete(String query) {
+            this.query = query;
+        }
+    }
+}
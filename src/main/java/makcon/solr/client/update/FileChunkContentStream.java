@@ -0,0 +1,86 @@
+package makcon.solr.client.update;
+
+import org.apache.solr.common.util.ContentStreamBase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content stream of a byte range of a file, read straight from a {@link FileChannel}
+ * while the request body is written.
+ */
+public class FileChunkContentStream extends ContentStreamBase {
+
+    private final Path file;
+    private final long start;
+    private final long end;
+
+    public FileChunkContentStream(Path file,
+                                  long start,
+                                  long end,
+                                  String contentType) {
+        this.file = file;
+        this.start = start;
+        this.end = end;
+        this.name = file.getFileName().toString();
+        this.sourceInfo = file + "[" + start + ", " + end + ")";
+        this.contentType = contentType;
+        this.size = end - start;
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        return new ChunkInputStream(FileChannel.open(file, StandardOpenOption.READ), start, end);
+    }
+
+    private static final class ChunkInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private ChunkInputStream(FileChannel channel,
+                                 long start,
+                                 long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b,
+                        int off,
+                        int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package makcon.solr.client.update;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a file of line-separated records into byte ranges ending at line ends,
+ * reading only the bytes around every boundary.
+ */
+@UtilityClass
+public class FileChunks {
+
+    private static final int SCAN_BUFFER_BYTES = 8192;
+
+    /**
+     * @return chunk boundaries: chunk i is [bounds[i], bounds[i + 1]), each about chunkBytes long.
+     * A line longer than chunkBytes is kept whole in one chunk.
+     */
+    public long[] split(FileChannel channel,
+                        long from,
+                        long chunkBytes) throws IOException {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long start = from;
+        while (start < size) {
+            long end = start + chunkBytes >= size ? size : lineEnd(channel, start + chunkBytes - 1);
+            bounds.add(end);
+            start = end;
+        }
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return position right after the first line feed at or after the position, or the file size.
+     */
+    public long lineEnd(FileChannel channel,
+                        long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        long offset = position;
+        int read;
+        while ((read = channel.read(buffer, offset)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+            buffer.clear();
+        }
+
+        return channel.size();
+    }
+}
@@ -0,0 +1,91 @@
+package makcon.solr.client.update;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Read-modify-write of documents guarded by {@code _version_}: documents are read with one real-time get,
+ * changed by the mutation and saved with the version they were read with.
+ * Conflicting documents are read again and retried, other writers are never overwritten.
+ */
+@Slf4j
+@UtilityClass
+public class OptimisticUpdates {
+
+    /**
+     * @param mutation receives the id and the stored document, or null if it doesn't exist,
+     *                 and returns the document to save or null to leave the id as is.
+     * @return result of all attempts, conflicts are the documents still conflicting after the last attempt.
+     */
+    public SaveResult update(SolrRepository repository,
+                             String idField,
+                             Collection<String> ids,
+                             BiFunction<String, SolrDoc, SolrInputDoc> mutation,
+                             int maxAttempts) {
+        int saved = 0;
+        List<SolrInputDoc> conflicts = new ArrayList<>();
+        Collection<String> pending = ids;
+        for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+            Map<String, SolrDoc> stored = read(repository, idField, pending);
+
+            List<SolrInputDoc> documents = new ArrayList<>(pending.size());
+            for (String id : pending) {
+                SolrDoc current = stored.get(id);
+                SolrInputDoc document = mutation.apply(id, current);
+                if (document == null) {
+                    continue;
+                }
+                Object version = current == null ? null : current.getSolrDocument().getFieldValue(QueryParams.VERSION_FIELD);
+                // the caller may reuse its document, the version goes to a copy
+                SolrInputDocument versioned = document.getSolrInputDocument().deepCopy();
+                versioned.setField(
+                        QueryParams.VERSION_FIELD,
+                        version == null ? -1L : ((Number) version).longValue()
+                );
+                documents.add(SolrInputDoc.of(document.getIdField(), versioned));
+            }
+            if (documents.isEmpty()) {
+                conflicts = new ArrayList<>();
+                break;
+            }
+
+            SaveResult result = repository.saveVersioned(documents);
+            saved += result.getSaved();
+            conflicts = result.getConflicts();
+
+            List<String> retry = new ArrayList<>(conflicts.size());
+            conflicts.forEach(doc -> retry.add(String.valueOf(doc.getId())));
+            pending = retry;
+            if (!retry.isEmpty()) {
+                logger.debug("Retrying {} documents with version conflicts: {}", retry.size(), retry);
+            }
+        }
+
+        return new SaveResult(saved, conflicts);
+    }
+
+    private Map<String, SolrDoc> read(SolrRepository repository,
+                                      String idField,
+                                      Collection<String> ids) {
+        // real-time get sees the latest versions, including not yet committed updates
+        Map<String, SolrDoc> stored = new HashMap<>(ids.size() * 4 / 3 + 1);
+        for (SolrDoc doc : repository.getByIds(ids, "*", QueryParams.VERSION_FIELD)) {
+            stored.put(String.valueOf(doc.getSolrDocument().getFieldValue(idField)), doc);
+        }
+
+        return stored;
+    }
+}
@@ -0,0 +1,281 @@
+package makcon.solr.client.update;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.SolrRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends documents in parallel lanes while keeping the order of updates of every document:
+ * documents are assigned to a lane by hash of the id and every lane saves its batches one after another
+ * on its own thread. Atomic updates of the same id, e.g. a set followed by an inc, are applied in the
+ * order they were submitted, documents with different ids are saved in parallel.
+ * <p>
+ * A failed batch fails the futures of its documents, together with the updates of the same ids
+ * queued behind it, as applying them without the failed ones would break the order; the lane goes on
+ * with the next batch. Updates submitted after the failure are sent as usual.
+ */
+@Slf4j
+public class OrderedUpdateDispatcher {
+
+    private static final long POLL_MS = 100;
+
+    private final SolrRepository repository;
+    private final int batchSize;
+    private final Integer commitWithin;
+    private final Lane[] lanes;
+    private final ExecutorService executor;
+
+    /**
+     * Every batch is committed.
+     *
+     * @param laneCapacity documents queued per lane before submit blocks.
+     */
+    public OrderedUpdateDispatcher(SolrRepository repository,
+                                   int lanes,
+                                   int batchSize,
+                                   int laneCapacity) {
+        this(repository, lanes, batchSize, laneCapacity, null);
+    }
+
+    /**
+     * Batches are not committed, they become visible after commitWithin milliseconds.
+     */
+    public OrderedUpdateDispatcher(SolrRepository repository,
+                                   int lanes,
+                                   int batchSize,
+                                   int laneCapacity,
+                                   Integer commitWithin) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.commitWithin = commitWithin;
+        this.lanes = new Lane[lanes];
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(lanes, r -> {
+            Thread thread = new Thread(r, "solr-update-lane-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < lanes; i++) {
+            Lane lane = new Lane(laneCapacity);
+            this.lanes[i] = lane;
+            executor.execute(() -> run(lane));
+        }
+    }
+
+    /**
+     * Queues the document in the lane of its id, blocks while the lane is full.
+     *
+     * @return future completed once the batch with the document is saved.
+     */
+    public CompletableFuture<Void> submit(SolrInputDoc document) {
+        Lane lane = lanes[laneOf(document)];
+        PendingUpdate update = new PendingUpdate(document);
+        try {
+            // waits for room without the lane monitor, so flush and the other submitters aren't blocked
+            lane.space.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            update.future.completeExceptionally(e);
+            return update.future;
+        }
+        synchronized (lane) {
+            if (!lane.open) {
+                lane.space.release();
+                throw new IllegalStateException("Dispatcher is shut down");
+            }
+            lane.queue.add(update);
+            lane.last = update.future;
+        }
+
+        return update.future;
+    }
+
+    /**
+     * @return future completed once all documents submitted so far are sent.
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> last = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                if (lane.last != null) {
+                    last.add(lane.last.handle((result, e) -> null));
+                }
+            }
+        }
+
+        return CompletableFuture.allOf(last.toArray(new CompletableFuture[0]));
+    }
+
+    public int getLanes() {
+        return lanes.length;
+    }
+
+    /**
+     * @return documents of the lane queued or being sent.
+     */
+    public int getPending(int lane) {
+        List<PendingUpdate> inFlight = lanes[lane].inFlight;
+        return lanes[lane].queue.size() + (inFlight == null ? 0 : inFlight.size());
+    }
+
+    /**
+     * @return milliseconds the oldest document of the lane has been waiting, 0 if the lane is idle.
+     */
+    public long getLagMillis(int lane) {
+        List<PendingUpdate> inFlight = lanes[lane].inFlight;
+        PendingUpdate oldest = inFlight != null ? inFlight.get(0) : lanes[lane].queue.peek();
+
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queuedNanos);
+    }
+
+    /**
+     * Stops accepting documents, queued documents are still sent.
+     */
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                lane.open = false;
+            }
+        }
+        executor.shutdown();
+    }
+
+    private int laneOf(SolrInputDoc document) {
+        return Math.floorMod(String.valueOf(document.getId()).hashCode(), lanes.length);
+    }
+
+    private void run(Lane lane) {
+        while (true) {
+            synchronized (lane) {
+                // nothing is queued once the lane is closed, so an empty closed lane is done for good
+                if (!lane.open && lane.queue.isEmpty()) {
+                    return;
+                }
+            }
+            PendingUpdate first;
+            try {
+                first = lane.queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandon(lane, e);
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            List<PendingUpdate> batch = new ArrayList<>(batchSize);
+            batch.add(first);
+            lane.queue.drainTo(batch, batchSize - 1);
+            lane.space.release(batch.size());
+            lane.inFlight = batch;
+            send(lane, batch);
+        }
+    }
+
+    /**
+     * Closes the lane and fails the documents still queued in it.
+     */
+    private void abandon(Lane lane,
+                         Exception cause) {
+        List<PendingUpdate> queued = new ArrayList<>();
+        synchronized (lane) {
+            lane.open = false;
+            lane.queue.drainTo(queued);
+        }
+        lane.space.release(queued.size());
+        if (!queued.isEmpty()) {
+            logger.error("Lane stopped with {} documents not sent", queued.size());
+        }
+        queued.forEach(update -> update.future.completeExceptionally(cause));
+    }
+
+    private void send(Lane lane,
+                      List<PendingUpdate> batch) {
+        List<SolrInputDoc> documents = new ArrayList<>(batch.size());
+        batch.forEach(update -> documents.add(update.document));
+        try {
+            if (commitWithin == null) {
+                repository.save(documents);
+            } else {
+                repository.save(documents, commitWithin);
+            }
+            lane.inFlight = null;
+            batch.forEach(update -> update.future.complete(null));
+        } catch (RuntimeException e) {
+            lane.inFlight = null;
+            logger.error("Failed to save batch of {} documents", batch.size(), e);
+            batch.forEach(update -> update.future.completeExceptionally(e));
+            failQueued(lane, batch, e);
+        }
+    }
+
+    /**
+     * Fails the queued updates of the ids of a failed batch, the other queued updates keep their order.
+     */
+    private void failQueued(Lane lane,
+                            List<PendingUpdate> failed,
+                            RuntimeException cause) {
+        Set<Object> ids = new HashSet<>();
+        failed.forEach(update -> ids.add(update.document.getId()));
+        List<PendingUpdate> dependent = new ArrayList<>();
+        synchronized (lane) {
+            // the lane thread is the only consumer and submitters add under the monitor
+            List<PendingUpdate> queued = new ArrayList<>(lane.queue.size());
+            lane.queue.drainTo(queued);
+            for (PendingUpdate update : queued) {
+                if (ids.contains(update.document.getId())) {
+                    dependent.add(update);
+                } else {
+                    lane.queue.add(update);
+                }
+            }
+        }
+        if (dependent.isEmpty()) {
+            return;
+        }
+        lane.space.release(dependent.size());
+        logger.error("Failing {} queued updates of the documents of the failed batch", dependent.size());
+        RepositoryAccessException failure = new RepositoryAccessException("Earlier update of the document failed", cause);
+        dependent.forEach(update -> update.future.completeExceptionally(failure));
+    }
+
+    private static final class Lane {
+
+        private final BlockingQueue<PendingUpdate> queue = new LinkedBlockingQueue<>();
+        private final Semaphore space;
+
+        private volatile List<PendingUpdate> inFlight;
+        private CompletableFuture<Void> last;
+        private boolean open = true;
+
+        private Lane(int capacity) {
+            this.space = new Semaphore(capacity);
+        }
+    }
+
+    private static final class PendingUpdate {
+
+        private final SolrInputDoc document;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingUpdate(SolrInputDoc document) {
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package makcon.solr.client.update;
+
+import lombok.experimental.UtilityClass;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import org.apache.solr.common.SolrException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes version conflicts reported by Solr for documents with an expected {@code _version_}.
+ */
+@UtilityClass
+public class VersionConflicts {
+
+    private static final Pattern CONFLICT = Pattern.compile(
+            "version conflict for (.+?) expected=|Document not found for update\\.\\s+id=(\\S+)"
+    );
+
+    /**
+     * @return id of the conflicting document or null if the failure is not a version conflict.
+     */
+    public String conflictId(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (!(cause instanceof SolrException)) {
+                continue;
+            }
+            if (((SolrException) cause).code() != SolrException.ErrorCode.CONFLICT.code || cause.getMessage() == null) {
+                return null;
+            }
+            Matcher matcher = CONFLICT.matcher(cause.getMessage());
+            if (!matcher.find()) {
+                return null;
+            }
+
+            return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return index of the first versioned document with the id or -1 if there's none.
+     */
+    public int indexOf(List<SolrInputDoc> documents,
+                       String id) {
+        for (int i = 0; i < documents.size(); i++) {
+            SolrInputDoc document = documents.get(i);
+            if (document.getVersion() != null && id.equals(String.valueOf(document.getId()))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Solr reports a conflict by id only, so a request must not carry the same id twice
+     * for the conflict to point at exactly one sent document.
+     *
+     * @return number of leading documents without a repeated id.
+     */
+    public int distinctIdPrefix(List<SolrInputDoc> documents) {
+        Set<String> ids = new HashSet<>(documents.size() * 4 / 3 + 1);
+        for (int i = 0; i < documents.size(); i++) {
+            if (!ids.add(String.valueOf(documents.get(i).getId()))) {
+                return i;
+            }
+        }
+
+        return documents.size();
+    }
+}
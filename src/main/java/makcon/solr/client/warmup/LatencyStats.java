@@ -0,0 +1,98 @@
+package makcon.solr.client.warmup;
+
+import java.util.Arrays;
+
+/**
+ * Latency percentiles of the replayed queries of one shape, in microseconds.
+ */
+public final class LatencyStats {
+
+    private final int count;
+    private final int errors;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    private LatencyStats(int count,
+                         int errors,
+                         long p50,
+                         long p90,
+                         long p99,
+                         long max) {
+        this.count = count;
+        this.errors = errors;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * @param latencies latencies of the successful queries, sorted in place.
+     */
+    static LatencyStats of(long[] latencies,
+                           int count,
+                           int errors) {
+        if (count == 0) {
+            return new LatencyStats(0, errors, 0, 0, 0, 0);
+        }
+        Arrays.sort(latencies, 0, count);
+
+        return new LatencyStats(
+                count,
+                errors,
+                percentile(latencies, count, 50),
+                percentile(latencies, count, 90),
+                percentile(latencies, count, 99),
+                latencies[count - 1]
+        );
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public long getP50Micros() {
+        return p50;
+    }
+
+    public long getP90Micros() {
+        return p90;
+    }
+
+    public long getP99Micros() {
+        return p99;
+    }
+
+    public long getMaxMicros() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStats{" +
+                "count=" + count +
+                ", errors=" + errors +
+                ", p50=" + p50 + "us" +
+                ", p90=" + p90 + "us" +
+                ", p99=" + p99 + "us" +
+                ", max=" + max + "us" +
+                '}';
+    }
+
+    /**
+     * Nearest-rank percentile.
+     */
+    private static long percentile(long[] sorted,
+                                   int count,
+                                   int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * count);
+
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,295 @@
+package makcon.solr.client.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.builder.FQ;
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Repository keeping a sample of the executed queries in a ring buffer of the latest ones.
+ * The sample can be written to a file and replayed by {@link QueryReplayer} on the next start;
+ * if warm-up is enabled, the latest queries are also replayed in the background after every
+ * {@link #softCommit()} and every write the repository commits itself, e.g. {@link #save(List)} or a delete,
+ * to fill the caches of the new searcher.
+ */
+@Slf4j
+public class QueryRecorder extends ForwardingSolrRepository {
+
+    private final String[] ring;
+    private final int sampleEvery;
+    private final AtomicLong seen = new AtomicLong();
+    private final QueryReplayer warmUpReplayer;
+    private final int warmUpQueries;
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final ExecutorService warmUpExecutor;
+
+    private long recorded;
+
+    /**
+     * @param capacity    number of the latest sampled queries kept.
+     * @param sampleEvery records every n-th query.
+     */
+    public QueryRecorder(SolrRepository delegate,
+                         int capacity,
+                         int sampleEvery) {
+        this(delegate, capacity, sampleEvery, 0, 1);
+    }
+
+    /**
+     * @param warmUpQueries     number of the latest queries replayed after a commit, 0 to disable.
+     * @param warmUpConcurrency number of queries replayed at once.
+     */
+    public QueryRecorder(SolrRepository delegate,
+                         int capacity,
+                         int sampleEvery,
+                         int warmUpQueries,
+                         int warmUpConcurrency) {
+        super(delegate);
+        this.ring = new String[capacity];
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.warmUpQueries = warmUpQueries;
+        this.warmUpReplayer = new QueryReplayer(delegate, warmUpConcurrency, 0);
+        this.warmUpExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "solr-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static List<SolrQuery> read(Path file) throws IOException {
+        List<SolrQuery> queries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, UTF_8)) {
+            if (!line.isEmpty()) {
+                queries.add(QueryShapes.fromLine(line));
+            }
+        }
+
+        return queries;
+    }
+
+    /**
+     * Adds the queries of the file to the sample, e.g. to keep the history across restarts.
+     */
+    public void load(Path file) throws IOException {
+        for (SolrQuery query : read(file)) {
+            add(QueryShapes.toLine(query));
+        }
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>();
+        getRecorded().forEach(query -> lines.add(QueryShapes.toLine(query)));
+        Files.write(tmp, lines, UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return sampled queries from the oldest to the latest.
+     */
+    public List<SolrQuery> getRecorded() {
+        List<String> lines = new ArrayList<>(ring.length);
+        synchronized (this) {
+            long from = Math.max(0, recorded - ring.length);
+            for (long i = from; i < recorded; i++) {
+                lines.add(ring[(int) (i % ring.length)]);
+            }
+        }
+
+        List<SolrQuery> queries = new ArrayList<>(lines.size());
+        lines.forEach(line -> queries.add(QueryShapes.fromLine(line)));
+
+        return queries;
+    }
+
+    /**
+     * Replays the latest recorded queries against the underlying repository.
+     */
+    public ReplayReport warmUp(int queries) {
+        List<SolrQuery> recordedQueries = getRecorded();
+
+        return warmUpReplayer.replay(recordedQueries.subList(Math.max(0, recordedQueries.size() - queries), recordedQueries.size()));
+    }
+
+    @Override
+    public Optional<SolrDoc> find(SolrQuery query) {
+        record(query);
+        return super.find(query);
+    }
+
+    @Override
+    public List<SolrDoc> findList(SolrQuery query) {
+        record(query);
+        return super.findList(query);
+    }
+
+    @Override
+    public QueryResponse findByQuery(SolrQuery query) {
+        record(query);
+        return super.findByQuery(query);
+    }
+
+    @Override
+    public long findRaw(SolrQuery query,
+                        String writerType,
+                        OutputStream output) {
+        record(query);
+        return super.findRaw(query, writerType, output);
+    }
+
+    @Override
+    public PartialResponse findByQuery(SolrQuery query,
+                                       Deadline deadline) {
+        record(query);
+        return super.findByQuery(query, deadline);
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit) {
+        super.save(document, softCommit);
+        if (softCommit) {
+            committed();
+        }
+    }
+
+    @Override
+    public void save(SolrInputDoc document,
+                     boolean softCommit,
+                     String route) {
+        super.save(document, softCommit, route);
+        if (softCommit) {
+            committed();
+        }
+    }
+
+    @Override
+    public void save(List<SolrInputDoc> documents) {
+        super.save(documents);
+        committed();
+    }
+
+    @Override
+    public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+        SaveResult result = super.saveVersioned(documents);
+        committed();
+
+        return result;
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes) {
+        int chunks = super.importFile(file, format, chunkBytes);
+        committed();
+
+        return chunks;
+    }
+
+    @Override
+    public int importFile(Path file,
+                          ImportFormat format,
+                          long chunkBytes,
+                          int parallelism) {
+        int chunks = super.importFile(file, format, chunkBytes, parallelism);
+        committed();
+
+        return chunks;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        super.deleteById(id);
+        committed();
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids) {
+        super.deleteByIds(ids);
+        committed();
+    }
+
+    @Override
+    public void deleteByIds(List<String> ids,
+                            int chunkSize,
+                            int parallelism) {
+        super.deleteByIds(ids, chunkSize, parallelism);
+        committed();
+    }
+
+    @Override
+    public void deleteByQuery(String query) {
+        super.deleteByQuery(query);
+        committed();
+    }
+
+    @Override
+    public void deleteByQuery(FQ query) {
+        super.deleteByQuery(query);
+        committed();
+    }
+
+    @Override
+    public void softCommit() {
+        super.softCommit();
+        committed();
+    }
+
+    @Override
+    public void shutdown() {
+        warmUpExecutor.shutdownNow();
+        super.shutdown();
+    }
+
+    /**
+     * Starts a warm-up unless one is already running, the queries it replays warm the latest searcher anyway.
+     */
+    private void committed() {
+        if (warmUpQueries > 0 && warming.compareAndSet(false, true)) {
+            warmUpExecutor.execute(() -> {
+                try {
+                    warmUp(warmUpQueries);
+                } catch (RuntimeException e) {
+                    logger.warn("Warm-up after commit failed", e);
+                } finally {
+                    warming.set(false);
+                }
+            });
+        }
+    }
+
+    private void record(SolrQuery query) {
+        if (seen.getAndIncrement() % sampleEvery == 0) {
+            add(QueryShapes.toLine(query));
+        }
+    }
+
+    private synchronized void add(String line) {
+        ring[(int) (recorded % ring.length)] = line;
+        recorded++;
+    }
+}
@@ -0,0 +1,112 @@
+package makcon.solr.client.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays queries against a repository at a fixed rate with bounded concurrency and reports
+ * latency percentiles by query shape. Used to warm searcher caches after a start or a commit
+ * and to generate load for capacity tests. Once all workers are busy the rate drops to what
+ * the repository sustains.
+ */
+@Slf4j
+public class QueryReplayer {
+
+    private final SolrRepository repository;
+    private final int concurrency;
+    private final double queriesPerSecond;
+
+    /**
+     * @param queriesPerSecond replay rate, unlimited if not positive.
+     */
+    public QueryReplayer(SolrRepository repository,
+                         int concurrency,
+                         double queriesPerSecond) {
+        this.repository = repository;
+        this.concurrency = concurrency;
+        this.queriesPerSecond = queriesPerSecond;
+    }
+
+    public ReplayReport replay(List<SolrQuery> queries) {
+        long intervalNanos = queriesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / queriesPerSecond) : 0;
+        Map<String, ShapeLatencies> latencies = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "solr-query-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < queries.size(); i++) {
+                long waitNanos = start + i * intervalNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                permits.acquire();
+
+                SolrQuery query = queries.get(i);
+                ShapeLatencies shape = latencies.computeIfAbsent(QueryShapes.shape(query), s -> new ShapeLatencies());
+                executor.execute(() -> {
+                    long queryStart = System.nanoTime();
+                    try {
+                        repository.findByQuery(query);
+                        shape.success(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queryStart));
+                    } catch (RuntimeException e) {
+                        shape.error();
+                        logger.debug("Replayed query failed: {}", query, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            permits.acquire(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Query replay interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, LatencyStats> shapes = new TreeMap<>();
+        latencies.forEach((shape, shapeLatencies) -> shapes.put(shape, shapeLatencies.stats()));
+        ReplayReport report = new ReplayReport(shapes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Replayed {} queries: {}", queries.size(), report);
+
+        return report;
+    }
+
+    private static final class ShapeLatencies {
+
+        private long[] micros = new long[16];
+        private int count;
+        private int errors;
+
+        private synchronized void success(long latencyMicros) {
+            if (count == micros.length) {
+                micros = Arrays.copyOf(micros, count * 2);
+            }
+            micros[count++] = latencyMicros;
+        }
+
+        private synchronized void error() {
+            errors++;
+        }
+
+        private synchronized LatencyStats stats() {
+            return LatencyStats.of(micros, count, errors);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package makcon.solr.client.warmup;
+
+import lombok.experimental.UtilityClass;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Query serialization for recording and the shape of a query: its parameter names and
+ * q/fq with the values replaced by '?', so queries differing only in values share a shape.
+ */
+@UtilityClass
+public class QueryShapes {
+
+    private static final String UTF_8 = "UTF-8";
+    private static final Pattern VALUE = Pattern.compile(
+            ":(\"(?:[^\"\\\\]|\\\\.)*\"|\\[[^\\]]*\\]|\\{[^}]*\\}|\\([^)]*\\)|[^\\s)]+)"
+    );
+
+    public String shape(SolrQuery query) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : new TreeSet<>(query.getParameterNames())) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(name);
+            if (CommonParams.Q.equals(name) || CommonParams.FQ.equals(name)) {
+                for (String value : query.getParams(name)) {
+                    sb.append('=').append(VALUE.matcher(value).replaceAll(":?"));
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the query as one line of URL-encoded parameters.
+     */
+    public String toLine(SolrQuery query) {
+        StringBuilder sb = new StringBuilder();
+        Iterator<String> names = query.getParameterNamesIterator();
+        while (names.hasNext()) {
+            String name = names.next();
+            for (String value : query.getParams(name)) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+                sb.append(encode(name)).append('=').append(encode(value));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public SolrQuery fromLine(String line) {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        for (String param : line.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : param.substring(eq + 1);
+            params.add(decode(name), decode(value));
+        }
+
+        SolrQuery query = new SolrQuery();
+        query.add(params);
+
+        return query;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, UTF_8);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, UTF_8);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
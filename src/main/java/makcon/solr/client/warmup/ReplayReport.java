@@ -0,0 +1,43 @@
+package makcon.solr.client.warmup;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of a replay: latency stats by query shape.
+ */
+public final class ReplayReport {
+
+    private final Map<String, LatencyStats> shapes;
+    private final long elapsedMs;
+
+    ReplayReport(Map<String, LatencyStats> shapes,
+                 long elapsedMs) {
+        this.shapes = Collections.unmodifiableMap(shapes);
+        this.elapsedMs = elapsedMs;
+    }
+
+    public Map<String, LatencyStats> getShapes() {
+        return shapes;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public int getCount() {
+        return shapes.values().stream().mapToInt(LatencyStats::getCount).sum();
+    }
+
+    public int getErrors() {
+        return shapes.values().stream().mapToInt(LatencyStats::getErrors).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ReplayReport{elapsedMs=").append(elapsedMs);
+        shapes.forEach((shape, stats) -> sb.append(", ").append(shape).append('=').append(stats));
+
+        return sb.append('}').toString();
+    }
+}
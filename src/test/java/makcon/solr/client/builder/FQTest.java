@@ -1,5 +1,6 @@
 package makcon.solr.client.builder;
 
+import makcon.solr.client.constant.JoinScoreMode;
 import org.junit.Test;
 
 import java.time.Instant;
@@ -521,4 +522,58 @@ public class FQTest {
 
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parentsOf() {
+        String actual = FQ.parentsOf(
+                FQ.field("type").value("parent"),
+                and(FQ.field("color").value("red"), FQ.field("name").value("\"big\""))
+        ).build();
+
+        assertEquals("{!parent which=\"type:parent\" v=\"color:red AND name:\\\"big\\\"\"}", actual);
+    }
+
+    @Test
+    public void childrenOf_inClause() {
+        String actual = and(
+                FQ.field("type").value("child"),
+                FQ.childrenOf(FQ.field("type").value("parent"), FQ.field("id").value("1"))
+        ).build();
+
+        assertEquals("type:child AND _query_:\"{!child of=\\\"type:parent\\\" v=\\\"id:1\\\"}\"", actual);
+    }
+
+    @Test
+    public void join_firstClause() {
+        String actual = or(
+                FQ.join("parent_id", "id", FQ.field("color").value("red")),
+                FQ.field("color").value("blue")
+        ).build();
+
+        assertEquals("_query_:\"{!join from=\\\"parent_id\\\" to=\\\"id\\\" v=\\\"color:red\\\"}\" OR color:blue", actual);
+    }
+
+    @Test
+    public void join() {
+        String actual = FQ.join("parent_id", "id", FQ.field("color").values("red", "blue")).build();
+
+        assertEquals("{!join from=\"parent_id\" to=\"id\" v=\"color:(red OR blue)\"}", actual);
+    }
+
+    @Test
+    public void join_fromIndexWithScore() {
+        String actual = FQ.join("products", "id", "product_id", JoinScoreMode.MAX, FQ.field("name").value("phone")).build();
+
+        assertEquals("{!join fromIndex=\"products\" from=\"id\" to=\"product_id\" score=\"max\" v=\"name:phone\"}", actual);
+    }
+
+    @Test
+    public void crossCollectionJoin() {
+        String actual = FQ.crossCollectionJoin("users", "id", "user_id", FQ.field("active").isTrue()).build();
+
+        assertEquals(
+                "{!join method=\"crossCollection\" fromIndex=\"users\" from=\"id\" to=\"user_id\" v=\"active:true\"}",
+                actual
+        );
+    }
+}
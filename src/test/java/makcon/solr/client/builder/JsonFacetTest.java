@@ -0,0 +1,83 @@
+package makcon.solr.client.builder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonFacetTest {
+
+    @Test
+    public void terms() {
+        final String actual = JsonFacet.create()
+                .facet("categories", JsonFacet.terms("cat").limit(5))
+                .build();
+
+        assertEquals("{\"categories\":{\"type\":\"terms\",\"field\":\"cat\",\"limit\":5}}", actual);
+    }
+
+    @Test
+    public void range() {
+        final String actual = JsonFacet.create()
+                .facet("prices", JsonFacet.range("price", 0, 100, 10).hardend(true))
+                .build();
+
+        assertEquals("{\"prices\":{\"type\":\"range\",\"field\":\"price\",\"start\":0,\"end\":100,\"gap\":10,\"hardend\":true}}", actual);
+    }
+
+    @Test
+    public void query_fq() {
+        final String actual = JsonFacet.create()
+                .facet("cheap", JsonFacet.query(FQ.field("price").range(-1, 10)))
+                .build();
+
+        assertEquals("{\"cheap\":{\"type\":\"query\",\"q\":\"price:[* TO 10]\"}}", actual);
+    }
+
+    @Test
+    public void nestedWithStats() {
+        final String actual = JsonFacet.create()
+                .stat("total", Aggregation.sum("price"))
+                .facet("categories", JsonFacet.terms("cat")
+                        .sort("avg desc")
+                        .stat("avg", Aggregation.avg("price"))
+                        .facet("brands", JsonFacet.terms("brand")))
+                .stat("users", Aggregation.hll("user"))
+                .build();
+
+        assertEquals(
+                "{\"total\":\"sum(price)\"," +
+                "\"categories\":{\"type\":\"terms\",\"field\":\"cat\",\"sort\":\"avg desc\"," +
+                "\"facet\":{\"avg\":\"avg(price)\",\"brands\":{\"type\":\"terms\",\"field\":\"brand\"}}}," +
+                "\"users\":\"hll(user)\"}",
+                actual
+        );
+    }
+
+    @Test
+    public void escapedValues() {
+        final String actual = JsonFacet.create()
+                .facet("q", JsonFacet.query("name:\"a\\b\""))
+                .build();
+
+        assertEquals("{\"q\":{\"type\":\"query\",\"q\":\"name:\\\"a\\\\b\\\"\"}}", actual);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void rootOption() {
+        JsonFacet.create().limit(1);
+    }
+
+    @Test
+    public void fieldStats_missingAsQueryFacet() {
+        final String actual = JsonFacet.create()
+                .fieldStats("price")
+                .build();
+
+        assertEquals(
+                "{\"stats_0_missing\":{\"type\":\"query\",\"q\":\"*:* -price:[* TO *]\"}," +
+                        "\"stats_0_min\":\"min(price)\",\"stats_0_max\":\"max(price)\",\"stats_0_sum\":\"sum(price)\"," +
+                        "\"stats_0_sumsq\":\"sumsq(price)\",\"stats_0_hll\":\"hll(price)\"}",
+                actual
+        );
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.Test;
 import java.util.List;
 
 import static makcon.solr.client.builder.SolrQueryUtils.getSolrQueryCopy;
+import static makcon.solr.client.builder.SolrQueryUtils.withChildren;
 import static org.apache.solr.client.solrj.SolrQuery.ORDER.asc;
 import static org.junit.Assert.assertEquals;
 
@@ -24,4 +25,16 @@ public class SolrQueryUtilsTest {
         assertEquals("field", sortClause.getItem());
         assertEquals(asc, sortClause.getOrder());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void withChildren_addsTransformer() {
+        SolrQuery solrQuery = withChildren(
+                new SolrQuery("*:*"),
+                FQ.field("type").value("parent"),
+                FQ.field("color").value("red"),
+                5
+        );
+
+        assertEquals("*,[child parentFilter=\"type:parent\" childFilter=\"color:red\" limit=5]", solrQuery.getFields());
+    }
+}
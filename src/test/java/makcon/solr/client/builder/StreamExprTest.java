@@ -0,0 +1,75 @@
+package makcon.solr.client.builder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamExprTest {
+
+    @Test
+    public void search() {
+        final String actual = StreamExpr.search("orders")
+                .q("*:*")
+                .fq(FQ.field("status").values("paid", "shipped"))
+                .fl("id", "total_d")
+                .sort("id asc")
+                .qt("/export")
+                .build();
+
+        assertEquals(
+                "search(orders, q=\"*:*\", fq=\"status:(paid OR shipped)\", fl=\"id,total_d\", sort=\"id asc\", qt=\"/export\")",
+                actual
+        );
+    }
+
+    @Test
+    public void rollup() {
+        final String actual = StreamExpr.rollup(
+                StreamExpr.search("orders").q("*:*").sort("customer_s asc"),
+                "customer_s",
+                Aggregation.sum("total_d"),
+                "count(*)"
+        ).build();
+
+        assertEquals(
+                "rollup(search(orders, q=\"*:*\", sort=\"customer_s asc\"), over=\"customer_s\", sum(total_d), count(*))",
+                actual
+        );
+    }
+
+    @Test
+    public void top_innerJoin() {
+        final String actual = StreamExpr.top(
+                5,
+                StreamExpr.innerJoin(
+                        StreamExpr.search("people").q("*:*"),
+                        StreamExpr.search("pets").q("*:*"),
+                        "personId=ownerId"
+                ),
+                "age_i desc"
+        ).build();
+
+        assertEquals(
+                "top(n=\"5\", innerJoin(search(people, q=\"*:*\"), search(pets, q=\"*:*\"), on=\"personId=ownerId\"), sort=\"age_i desc\")",
+                actual
+        );
+    }
+
+    @Test
+    public void quotedValue() {
+        final String actual = StreamExpr.search("c")
+                .q("name:\"john\"")
+                .build();
+
+        assertEquals("search(c, q=\"name:\\\"john\\\"\")", actual);
+    }
+
+    @Test
+    public void quotedValue_backslashKept() {
+        final String actual = StreamExpr.search("c")
+                .q("path:a\\:b")
+                .build();
+
+        assertEquals("search(c, q=\"path:a\\:b\")", actual);
+    }
+}
@@ -0,0 +1,136 @@
+package makcon.solr.client.cache;
+
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.apache.solr.common.SolrDocument;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NearCachingSolrRepositoryTest {
+
+    private final List<String> requested = new ArrayList<>();
+    private Runnable duringRead = () -> {
+    };
+    private boolean failWrites;
+    private final NearCachingSolrRepository repository = new NearCachingSolrRepository(
+            new ForwardingSolrRepository(null) {
+                @Override
+                public List<SolrDoc> getByIds(Collection<String> ids,
+                                              String... fields) {
+                    requested.addAll(ids);
+                    duringRead.run();
+                    List<SolrDoc> docs = new ArrayList<>();
+                    // Solr returns the found documents in its own order
+                    for (String id : new TreeSet<>(ids)) {
+                        SolrDocument doc = new SolrDocument();
+                        doc.setField("id", id);
+                        docs.add(new SolrDoc(doc));
+                    }
+                    return docs;
+                }
+
+                @Override
+                public void save(SolrInputDoc document) {
+                    if (failWrites) {
+                        throw new RepositoryAccessException("Solr is down");
+                    }
+                }
+
+                @Override
+                public void deleteById(String id) {
+                }
+            },
+            "id",
+            2,
+            60_000
+    );
+
+    @Test
+    public void getByIds_readsMissingOnly() {
+        repository.getByIds(asList("1", "2"));
+        List<SolrDoc> docs = repository.getByIds(asList("1", "2", "3"));
+
+        assertEquals(3, docs.size());
+        assertEquals(asList("1", "2", "3"), requested);
+    }
+
+    @Test
+    public void save_writeThrough() {
+        repository.save(SolrInputDoc.newDoc("id", "1").setField("name", "a").build());
+
+        assertEquals("a", repository.getById("1").get().getStringRequired("name"));
+        assertTrue(requested.isEmpty());
+    }
+
+    @Test
+    public void failedSave_evicts() {
+        repository.getById("1");
+        failWrites = true;
+        try {
+            repository.save(SolrInputDoc.newDoc("id", "1").setField("name", "a").build());
+            fail();
+        } catch (RepositoryAccessException e) {
+            // expected
+        }
+        repository.getById("1");
+
+        assertEquals(asList("1", "1"), requested);
+    }
+
+    @Test
+    public void atomicUpdateAndDelete_evict() {
+        repository.getById("1");
+        repository.save(SolrInputDoc.toUpdate("id", "1").setField("name", "b").build());
+        repository.getById("1");
+        repository.deleteById("1");
+        repository.getById("1");
+
+        assertEquals(asList("1", "1", "1"), requested);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        repository.getById("1");
+        repository.getById("2");
+        repository.getById("1");
+        repository.getById("3");
+        repository.getById("1");
+        repository.getById("2");
+
+        assertEquals(asList("1", "2", "3", "2"), requested);
+    }
+
+    @Test
+    public void getByIds_requestedOrder() {
+        repository.getByIds(asList("2"));
+        List<SolrDoc> docs = repository.getByIds(asList("3", "2", "1"));
+
+        List<String> ids = new ArrayList<>();
+        docs.forEach(doc -> ids.add(doc.getStringRequired("id")));
+        assertEquals(asList("3", "2", "1"), ids);
+    }
+
+    @Test
+    public void getByIds_writeDuringRead_notCached() {
+        duringRead = () -> {
+            duringRead = () -> {
+            };
+            repository.deleteById("1");
+        };
+        repository.getById("1");
+        repository.getById("1");
+
+        assertEquals(asList("1", "1"), requested);
+    }
+}
@@ -0,0 +1,26 @@
+package makcon.solr.client.dataobject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTest {
+
+    @Test
+    public void remainingMillis() {
+        Deadline deadline = Deadline.afterMillis(60_000);
+
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remainingMillis() > 59_000);
+    }
+
+    @Test
+    public void expired() {
+        Deadline deadline = Deadline.afterMillis(-1);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+    }
+}
@@ -0,0 +1,78 @@
+package makcon.solr.client.dataobject;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FacetResultTest {
+
+    @Test
+    public void from_statsAndBuckets() {
+        NamedList<Object> facets = new SimpleOrderedMap<>();
+        facets.add("count", 10L);
+        facets.add("total", 42.5);
+        facets.add("categories", buckets(
+                bucket("a", 7, "avg", 1.5),
+                bucket("b", 3, null, null)
+        ));
+
+        FacetResult result = FacetResult.from(facets);
+
+        assertEquals(10L, result.getCount());
+        assertEquals(42.5, result.getStat("total"), 0);
+        assertFalse(result.hasStat("absent"));
+        assertTrue(Double.isNaN(result.getStat("absent")));
+
+        FacetBuckets categories = result.getBuckets("categories");
+        assertEquals(2, categories.size());
+        assertEquals("a", categories.getValue(0));
+        assertEquals(7L, categories.getCount(0));
+        assertEquals(3L, categories.getCount(1));
+        assertEquals(1.5, categories.getBucketResult(0).getStat("avg"), 0);
+        assertNull(categories.getBucketResult(1));
+        assertEquals(-1, categories.getNumBuckets());
+    }
+
+    @Test
+    public void from_queryFacet() {
+        NamedList<Object> cheap = new SimpleOrderedMap<>();
+        cheap.add("count", 4L);
+        NamedList<Object> facets = new SimpleOrderedMap<>();
+        facets.add("count", 10L);
+        facets.add("cheap", cheap);
+
+        FacetResult result = FacetResult.from(facets);
+
+        assertEquals(4L, result.getQueryFacet("cheap").getCount());
+    }
+
+    @Test
+    public void from_null() {
+        assertEquals(0L, FacetResult.from(null).getCount());
+    }
+
+    private static NamedList<Object> buckets(NamedList<?>... buckets) {
+        NamedList<Object> facet = new SimpleOrderedMap<>();
+        facet.add("buckets", asList(buckets));
+        return facet;
+    }
+
+    private static NamedList<Object> bucket(Object value,
+                                            long count,
+                                            String stat,
+                                            Double statValue) {
+        NamedList<Object> bucket = new SimpleOrderedMap<>();
+        bucket.add("val", value);
+        bucket.add("count", count);
+        if (stat != null) {
+            bucket.add(stat, statValue);
+        }
+        return bucket;
+    }
+}
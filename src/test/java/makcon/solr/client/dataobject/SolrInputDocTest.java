@@ -0,0 +1,149 @@
+package makcon.solr.client.dataobject;
+
+import makcon.solr.client.constant.SolrFieldModifier;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SolrInputDocTest {
+
+    private static final String ID_FIELD = "id";
+    private static final String FIELD = "field";
+
+    @Test
+    public void newDoc_setField() {
+        SolrInputDoc doc = SolrInputDoc.newDoc(ID_FIELD, "1")
+                .setField(FIELD, "value")
+                .build();
+
+        assertEquals("1", doc.getId());
+        assertEquals("value", doc.get(FIELD));
+        assertFalse(doc.isAtomicUpdate());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void newDoc_addField() {
+        SolrInputDoc.newDoc(ID_FIELD, "1").addField(FIELD, "value");
+    }
+
+    @Test
+    public void toUpdate_setField() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .setField(FIELD, "value")
+                .build();
+
+        assertTrue(doc.isAtomicUpdate());
+        assertEquals("value", doc.getAtomic(FIELD, SolrFieldModifier.SET));
+    }
+
+    @Test
+    public void toUpdate_setNull_ignored() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .setField(FIELD, null)
+                .build();
+
+        assertNull(doc.getRaw(FIELD));
+    }
+
+    @Test
+    public void toUpdate_setEmptyList_removesValues() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .setField(FIELD, Collections.emptyList())
+                .build();
+
+        Map<?, ?> value = (Map<?, ?>) doc.getRaw(FIELD);
+        assertTrue(value.containsKey(SolrFieldModifier.SET.value));
+        assertNull(value.get(SolrFieldModifier.SET.value));
+    }
+
+    @Test
+    public void toUpdate_multipleModifiers() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .addField(FIELD, "a")
+                .removeField(FIELD, "b")
+                .build();
+
+        Map<?, ?> value = (Map<?, ?>) doc.getRaw(FIELD);
+        assertEquals(asList(SolrFieldModifier.ADD.value, SolrFieldModifier.REMOVE.value), asList(value.keySet().toArray()));
+        assertEquals("a", doc.getAtomic(FIELD, SolrFieldModifier.ADD));
+        assertEquals("b", doc.getAtomic(FIELD, SolrFieldModifier.REMOVE));
+    }
+
+    @Test
+    public void toUpdate_setReplacesModifiers() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .addField(FIELD, "a")
+                .setField(FIELD, "b")
+                .build();
+
+        Map<?, ?> value = (Map<?, ?>) doc.getRaw(FIELD);
+        assertEquals(1, value.size());
+        assertEquals("b", doc.getAtomic(FIELD, SolrFieldModifier.SET));
+    }
+
+    @Test
+    public void threadLocalBuilder_reusedForNextDocument() {
+        SolrInputDoc first = SolrInputDoc.threadLocalBuilder(true, ID_FIELD, "1")
+                .setField(FIELD, "a")
+                .build();
+        SolrInputDoc second = SolrInputDoc.threadLocalBuilder(true, ID_FIELD, "2")
+                .build();
+
+        assertNotSame(first.getSolrInputDocument(), second.getSolrInputDocument());
+        assertEquals("a", first.get(FIELD));
+        assertNull(second.get(FIELD));
+        assertEquals("2", second.getId());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_twice() {
+        SolrInputDoc.Builder builder = SolrInputDoc.newDoc(ID_FIELD, "1");
+        builder.build();
+        builder.build();
+    }
+
+    @Test
+    public void version() {
+        assertNull(SolrInputDoc.newDoc(ID_FIELD, "1").build().getVersion());
+        assertEquals(5L, (long) SolrInputDoc.toUpdate(ID_FIELD, "1").version(5).build().getVersion());
+        assertEquals(1L, (long) SolrInputDoc.toUpdate(ID_FIELD, "1").mustExist().build().getVersion());
+        assertEquals(-1L, (long) SolrInputDoc.newDoc(ID_FIELD, "1").mustNotExist().build().getVersion());
+    }
+
+    @Test
+    public void children() {
+        SolrInputDoc child = SolrInputDoc.newDoc(ID_FIELD, "1.1").build();
+        SolrInputDoc parent = SolrInputDoc.newDoc(ID_FIELD, "1")
+                .addChild(child)
+                .addChild("comments", SolrInputDoc.newDoc(ID_FIELD, "1.2").build())
+                .build();
+
+        assertEquals("1.1", parent.getChildren().get(0).getId());
+        assertEquals("1.2", ((SolrInputDocument) parent.getRaw("comments")).getFieldValue(ID_FIELD));
+    }
+
+    @Test
+    public void children_atomicUpdate() {
+        SolrInputDoc update = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .addChild("comments", SolrInputDoc.newDoc(ID_FIELD, "1.2").build())
+                .build();
+
+        assertTrue(update.isAtomicUpdate());
+        SolrInputDocument child = update.getAtomic("comments", SolrFieldModifier.ADD);
+        assertEquals("1.2", child.getFieldValue(ID_FIELD));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void children_anonymousInUpdate() {
+        SolrInputDoc.toUpdate(ID_FIELD, "1").addChild(SolrInputDoc.newDoc(ID_FIELD, "1.1").build());
+    }
+}
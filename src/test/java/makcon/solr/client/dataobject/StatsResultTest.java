@@ -0,0 +1,98 @@
+package makcon.solr.client.dataobject;
+
+import makcon.solr.client.builder.JsonFacet;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Test;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatsResultTest {
+
+    @Test
+    public void from() {
+        StatsResult result = StatsResult.from(FacetResult.from(facets(4, 1, 2.0, 6.0, 12.0, 56.0, 3)), "price");
+
+        FieldStats price = result.get("price");
+        assertEquals(4, result.getCount());
+        assertEquals(3, price.getCount());
+        assertEquals(1, price.getMissing());
+        assertEquals(2.0, price.getMin(), 0);
+        assertEquals(6.0, price.getMax(), 0);
+        assertEquals(4.0, price.getMean(), 0);
+        assertEquals(2.0, price.getStddev(), 1e-9);
+        assertEquals(3, price.getCardinality());
+        assertNull(result.get("absent"));
+    }
+
+    @Test
+    public void from_multiValued_noStddev() {
+        StatsResult result = StatsResult.from(FacetResult.from(facets(4, 1, 2.0, 6.0, 12.0, 56.0, 3)), singleton("price"), "price");
+
+        FieldStats price = result.get("price");
+        assertTrue(price.isMultiValued());
+        assertEquals(4.0, price.getMean(), 0);
+        assertTrue(Double.isNaN(price.getStddev()));
+    }
+
+    @Test
+    public void from_noValues() {
+        NamedList<Object> facets = new SimpleOrderedMap<>();
+        facets.add("count", 0L);
+
+        FieldStats price = StatsResult.from(FacetResult.from(facets), "price").get("price");
+
+        assertEquals(0, price.getCount());
+        assertTrue(Double.isNaN(price.getMin()));
+        assertTrue(Double.isNaN(price.getMean()));
+    }
+
+    @Test
+    public void merge() {
+        StatsResult first = StatsResult.from(FacetResult.from(facets(2, 0, 2.0, 4.0, 6.0, 20.0, 2)), "price");
+        StatsResult second = StatsResult.from(FacetResult.from(facets(1, 0, 6.0, 6.0, 6.0, 36.0, 1)), "price");
+
+        StatsResult merged = first.merge(second);
+
+        FieldStats price = merged.get("price");
+        assertEquals(3, merged.getCount());
+        assertEquals(3, price.getCount());
+        assertEquals(2.0, price.getMin(), 0);
+        assertEquals(6.0, price.getMax(), 0);
+        assertEquals(2.0, price.getStddev(), 1e-9);
+        assertEquals(2, price.getCardinality());
+    }
+
+    @Test
+    public void empty() {
+        FieldStats price = StatsResult.empty(5, "price").get("price");
+
+        assertEquals(0, price.getCount());
+        assertEquals(5, price.getMissing());
+        assertTrue(Double.isNaN(price.getMean()));
+    }
+
+    private static NamedList<Object> facets(long count,
+                                            long missing,
+                                            double min,
+                                            double max,
+                                            double sum,
+                                            double sumsq,
+                                            long hll) {
+        NamedList<Object> facets = new SimpleOrderedMap<>();
+        facets.add("count", count);
+        NamedList<Object> missingDocs = new SimpleOrderedMap<>();
+        missingDocs.add("count", missing);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.MISSING), missingDocs);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.MIN), min);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.MAX), max);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.SUM), sum);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.SUMSQ), sumsq);
+        facets.add(JsonFacet.fieldStatName(0, JsonFacet.HLL), hll);
+
+        return facets;
+    }
+}
@@ -0,0 +1,58 @@
+package makcon.solr.client.filter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("id-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("id-" + i));
+        }
+    }
+
+    @Test
+    public void falsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("id-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("False positives: " + falsePositives, falsePositives < 200);
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        filter.put("a");
+        filter.put("b");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+        BloomFilter read = BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertTrue(read.mightContain("a"));
+        assertTrue(read.mightContain("b"));
+        assertEquals(filter.getBits(), read.getBits());
+        assertEquals(filter.getHashes(), read.getHashes());
+    }
+}
@@ -0,0 +1,76 @@
+package makcon.solr.client.filter;
+
+import makcon.solr.client.constant.ImportFormat;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.stream.Tuple;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class BloomFilteredSolrRepositoryTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger exports = new AtomicInteger();
+    private boolean importFails;
+
+    private final ForwardingSolrRepository solr = new ForwardingSolrRepository(null) {
+        @Override
+        public long export(SolrQuery query,
+                           List<String> fields,
+                           String sort,
+                           Consumer<Tuple> consumer) {
+            exports.incrementAndGet();
+            return 0;
+        }
+
+        @Override
+        public int importFile(Path file,
+                              ImportFormat format,
+                              long chunkBytes,
+                              int parallelism) {
+            if (importFails) {
+                throw new RepositoryAccessException("chunk failed");
+            }
+            return 1;
+        }
+    };
+
+    @Test
+    public void importFile_refreshesFilter() {
+        BloomFilteredSolrRepository repository = create();
+
+        repository.importFile(Paths.get("docs.json"), ImportFormat.JSON_LINES, 1024, 2);
+
+        assertEquals(2, exports.get());
+    }
+
+    @Test
+    public void importFile_failed_refreshesFilter() {
+        BloomFilteredSolrRepository repository = create();
+        importFails = true;
+
+        try {
+            repository.importFile(Paths.get("docs.json"), ImportFormat.JSON_LINES, 1024, 2);
+            fail();
+        } catch (RepositoryAccessException e) {
+            assertEquals(2, exports.get());
+        }
+    }
+
+    private BloomFilteredSolrRepository create() {
+        return BloomFilteredSolrRepository.create(solr, "id", folder.getRoot().toPath().resolve("ids.bloom"), 1000, 0.01);
+    }
+}
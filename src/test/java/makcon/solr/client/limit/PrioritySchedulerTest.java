@@ -0,0 +1,67 @@
+package makcon.solr.client.limit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrioritySchedulerTest {
+
+    @Test
+    public void admitsInteractiveBeforeQueuedBatch() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1, null);
+        scheduler.acquire(Priority.BATCH);
+
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        Thread batch = start(scheduler, Priority.BATCH, "batch", admitted);
+        awaitQueued(scheduler, 1);
+        Thread interactive = start(scheduler, Priority.INTERACTIVE, "interactive", admitted);
+        awaitQueued(scheduler, 2);
+
+        scheduler.release();
+        batch.join(5_000);
+        interactive.join(5_000);
+
+        assertEquals(asList("interactive", "batch"), admitted);
+    }
+
+    @Test
+    public void tokenBucket_limitsRate() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long waitNanos = bucket.tryAcquire();
+        assertTrue(waitNanos > 50_000_000 && waitNanos <= 100_000_000);
+    }
+
+    private static Thread start(PriorityScheduler scheduler,
+                                Priority priority,
+                                String name,
+                                List<String> admitted) {
+        Thread thread = new Thread(() -> {
+            try {
+                scheduler.acquire(priority);
+                admitted.add(name);
+                scheduler.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        return thread;
+    }
+
+    private static void awaitQueued(PriorityScheduler scheduler,
+                                    int queued) throws InterruptedException {
+        while (scheduler.getQueued() < queued) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package makcon.solr.client.reactive;
+
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SolrDocPublisherTest {
+
+    @Test
+    public void pagesFetchedOnDemand() {
+        PagedRepository repository = new PagedRepository(5);
+        SolrQuery query = new SolrQuery("*:*").setRows(2);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+
+        new SolrDocPublisher(repository, query, "id", Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        assertEquals(1, subscriber.docs.size());
+        assertEquals(1, repository.requests);
+
+        subscriber.subscription.request(2);
+
+        assertEquals(3, subscriber.docs.size());
+        assertEquals(2, repository.requests);
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+
+        assertEquals(3, subscriber.docs.size());
+        assertEquals(2, repository.requests);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void completesAfterLastPage() {
+        PagedRepository repository = new PagedRepository(5);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+
+        new SolrDocPublisher(repository, new SolrQuery("*:*").setRows(2), "id", Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(5, subscriber.docs.size());
+        assertEquals("4", subscriber.docs.get(4).getStringRequired("id"));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void invalidRequest() {
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+
+        new SolrDocPublisher(new PagedRepository(5), new SolrQuery("*:*"), "id", Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static final class PagedRepository extends ForwardingSolrRepository {
+
+        private final int total;
+        private int requests;
+
+        private PagedRepository(int total) {
+            super(null);
+            this.total = total;
+        }
+
+        @Override
+        public QueryResponse findByQuery(SolrQuery query) {
+            requests++;
+            String cursorMark = query.get(CursorMarkParams.CURSOR_MARK_PARAM);
+            int from = CursorMarkParams.CURSOR_MARK_START.equals(cursorMark) ? 0 : Integer.parseInt(cursorMark);
+            int to = Math.min(total, from + query.getRows());
+
+            SolrDocumentList docs = new SolrDocumentList();
+            for (int i = from; i < to; i++) {
+                SolrDocument doc = new SolrDocument();
+                doc.setField("id", String.valueOf(i));
+                docs.add(doc);
+            }
+            NamedList<Object> body = new NamedList<>();
+            body.add("response", docs);
+            body.add(CursorMarkParams.CURSOR_MARK_NEXT, String.valueOf(to));
+
+            QueryResponse response = new QueryResponse();
+            response.setResponse(body);
+
+            return response;
+        }
+    }
+
+    private static final class CollectingSubscriber implements Subscriber<SolrDoc> {
+
+        private final List<SolrDoc> docs = new ArrayList<>();
+        private Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(SolrDoc doc) {
+            docs.add(doc);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
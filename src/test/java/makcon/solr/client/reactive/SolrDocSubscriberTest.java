@@ -0,0 +1,46 @@
+package makcon.solr.client.reactive;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class SolrDocSubscriberTest {
+
+    @Test
+    public void savesInBatches() throws Exception {
+        List<Integer> batches = new ArrayList<>();
+        List<Long> requests = new ArrayList<>();
+        SolrDocSubscriber subscriber = new SolrDocSubscriber(new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                batches.add(documents.size());
+            }
+        }, 2);
+
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                requests.add(n);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            subscriber.onNext(SolrInputDoc.newDoc("id", String.valueOf(i)).build());
+        }
+        subscriber.onComplete();
+
+        assertEquals(asList(2, 2, 1), batches);
+        assertEquals(asList(2L, 2L, 2L), requests);
+        assertEquals(5L, (long) subscriber.completion().get());
+    }
+}
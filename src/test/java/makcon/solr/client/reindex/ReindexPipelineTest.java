@@ -0,0 +1,155 @@
+package makcon.solr.client.reindex;
+
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.schema.SchemaRegistry;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.schema.SchemaRepresentation;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReindexPipelineTest {
+
+    private static final int DOCUMENTS = 5;
+
+    private final List<SolrInputDoc> written = Collections.synchronizedList(new ArrayList<>());
+    private boolean failWrites;
+
+    private final ForwardingSolrRepository source = new ForwardingSolrRepository(null) {
+        @Override
+        public QueryResponse findByQuery(SolrQuery query) {
+            String cursorMark = query.get(CursorMarkParams.CURSOR_MARK_PARAM);
+            int from = CursorMarkParams.CURSOR_MARK_START.equals(cursorMark) ? 0 : Integer.parseInt(cursorMark);
+            int to = Math.min(DOCUMENTS, from + query.getRows());
+
+            SolrDocumentList page = new SolrDocumentList();
+            for (int id = from; id < to; id++) {
+                SolrDocument doc = new SolrDocument();
+                doc.setField("id", String.valueOf(id));
+                doc.setField("name", "name " + id);
+                doc.setField("name_txt", "name " + id);
+                doc.setField(QueryParams.VERSION_FIELD, 1L);
+                page.add(doc);
+            }
+            NamedList<Object> response = new NamedList<>();
+            response.add("response", page);
+            response.add(CursorMarkParams.CURSOR_MARK_NEXT, String.valueOf(to));
+
+            return new QueryResponse(response, null);
+        }
+    };
+
+    private final ForwardingSolrRepository target = new ForwardingSolrRepository(null) {
+        @Override
+        public void save(List<SolrInputDoc> documents,
+                         Integer commitWithin) {
+            if (failWrites) {
+                throw new RepositoryAccessException("target down");
+            }
+            written.addAll(documents);
+        }
+
+        @Override
+        public SchemaRegistry getSchema() {
+            Map<String, Object> copyField = new HashMap<>();
+            copyField.put("source", "name");
+            copyField.put("dest", "*_txt");
+            SchemaRepresentation schema = new SchemaRepresentation();
+            schema.setUniqueKey("id");
+            schema.setFieldTypes(new ArrayList<>());
+            schema.setFields(new ArrayList<>());
+            schema.setDynamicFields(new ArrayList<>());
+            schema.setCopyFields(singletonList(copyField));
+
+            return SchemaRegistry.from(schema);
+        }
+
+        @Override
+        public void softCommit() {
+        }
+    };
+
+    @Test
+    public void run_copiesWithoutVersionAndCopyFieldTargets() {
+        ReindexProgress progress = ReindexPipeline.from(source, new SolrQuery("*:*"), "id")
+                .to(target)
+                .batchSize(2)
+                .writers(2)
+                .run();
+
+        assertEquals(DOCUMENTS, progress.getWritten());
+        assertEquals(String.valueOf(DOCUMENTS), progress.getCheckpoint());
+        assertEquals(DOCUMENTS, written.size());
+        for (SolrInputDoc doc : written) {
+            assertTrue(doc.getSolrInputDocument().containsKey("name"));
+            assertFalse(doc.getSolrInputDocument().containsKey("name_txt"));
+            assertFalse(doc.getSolrInputDocument().containsKey(QueryParams.VERSION_FIELD));
+        }
+    }
+
+    @Test
+    public void run_copiesChildrenWithParentOnly() {
+        SolrDocument child = new SolrDocument();
+        child.setField("id", "c1");
+        child.setField(QueryParams.ROOT_FIELD, "p1");
+        child.setField(QueryParams.NEST_PATH_FIELD, "/items#0");
+        SolrDocument parent = new SolrDocument();
+        parent.setField("id", "p1");
+        parent.setField(QueryParams.ROOT_FIELD, "p1");
+        parent.setField("items", singletonList(child));
+        ForwardingSolrRepository nestedSource = new ForwardingSolrRepository(null) {
+            @Override
+            public QueryResponse findByQuery(SolrQuery query) {
+                SolrDocumentList page = new SolrDocumentList();
+                if (CursorMarkParams.CURSOR_MARK_START.equals(query.get(CursorMarkParams.CURSOR_MARK_PARAM))) {
+                    page.add(parent);
+                    page.add(child);
+                }
+                NamedList<Object> response = new NamedList<>();
+                response.add("response", page);
+                response.add(CursorMarkParams.CURSOR_MARK_NEXT, "1");
+
+                return new QueryResponse(response, null);
+            }
+        };
+
+        ReindexPipeline.from(nestedSource, new SolrQuery("*:*"), "id")
+                .to(target)
+                .run();
+
+        assertEquals(1, written.size());
+        SolrInputDoc copied = written.get(0);
+        assertFalse(copied.getSolrInputDocument().containsKey(QueryParams.ROOT_FIELD));
+        SolrInputDocument copiedChild = (SolrInputDocument) copied.getSolrInputDocument().getFieldValue("items");
+        assertEquals("c1", copiedChild.getFieldValue("id"));
+        assertFalse(copiedChild.containsKey(QueryParams.NEST_PATH_FIELD));
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void run_writeFailure() {
+        failWrites = true;
+
+        ReindexPipeline.from(source, new SolrQuery("*:*"), "id")
+                .to(target)
+                .batchSize(2)
+                .run();
+    }
+}
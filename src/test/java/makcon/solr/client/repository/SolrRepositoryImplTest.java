@@ -0,0 +1,359 @@
+package makcon.solr.client.repository;
+
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.constant.SolrFieldModifier;
+import makcon.solr.client.dataobject.Deadline;
+import makcon.solr.client.dataobject.PartialResponse;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SolrRepositoryImplTest {
+
+    private final List<SolrParams> requests = new ArrayList<>();
+    private final List<Object> applied = new ArrayList<>();
+    private final List<SolrInputDocument> sent = new ArrayList<>();
+    private final List<List<String>> deleteChunks = new ArrayList<>();
+
+    @Test
+    public void findByQuery_deadline_setsTimeAllowedAndTolerant() {
+        SolrRepositoryImpl repository = repository(params -> response(false));
+
+        PartialResponse response = repository.findByQuery(new SolrQuery("*:*"), Deadline.afterMillis(10_000));
+
+        assertFalse(response.isPartial());
+        SolrParams params = requests.get(0);
+        int timeAllowed = params.getInt(CommonParams.TIME_ALLOWED);
+        assertTrue(timeAllowed > 0 && timeAllowed <= 8_000);
+        assertTrue(params.getBool(ShardParams.SHARDS_TOLERANT));
+    }
+
+    @Test
+    public void findByQuery_deadline_partialResults() {
+        SolrRepositoryImpl repository = repository(params -> response(true));
+
+        PartialResponse response = repository.findByQuery(new SolrQuery("*:*"), Deadline.afterMillis(10_000));
+
+        assertTrue(response.isPartial());
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void findByQuery_deadlineExpired_notSent() {
+        SolrRepositoryImpl repository = repository(params -> response(false));
+
+        try {
+            repository.findByQuery(new SolrQuery("*:*"), Deadline.afterMillis(0));
+        } finally {
+            assertEquals(0, requests.size());
+        }
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void findByQuery_deadline_failure() {
+        SolrRepositoryImpl repository = repository(params -> {
+            throw new IllegalStateException("down");
+        });
+
+        repository.findByQuery(new SolrQuery("*:*"), Deadline.afterMillis(10_000));
+    }
+
+    @Test
+    public void findByQuery_deadline_serverNotAnswering() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            // connections are accepted and kept open without an answer
+            List<Socket> accepted = new ArrayList<>();
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        accepted.add(server.accept());
+                    }
+                } catch (IOException e) {
+                    // closed
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            SolrRepositoryImpl repository = new SolrRepositoryImpl("http://localhost:" + server.getLocalPort() + "/solr/core", 60_000);
+
+            long start = System.nanoTime();
+            try {
+                repository.findByQuery(new SolrQuery("*:*"), Deadline.afterMillis(200));
+                fail();
+            } catch (RepositoryAccessException e) {
+                assertTrue(e.getMessage().contains("deadline"));
+            }
+
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+            repository.shutdown();
+        }
+    }
+
+    @Test
+    public void saveVersioned_duplicateIds_conflictNotResent() {
+        SolrRepositoryImpl repository = repository(params -> new NamedList<>());
+        SolrInputDoc conflicting = SolrInputDoc.toUpdate("id", "a").version(2).setField("name", "y").build();
+
+        SaveResult result = repository.saveVersioned(asList(
+                SolrInputDoc.toUpdate("id", "a").version(1).setField("name", "x").build(),
+                SolrInputDoc.newDoc("id", "b").build(),
+                conflicting,
+                SolrInputDoc.newDoc("id", "c").build()
+        ));
+
+        assertEquals(asList("a", "b", "c"), applied);
+        assertEquals(singletonList(conflicting), result.getConflicts());
+        assertEquals(3, result.getSaved());
+    }
+
+    @Test
+    public void save_list_mergedInBatchOrder() {
+        SolrRepositoryImpl repository = repository(params -> new NamedList<>());
+
+        repository.save(asList(
+                SolrInputDoc.toUpdate("id", "a").incField("count", 1).build(),
+                SolrInputDoc.newDoc("id", "b").build(),
+                SolrInputDoc.toUpdate("id", "a").incField("count", 2).addField("tags", asList("x", "y")).build()
+        ));
+
+        assertEquals(asList("a", "b"), applied);
+        assertEquals(
+                singletonMap(SolrFieldModifier.INC.value, 3),
+                sent.get(0).getFieldValue("count")
+        );
+        assertEquals(
+                singletonMap(SolrFieldModifier.ADD.value, asList("x", "y")),
+                sent.get(0).getFieldValue("tags")
+        );
+    }
+
+    @Test
+    public void parallelScan_everyDocumentOnce() {
+        SolrRepositoryImpl repository = repository(SolrRepositoryImplTest::scanPage);
+        SolrQuery query = new SolrQuery("*:*");
+        query.setRows(2);
+
+        List<String> ids = new ArrayList<>();
+        repository.parallelScan(query, "id", 3, doc -> ids.add(doc.getStringRequired("id")));
+
+        ids.sort(null);
+        assertEquals(asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), ids);
+        for (SolrParams params : requests) {
+            assertTrue(params.get(CommonParams.FQ).startsWith("{!hash workers=3 worker="));
+            assertEquals("id", params.get(QueryParams.PARTITION_KEYS));
+        }
+        // 4, 3 and 3 documents in pages of 2, a full last page is followed by an empty one
+        assertEquals(7, requests.size());
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void parallelScan_partitionFailure() {
+        SolrRepositoryImpl repository = repository(params -> {
+            if (params.get(CommonParams.FQ).contains("worker=1")) {
+                throw new IllegalStateException("shard down");
+            }
+            return scanPage(params);
+        });
+
+        repository.parallelScan(new SolrQuery("*:*"), "id", 2, doc -> {
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelScan_noPartitions() {
+        repository(SolrRepositoryImplTest::scanPage).parallelScan(new SolrQuery("*:*"), "id", 0, doc -> {
+        });
+    }
+
+    @Test
+    public void deleteByIds_chunkedInParallel() {
+        SolrRepositoryImpl repository = repository(params -> new NamedList<>());
+        List<String> ids = new ArrayList<>();
+        for (int id = 0; id < 10; id++) {
+            ids.add(String.valueOf(id));
+        }
+
+        repository.deleteByIds(ids, 3, 2);
+
+        List<String> deleted = new ArrayList<>();
+        deleteChunks.forEach(chunk -> {
+            assertTrue(chunk.size() <= 3);
+            deleted.addAll(chunk);
+        });
+        deleted.sort(null);
+        assertEquals(ids, deleted);
+        assertEquals(4, deleteChunks.size());
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void deleteByIds_chunkFailure() {
+        SolrRepositoryImpl repository = repository(params -> {
+            throw new IllegalStateException("down");
+        });
+
+        repository.deleteByIds(asList("1", "2", "3"), 1, 2);
+    }
+
+    @Test
+    public void findRaw_copiesBody() {
+        SolrRepositoryImpl repository = repository(params -> rawResponse(200, "{\"response\":{}}"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long copied = repository.findRaw(new SolrQuery("*:*"), "json", output);
+
+        assertEquals("{\"response\":{}}", new String(output.toByteArray(), UTF_8));
+        assertEquals(output.size(), copied);
+    }
+
+    @Test
+    public void findRaw_errorStatus_nothingWritten() {
+        SolrRepositoryImpl repository = repository(params -> rawResponse(
+                400,
+                "{\"responseHeader\":{\"status\":400},\"error\":{\"msg\":\"undefined field foo\",\"code\":400}}"
+        ));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try {
+            repository.findRaw(new SolrQuery("foo:1"), "json", output);
+            fail();
+        } catch (RepositoryAccessException e) {
+            assertTrue(e.getCause().getMessage().contains("undefined field foo"));
+        }
+        assertEquals(0, output.size());
+    }
+
+    private SolrRepositoryImpl repository(Function<SolrParams, NamedList<Object>> handler) {
+        return new SolrRepositoryImpl(new SolrClient() {
+            @Override
+            public NamedList<Object> request(SolrRequest request,
+                                             String collection) {
+                synchronized (requests) {
+                    requests.add(request.getParams());
+                }
+                if (request instanceof UpdateRequest && ((UpdateRequest) request).getDocuments() != null) {
+                    apply(((UpdateRequest) request).getDocuments());
+                }
+                if (request instanceof UpdateRequest && ((UpdateRequest) request).getDeleteById() != null) {
+                    synchronized (deleteChunks) {
+                        deleteChunks.add(((UpdateRequest) request).getDeleteById());
+                    }
+                }
+                return handler.apply(request.getParams());
+            }
+
+            @Override
+            public void close() {
+            }
+        }, true);
+    }
+
+    /**
+     * Applies documents in order like Solr does, stopping at a document expecting version 2.
+     */
+    private void apply(List<SolrInputDocument> documents) {
+        for (SolrInputDocument document : documents) {
+            Object id = document.getFieldValue("id");
+            if (Long.valueOf(2).equals(document.getFieldValue(QueryParams.VERSION_FIELD))) {
+                throw new SolrException(
+                        SolrException.ErrorCode.CONFLICT,
+                        "version conflict for " + id + " expected=2 actual=3"
+                );
+            }
+            applied.add(id);
+            sent.add(document);
+        }
+    }
+
+    /**
+     * Page of the ids 0-9 of the hash partition, the cursor mark is the last returned id.
+     */
+    private static NamedList<Object> scanPage(SolrParams params) {
+        Matcher matcher = Pattern.compile("workers=(\\d+) worker=(\\d+)").matcher(params.get(CommonParams.FQ));
+        assertTrue(matcher.find());
+        int workers = Integer.parseInt(matcher.group(1));
+        int worker = Integer.parseInt(matcher.group(2));
+        String cursorMark = params.get(CursorMarkParams.CURSOR_MARK_PARAM);
+        int after = CursorMarkParams.CURSOR_MARK_START.equals(cursorMark) ? -1 : Integer.parseInt(cursorMark);
+
+        SolrDocumentList page = new SolrDocumentList();
+        for (int id = after + 1; id < 10 && page.size() < params.getInt(CommonParams.ROWS); id++) {
+            if (id % workers == worker) {
+                SolrDocument doc = new SolrDocument();
+                doc.setField("id", String.valueOf(id));
+                page.add(doc);
+            }
+        }
+
+        NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", new NamedList<>());
+        response.add("response", page);
+        response.add(CursorMarkParams.CURSOR_MARK_NEXT, page.isEmpty() ? cursorMark : page.get(page.size() - 1).get("id"));
+        return response;
+    }
+
+    private static NamedList<Object> rawResponse(int status,
+                                                 String body) {
+        NamedList<Object> response = new NamedList<>();
+        response.add("stream", new ByteArrayInputStream(body.getBytes(UTF_8)));
+        response.add("closeableResponse", new StubHttpResponse(status));
+        return response;
+    }
+
+    private static NamedList<Object> response(boolean partial) {
+        NamedList<Object> header = new NamedList<>();
+        if (partial) {
+            header.add(QueryParams.PARTIAL_RESULTS, true);
+        }
+        NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", header);
+        response.add("response", new SolrDocumentList());
+        return response;
+    }
+
+    private static final class StubHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private StubHttpResponse(int status) {
+            super(HttpVersion.HTTP_1_1, status, null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
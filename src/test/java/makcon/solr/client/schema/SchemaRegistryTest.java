@@ -0,0 +1,189 @@
+package makcon.solr.client.schema;
+
+import makcon.solr.client.constant.SolrFieldModifier;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.SchemaValidationException;
+import org.apache.solr.client.solrj.request.schema.FieldTypeDefinition;
+import org.apache.solr.client.solrj.response.schema.SchemaRepresentation;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SchemaRegistryTest {
+
+    private final SchemaRegistry registry = SchemaRegistry.from(schema());
+
+    @Test
+    public void getField_dynamic() {
+        SchemaField field = registry.getField("color_ss");
+
+        assertEquals(FieldKind.STRING, field.getKind());
+        assertTrue(field.isMultiValued());
+        assertTrue(field.isDocValues());
+    }
+
+    @Test
+    public void isCopyFieldTarget() {
+        assertTrue(registry.isCopyFieldTarget("status_ss"));
+        assertTrue(registry.isCopyFieldTarget("color_txt"));
+        assertFalse(registry.isCopyFieldTarget("status"));
+    }
+
+    @Test
+    public void validate_convertsValues() {
+        SolrInputDoc doc = SolrInputDoc.newDoc("id", "1")
+                .setField("count", "42")
+                .setField("created", Instant.parse("2020-01-01T00:00:00Z"))
+                .setField("status", Status.ACTIVE)
+                .setField("color_ss", asList("red", "blue"))
+                .build();
+
+        registry.validate(doc);
+
+        assertEquals(42L, (long) doc.get("count"));
+        assertEquals(new Date(1577836800000L), doc.get("created"));
+        assertEquals("ACTIVE", doc.get("status"));
+    }
+
+    @Test
+    public void validate_children() {
+        SolrInputDoc doc = SolrInputDoc.newDoc("id", "1")
+                .addChild("comments", SolrInputDoc.newDoc("id", "1.1").setField("count", "3").build())
+                .build();
+
+        registry.validate(doc);
+
+        SolrInputDocument child = (SolrInputDocument) doc.getRaw("comments");
+        assertEquals(3L, child.getFieldValue("count"));
+    }
+
+    @Test
+    public void validate_everyChild() {
+        SolrInputDoc doc = SolrInputDoc.newDoc("id", "1")
+                .addChild("comments", SolrInputDoc.newDoc("id", "1.1").setField("count", "3").build())
+                .addChild("comments", SolrInputDoc.newDoc("id", "1.2").setField("count", "4").build())
+                .build();
+
+        registry.validate(doc);
+
+        List<Object> children = doc.getList("comments");
+        assertEquals(4L, ((SolrInputDocument) children.get(1)).getFieldValue("count"));
+    }
+
+    @Test
+    public void validate_atomicUpdate() {
+        SolrInputDoc doc = SolrInputDoc.toUpdate("id", "1")
+                .incField("count", 2)
+                .build();
+
+        registry.validate(doc);
+
+        assertEquals(2L, (long) doc.getAtomic("count", SolrFieldModifier.INC));
+    }
+
+    @Test
+    public void validate_batchReportsEveryInvalidDocument() {
+        List<SolrInputDoc> docs = new ArrayList<>();
+        docs.add(SolrInputDoc.newDoc("id", "1").setField("count", "many").build());
+        docs.add(SolrInputDoc.newDoc("id", "2").setField("count", 1).build());
+        docs.add(SolrInputDoc.newDoc("id", "3").setField("unknown", 1).build());
+        docs.add(SolrInputDoc.newDoc("id", "4").setField("status", asList("a", "b")).build());
+
+        try {
+            registry.validate(docs);
+            fail();
+        } catch (SchemaValidationException e) {
+            assertEquals(asList("1", "3", "4"), new ArrayList<>(e.getErrors().keySet()));
+        }
+    }
+
+    @Test(expected = SchemaValidationException.class)
+    public void validate_incrementNonNumeric() {
+        registry.validate(SolrInputDoc.toUpdate("id", "1").incField("status", 1).build());
+    }
+
+    @Test
+    public void read() {
+        SolrDocument doc = new SolrDocument();
+        doc.setField("count", 7L);
+        doc.setField("created", new Date(1577836800000L));
+        doc.setField("status", "ACTIVE");
+
+        assertEquals(7, (int) registry.read(new SolrDoc(doc), "count", Integer.class));
+        assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0), registry.read(new SolrDoc(doc), "created", LocalDateTime.class));
+        assertEquals(Status.ACTIVE, registry.read(new SolrDoc(doc), "status", Status.class));
+    }
+
+    private enum Status {
+        ACTIVE
+    }
+
+    private static SchemaRepresentation schema() {
+        SchemaRepresentation schema = new SchemaRepresentation();
+        schema.setUniqueKey("id");
+        schema.setFieldTypes(asList(
+                type("string", "solr.StrField", true),
+                type("plong", "solr.LongPointField", true),
+                type("pdate", "solr.DatePointField", true)
+        ));
+        schema.setFields(asList(
+                field("id", "string", false),
+                field("count", "plong", false),
+                field("created", "pdate", false),
+                field("status", "string", false)
+        ));
+        schema.setDynamicFields(singletonList(field("*_ss", "string", true)));
+        schema.setCopyFields(asList(copyField("status", "status_ss"), copyField("*_ss", "*_txt")));
+
+        return schema;
+    }
+
+    private static Map<String, Object> copyField(String source,
+                                                 String dest) {
+        Map<String, Object> copyField = new HashMap<>();
+        copyField.put("source", source);
+        copyField.put("dest", dest);
+
+        return copyField;
+    }
+
+    private static FieldTypeDefinition type(String name,
+                                            String typeClass,
+                                            boolean docValues) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("name", name);
+        attributes.put("class", typeClass);
+        attributes.put("docValues", docValues);
+        FieldTypeDefinition type = new FieldTypeDefinition();
+        type.setAttributes(attributes);
+
+        return type;
+    }
+
+    private static Map<String, Object> field(String name,
+                                             String type,
+                                             boolean multiValued) {
+        Map<String, Object> field = new HashMap<>();
+        field.put("name", name);
+        field.put("type", type);
+        field.put("multiValued", multiValued);
+
+        return field;
+    }
+}
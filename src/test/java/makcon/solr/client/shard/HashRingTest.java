@@ -0,0 +1,39 @@
+package makcon.solr.client.shard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashRingTest {
+
+    @Test
+    public void spreadsKeysEvenly() {
+        HashRing ring = new HashRing(4, 128);
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            counts[ring.shardFor("doc-" + i)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue("Unbalanced shard: " + count, count > 7_000 && count < 13_000);
+        }
+    }
+
+    @Test
+    public void appendedShardMovesOnlyItsKeys() {
+        HashRing before = new HashRing(4, 128);
+        HashRing after = new HashRing(5, 128);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "doc-" + i;
+            int shard = after.shardFor(key);
+            if (shard != before.shardFor(key)) {
+                assertEquals(4, shard);
+                moved++;
+            }
+        }
+
+        assertTrue("Moved keys: " + moved, moved > 1_000 && moved < 3_000);
+    }
+}
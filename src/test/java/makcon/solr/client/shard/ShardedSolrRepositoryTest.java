@@ -0,0 +1,167 @@
+package makcon.solr.client.shard;
+
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.dataobject.StatsResult;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import makcon.solr.client.repository.SolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedSolrRepositoryTest {
+
+    @Test
+    public void save_routesById() {
+        List<List<SolrInputDoc>> saved = asList(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        List<SolrRepository> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<SolrInputDoc> shardSaved = saved.get(i);
+            shards.add(new ForwardingSolrRepository(null) {
+                @Override
+                public void save(List<SolrInputDoc> documents) {
+                    shardSaved.addAll(documents);
+                }
+            });
+        }
+        ShardedSolrRepository repository = new ShardedSolrRepository(shards);
+
+        List<SolrInputDoc> documents = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            documents.add(SolrInputDoc.builder(true, "id", "doc-" + i).build());
+        }
+        repository.save(documents);
+
+        int total = 0;
+        for (int i = 0; i < 3; i++) {
+            for (SolrInputDoc document : saved.get(i)) {
+                assertEquals(shards.get(i), repository.shardFor(String.valueOf(document.getId())));
+            }
+            total += saved.get(i).size();
+        }
+        assertEquals(30, total);
+    }
+
+    @Test
+    public void getRoutedById_readsShardOfRoute() {
+        List<SolrRepository> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<Object, SolrInputDoc> stored = new HashMap<>();
+            shards.add(new ForwardingSolrRepository(null) {
+                @Override
+                public void save(SolrInputDoc document,
+                                 boolean softCommit) {
+                    stored.put(document.getId(), document);
+                }
+
+                @Override
+                public Optional<SolrDoc> getById(String id,
+                                                 String... fields) {
+                    return stored.containsKey(id) ? Optional.of(new SolrDoc(new SolrDocument())) : Optional.empty();
+                }
+            });
+        }
+        ShardedSolrRepository repository = new ShardedSolrRepository(shards);
+        String route = "tenant-1";
+        String id = "doc-1";
+        for (int i = 2; repository.shardFor(id) == repository.shardFor(route); i++) {
+            id = "doc-" + i;
+        }
+
+        repository.save(SolrInputDoc.builder(true, "id", id).build(), true, route);
+
+        assertTrue(repository.getRoutedById(id, route).isPresent());
+        assertFalse(repository.getById(id).isPresent());
+    }
+
+    @Test
+    public void findBucketStats_mergesAllBuckets() {
+        ShardedSolrRepository repository = new ShardedSolrRepository(asList(
+                bucketsShard("a", 5, "b", 3),
+                bucketsShard("b", 4, "c", 6)
+        ));
+
+        Map<Object, StatsResult> stats = repository.findBucketStats(new SolrQuery("*:*"), "category", 2, "price");
+
+        assertEquals(asList("b", "c"), new ArrayList<>(stats.keySet()));
+        assertEquals(7, stats.get("b").getCount());
+    }
+
+    @Test
+    public void findByQuery_mergesSortedResults() {
+        ShardedSolrRepository repository = new ShardedSolrRepository(asList(
+                shard(10, 9, 5, 1),
+                shard(8, 7, 6),
+                shard(4)
+        ));
+
+        SolrQuery query = new SolrQuery("*:*")
+                .setSort("rank", SolrQuery.ORDER.desc)
+                .setStart(1)
+                .setRows(4);
+        QueryResponse response = repository.findByQuery(query);
+
+        assertEquals(8, response.getResults().getNumFound());
+        List<Object> ranks = new ArrayList<>();
+        for (SolrDoc doc : repository.findList(query)) {
+            ranks.add(doc.getSolrDocument().getFieldValue("rank"));
+        }
+        assertEquals(asList(9, 8, 7, 6), ranks);
+    }
+
+    private static SolrRepository bucketsShard(Object... valuesAndCounts) {
+        return new ForwardingSolrRepository(null) {
+            @Override
+            public Map<Object, StatsResult> findBucketStats(SolrQuery query,
+                                                            String facetField,
+                                                            int limit,
+                                                            String... fields) {
+                assertEquals(-1, limit);
+                Map<Object, StatsResult> buckets = new LinkedHashMap<>();
+                for (int i = 0; i < valuesAndCounts.length; i += 2) {
+                    buckets.put(valuesAndCounts[i], StatsResult.empty((int) valuesAndCounts[i + 1], fields));
+                }
+                return buckets;
+            }
+        };
+    }
+
+    private static SolrRepository shard(int... ranks) {
+        return new ForwardingSolrRepository(null) {
+            @Override
+            public QueryResponse findByQuery(SolrQuery query) {
+                assertEquals(0, (int) query.getStart());
+                assertEquals(5, (int) query.getRows());
+
+                SolrDocumentList documents = new SolrDocumentList();
+                for (int rank : ranks) {
+                    SolrDocument document = new SolrDocument();
+                    document.setField("rank", rank);
+                    documents.add(document);
+                }
+                documents.setNumFound(ranks.length);
+                NamedList<Object> response = new NamedList<>();
+                response.add("response", documents);
+                QueryResponse queryResponse = new QueryResponse();
+                queryResponse.setResponse(response);
+
+                return queryResponse;
+            }
+        };
+    }
+}
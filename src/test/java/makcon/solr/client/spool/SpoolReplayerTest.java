@@ -0,0 +1,65 @@
+package makcon.solr.client.spool;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.apache.solr.common.SolrException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+public class SpoolReplayerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void skipsOnlyRejectedDocument() throws Exception {
+        List<Object> applied = new ArrayList<>();
+        ForwardingSolrRepository target = new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                for (SolrInputDoc document : documents) {
+                    if (document.getSolrInputDocument().containsKey("bad")) {
+                        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Invalid document");
+                    }
+                }
+                documents.forEach(document -> applied.add(document.getId()));
+            }
+
+            @Override
+            public void deleteByIds(List<String> ids) {
+                applied.add("-" + ids.get(0));
+            }
+        };
+
+        UpdateSpool spool = new UpdateSpool(folder.getRoot().toPath());
+        spool.appendSave(asList(doc("1"), doc("2"), bad("3"), doc("4"), doc("5")));
+        spool.appendDeleteByIds(singletonList("6"));
+        spool.appendSave(singletonList(doc("7")));
+
+        SpoolReplayer replayer = new SpoolReplayer(spool, target);
+        replayer.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!spool.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        replayer.shutdown();
+
+        assertEquals(asList("1", "2", "4", "5", "-6", "7"), applied);
+    }
+
+    private static SolrInputDoc doc(String id) {
+        return SolrInputDoc.newDoc("id", id).build();
+    }
+
+    private static SolrInputDoc bad(String id) {
+        return SolrInputDoc.newDoc("id", id).setField("bad", true).build();
+    }
+}
@@ -0,0 +1,116 @@
+package makcon.solr.client.spool;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendAndRead() throws Exception {
+        UpdateSpool spool = new UpdateSpool(folder.getRoot().toPath());
+        spool.appendSave(asList(doc("1", "a"), doc("2", "b")));
+        spool.appendDeleteByQuery("type:old");
+
+        UpdateSpool.Batch batch = spool.read(10, 0);
+        List<List<Object>> records = batch.getRecords();
+
+        assertEquals(2, records.size());
+        assertEquals(UpdateSpool.SAVE, records.get(0).get(0));
+        assertEquals("id", records.get(0).get(1));
+        assertEquals("a", ((SolrInputDocument) records.get(0).get(2)).getFieldValue("name"));
+        assertEquals("2", ((SolrInputDocument) records.get(0).get(4)).getFieldValue("id"));
+        assertEquals(asList(UpdateSpool.DELETE_BY_QUERY, "type:old"), records.get(1));
+
+        spool.acknowledge(batch);
+
+        assertTrue(spool.isEmpty());
+        assertNull(spool.read(10, 0));
+    }
+
+    @Test
+    public void awaitReplayed_returnsOnceEarlierRecordsAcknowledged() throws Exception {
+        UpdateSpool spool = new UpdateSpool(folder.getRoot().toPath());
+        spool.appendDeleteByIds(singletonList("1"));
+        spool.appendDeleteByIds(singletonList("2"));
+        CountDownLatch replayed = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            spool.awaitReplayed();
+            replayed.countDown();
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        spool.acknowledge(spool.read(1, 0));
+        assertFalse(replayed.await(100, TimeUnit.MILLISECONDS));
+        spool.appendDeleteByIds(singletonList("3"));
+        spool.acknowledge(spool.read(1, 0));
+
+        assertTrue(replayed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void recoverNotAcknowledged() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        UpdateSpool spool = new UpdateSpool(directory);
+        spool.appendDeleteByIds(singletonList("1"));
+        spool.appendDeleteByIds(singletonList("2"));
+        spool.acknowledge(spool.read(1, 0));
+        spool.close();
+
+        UpdateSpool recovered = new UpdateSpool(directory);
+        List<List<Object>> records = recovered.read(10, 0).getRecords();
+
+        assertEquals(singletonList(asList(UpdateSpool.DELETE_BY_IDS, "2")), records);
+    }
+
+    @Test
+    public void rollAndDeleteReplayedSegments() throws Exception {
+        UpdateSpool spool = new UpdateSpool(folder.getRoot().toPath(), 128, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            spool.appendSave(singletonList(doc(String.valueOf(i), "name" + i)));
+        }
+        assertTrue(listSegments().length > 1);
+
+        int read = 0;
+        UpdateSpool.Batch batch;
+        while ((batch = spool.read(100, 0)) != null) {
+            read += batch.getRecords().size();
+            spool.acknowledge(batch);
+        }
+
+        assertEquals(10, read);
+        assertEquals(1, listSegments().length);
+    }
+
+    private File[] listSegments() {
+        return folder.getRoot().listFiles((dir, name) -> name.endsWith(".spool"));
+    }
+
+    private static SolrInputDoc doc(String id,
+                                    String name) {
+        return SolrInputDoc.builder(true, "id", id)
+                .setField("name", name)
+                .build();
+    }
+}
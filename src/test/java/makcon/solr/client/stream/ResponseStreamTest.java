@@ -0,0 +1,52 @@
+package makcon.solr.client.stream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseStreamTest {
+
+    @Test
+    public void close_notFinished_closesResponse() throws IOException {
+        AtomicBoolean bodyClosed = new AtomicBoolean();
+        AtomicBoolean responseClosed = new AtomicBoolean();
+        ResponseStream stream = new ResponseStream(body("[1,2,3]", bodyClosed), () -> responseClosed.set(true));
+
+        stream.read(new byte[2]);
+        stream.close();
+
+        assertTrue(responseClosed.get());
+        assertFalse(bodyClosed.get());
+    }
+
+    @Test
+    public void close_finished_closesBody() throws IOException {
+        AtomicBoolean bodyClosed = new AtomicBoolean();
+        AtomicBoolean responseClosed = new AtomicBoolean();
+        ResponseStream stream = new ResponseStream(body("[1]", bodyClosed), () -> responseClosed.set(true));
+
+        while (stream.read(new byte[2]) != -1) {
+            // read to the end
+        }
+        stream.close();
+
+        assertTrue(bodyClosed.get());
+        assertFalse(responseClosed.get());
+    }
+
+    private static ByteArrayInputStream body(String content,
+                                             AtomicBoolean closed) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8)) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+    }
+}
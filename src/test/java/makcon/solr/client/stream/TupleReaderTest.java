@@ -0,0 +1,105 @@
+package makcon.solr.client.stream;
+
+import makcon.solr.client.exception.RepositoryAccessException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TupleReaderTest {
+
+    @Test
+    public void next_exportResponse() throws IOException {
+        TupleReader reader = reader(
+                "{\"responseHeader\":{\"status\":0,\"params\":{\"q\":\"*:*\"}}," +
+                "\"response\":{\"numFound\":2,\"docs\":[" +
+                "{\"id\":\"1\",\"count\":5,\"price\":1.5,\"flag\":true,\"tags\":[\"a\",\"b\"]}," +
+                "{\"id\":\"2\",\"count\":7,\"price\":2.5,\"flag\":false,\"tags\":[]}" +
+                "]}}",
+                TupleReader.EXPORT_DOCS_PATH
+        );
+        Tuple tuple = new Tuple();
+
+        assertTrue(reader.next(tuple));
+        assertEquals("1", tuple.getString("id"));
+        assertEquals(5L, tuple.getLong("count"));
+        assertEquals(1.5, tuple.getDouble("price"), 0);
+        assertTrue(tuple.getBool("flag"));
+        assertEquals(asList("a", "b"), tuple.getList("tags"));
+        Tuple first = tuple.copy();
+        String idName = tuple.getName(0);
+
+        assertTrue(reader.next(tuple));
+        assertEquals("2", tuple.getString("id"));
+        assertEquals(7L, tuple.getLong("count"));
+        assertFalse(tuple.getBool("flag"));
+        assertSame(idName, tuple.getName(0));
+        assertEquals("1", first.getString("id"));
+
+        assertFalse(reader.next(tuple));
+    }
+
+    @Test
+    public void next_streamResponseEndsWithEof() throws IOException {
+        TupleReader reader = reader(
+                "{\"result-set\":{\"docs\":[{\"a_s\":\"x\"},{\"EOF\":true,\"RESPONSE_TIME\":3}]}}",
+                TupleReader.STREAM_DOCS_PATH
+        );
+        Tuple tuple = new Tuple();
+
+        assertTrue(reader.next(tuple));
+        assertEquals("x", tuple.getString("a_s"));
+        assertFalse(reader.next(tuple));
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void next_exception() throws IOException {
+        TupleReader reader = reader(
+                "{\"result-set\":{\"docs\":[{\"EXCEPTION\":\"bad expression\",\"EOF\":true}]}}",
+                TupleReader.STREAM_DOCS_PATH
+        );
+
+        reader.next(new Tuple());
+    }
+
+    @Test(expected = RepositoryAccessException.class)
+    public void next_noDocs() throws IOException {
+        TupleReader reader = reader(
+                "{\"error\":{\"msg\":\"failed\",\"code\":400}}",
+                TupleReader.EXPORT_DOCS_PATH
+        );
+
+        reader.next(new Tuple());
+    }
+
+    @Test
+    public void next_errorResponse() throws IOException {
+        TupleReader reader = reader(
+                "{\"responseHeader\":{\"status\":400}," +
+                "\"error\":{\"metadata\":[\"error-class\",\"org.apache.solr.common.SolrException\"]," +
+                "\"msg\":\"undefined field: foo\",\"code\":400}}",
+                TupleReader.EXPORT_DOCS_PATH
+        );
+
+        try {
+            reader.next(new Tuple());
+            fail();
+        } catch (RepositoryAccessException e) {
+            assertTrue(e.getMessage().contains("undefined field: foo"));
+        }
+        assertFalse(reader.next(new Tuple()));
+    }
+
+    private static TupleReader reader(String json,
+                                      String[] path) {
+        return new TupleReader(new ByteArrayInputStream(json.getBytes(UTF_8)), path);
+    }
+}
@@ -0,0 +1,90 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AdaptiveBatchWriterTest {
+
+    private final AtomicInteger saved = new AtomicInteger();
+    private final AtomicInteger commits = new AtomicInteger();
+    private final ForwardingSolrRepository repository = new ForwardingSolrRepository(null) {
+        @Override
+        public void save(List<SolrInputDoc> documents,
+                         Integer commitWithin) {
+            saved.addAndGet(documents.size());
+        }
+
+        @Override
+        public void softCommit() {
+            commits.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void onBatch_increasesAdditivelyDecreasesMultiplicatively() {
+        AdaptiveBatchWriter writer = new AdaptiveBatchWriter(null, 10, 210, 4, 100);
+
+        writer.onBatch(50, false);
+        assertEquals(20, writer.getBatchSize());
+        assertEquals(2, writer.getConcurrency());
+        writer.onBatch(50, false);
+        writer.onBatch(50, false);
+        assertEquals(40, writer.getBatchSize());
+        assertEquals(3, writer.getConcurrency());
+
+        writer.onBatch(500, false);
+        assertEquals(20, writer.getBatchSize());
+        assertEquals(2, writer.getConcurrency());
+
+        writer.onBatch(50, true);
+        assertEquals(10, writer.getBatchSize());
+        assertEquals(1, writer.getConcurrency());
+        writer.onBatch(50, true);
+        assertEquals(10, writer.getBatchSize());
+    }
+
+    @Test
+    public void save_sendsAllDocumentsAndCommitsOnce() {
+        AdaptiveBatchWriter writer = new AdaptiveBatchWriter(repository, 5, 100, 4, 1_000);
+
+        writer.save(documents(1_000));
+        writer.shutdown();
+
+        assertEquals(1_000, saved.get());
+        assertEquals(1, commits.get());
+        assertEquals(4, writer.getConcurrency());
+    }
+
+    @Test(timeout = 5_000)
+    public void save_rejectedBatch_nextSaveNotBlocked() {
+        AdaptiveBatchWriter writer = new AdaptiveBatchWriter(repository, 5, 100, 4, 1_000);
+        writer.shutdown();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                writer.save(documents(10));
+                fail();
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+        }
+    }
+
+    private static List<SolrInputDoc> documents(int count) {
+        List<SolrInputDoc> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(SolrInputDoc.builder(true, "id", String.valueOf(i)).build());
+        }
+
+        return documents;
+    }
+}
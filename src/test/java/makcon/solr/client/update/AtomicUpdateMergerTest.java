@@ -0,0 +1,189 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.constant.SolrFieldModifier;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class AtomicUpdateMergerTest {
+
+    private static final String ID_FIELD = "id";
+    private static final String FIELD = "field";
+
+    @Test
+    public void merge_differentIds_sameList() {
+        List<SolrInputDoc> docs = asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, "a").build(),
+                SolrInputDoc.toUpdate(ID_FIELD, "2").setField(FIELD, "b").build()
+        );
+
+        assertSame(docs, AtomicUpdateMerger.merge(docs));
+    }
+
+    @Test
+    public void merge_setAfterSet_lastWins() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, "a").build(),
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, "b").build()
+        ));
+
+        assertEquals(1, merged.size());
+        assertEquals("b", merged.get(0).getAtomic(FIELD, SolrFieldModifier.SET));
+    }
+
+    @Test
+    public void merge_incAfterInc_summed() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                inc("1", 2),
+                inc("1", 3),
+                inc("1", -1)
+        ));
+
+        assertEquals(1, merged.size());
+        assertEquals(4, (int) merged.get(0).getAtomic(FIELD, SolrFieldModifier.INC));
+    }
+
+    @Test
+    public void merge_incAfterSet_foldedIntoSet() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, 10L).build(),
+                inc("1", 5)
+        ));
+
+        assertEquals(1, merged.size());
+        assertEquals(15L, (long) merged.get(0).getAtomic(FIELD, SolrFieldModifier.SET));
+    }
+
+    @Test
+    public void merge_addAfterAdd_concatenated() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").addField(FIELD, "a").build(),
+                SolrInputDoc.toUpdate(ID_FIELD, "1").addField(FIELD, asList("b", "c")).build()
+        ));
+
+        assertEquals(1, merged.size());
+        assertEquals(asList("a", "b", "c"), merged.get(0).getAtomic(FIELD, SolrFieldModifier.ADD));
+    }
+
+    @Test
+    public void merge_setAfterAdd_collapsedToSet() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").addField(FIELD, "a").build(),
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, singletonList("b")).build()
+        ));
+
+        assertEquals(1, merged.size());
+        Map<?, ?> operations = (Map<?, ?>) merged.get(0).getRaw(FIELD);
+        assertEquals(1, operations.size());
+        assertEquals(singletonList("b"), operations.get(SolrFieldModifier.SET.value));
+    }
+
+    @Test
+    public void merge_incAfterAdd_keptSeparate() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").addField(FIELD, 1).build(),
+                inc("1", 1)
+        ));
+
+        assertEquals(2, merged.size());
+    }
+
+    @Test
+    public void merge_differentFields_combined() {
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField(FIELD, "a").build(),
+                SolrInputDoc.toUpdate(ID_FIELD, "1").setField("other", "b").build()
+        ));
+
+        assertEquals(1, merged.size());
+        assertEquals("a", merged.get(0).getAtomic(FIELD, SolrFieldModifier.SET));
+        assertEquals("b", merged.get(0).getAtomic("other", SolrFieldModifier.SET));
+    }
+
+    @Test
+    public void merge_newDocAfterUpdate_replacesUpdate() {
+        SolrInputDoc newDoc = SolrInputDoc.newDoc(ID_FIELD, "1").setField(FIELD, "b").build();
+
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(
+                inc("1", 1),
+                newDoc
+        ));
+
+        assertEquals(singletonList(newDoc), merged);
+    }
+
+    @Test
+    public void merge_doesNotModifyInput() {
+        SolrInputDoc first = inc("1", 1);
+
+        AtomicUpdateMerger.merge(asList(first, inc("1", 2)));
+
+        assertEquals(1, (int) first.getAtomic(FIELD, SolrFieldModifier.INC));
+    }
+
+    @Test
+    public void merge_versioned_keptAsIs() {
+        SolrInputDoc versioned = SolrInputDoc.toUpdate(ID_FIELD, "1")
+                .incField(FIELD, 1)
+                .version(5)
+                .build();
+
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(inc("1", 1), versioned, inc("1", 2)));
+
+        assertEquals(3, merged.size());
+        assertEquals(versioned, merged.get(1));
+    }
+
+    @Test
+    public void merge_batchOrderKept() {
+        SolrInputDocument document = new SolrInputDocument();
+        document.setField(FIELD, singletonMap(SolrFieldModifier.INC.value, 1));
+        SolrInputDoc withoutId = SolrInputDoc.of(ID_FIELD, document);
+        SolrInputDoc other = SolrInputDoc.newDoc(ID_FIELD, "2").build();
+
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(inc("1", 1), withoutId, other, inc("1", 2)));
+
+        assertEquals(3, merged.size());
+        assertEquals(3, (int) merged.get(0).getAtomic(FIELD, SolrFieldModifier.INC));
+        assertSame(withoutId, merged.get(1));
+        assertSame(other, merged.get(2));
+    }
+
+    @Test
+    public void merge_newDoc_keepsItsPosition() {
+        SolrInputDoc other = SolrInputDoc.newDoc(ID_FIELD, "2").build();
+        SolrInputDoc newDoc = SolrInputDoc.newDoc(ID_FIELD, "1").build();
+
+        assertEquals(asList(other, newDoc), AtomicUpdateMerger.merge(asList(inc("1", 1), other, newDoc)));
+    }
+
+    @Test
+    public void merge_multiValuedField_allValuesKept() {
+        SolrInputDocument update = new SolrInputDocument();
+        update.setField(ID_FIELD, "1");
+        update.setField(FIELD, singletonMap(SolrFieldModifier.INC.value, 2));
+        update.addField("tags", "a");
+        update.addField("tags", "b");
+
+        List<SolrInputDoc> merged = AtomicUpdateMerger.merge(asList(inc("1", 1), SolrInputDoc.of(ID_FIELD, update)));
+
+        assertEquals(1, merged.size());
+        assertEquals(asList("a", "b"), merged.get(0).getSolrInputDocument().getFieldValues("tags"));
+    }
+
+    private static SolrInputDoc inc(String id,
+                                    int value) {
+        return SolrInputDoc.toUpdate(ID_FIELD, id)
+                .incField(FIELD, value)
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package makcon.solr.client.update;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchesTest {
+
+    @Test
+    public void partition_byCount() {
+        List<List<String>> chunks = Batches.partition(asList("1", "2", "3", "4", "5"), 2, Long.MAX_VALUE, String::length);
+
+        assertEquals(asList(asList("1", "2"), asList("3", "4"), asList("5")), chunks);
+    }
+
+    @Test
+    public void partition_byBytes() {
+        List<List<String>> chunks = Batches.partition(asList("aa", "bb", "cc"), 10, 4, String::length);
+
+        assertEquals(asList(asList("aa", "bb"), asList("cc")), chunks);
+    }
+
+    @Test
+    public void partition_itemLargerThanLimit() {
+        List<List<String>> chunks = Batches.partition(asList("a", "bbbbb", "c"), 10, 2, String::length);
+
+        assertEquals(asList(asList("a"), asList("bbbbb"), asList("c")), chunks);
+    }
+
+    @Test
+    public void partition_empty() {
+        assertTrue(Batches.partition(Collections.<String>emptyList(), 10, 10, String::length).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void partition_invalidCount() {
+        Batches.partition(asList("a"), 0, 10, String::length);
+    }
+}
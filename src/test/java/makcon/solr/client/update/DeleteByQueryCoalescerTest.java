@@ -0,0 +1,98 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class DeleteByQueryCoalescerTest {
+
+    private final List<String> queries = new ArrayList<>();
+    private final ForwardingSolrRepository repository = new ForwardingSolrRepository(null) {
+        @Override
+        public void deleteByQuery(String query) {
+            synchronized (queries) {
+                queries.add(query);
+            }
+        }
+    };
+
+    @Test
+    public void queriesOfWindowJoined() throws Exception {
+        DeleteByQueryCoalescer coalescer = new DeleteByQueryCoalescer(repository, 50);
+
+        CompletableFuture<Void> first = coalescer.deleteByQuery("a:1");
+        CompletableFuture<Void> second = coalescer.deleteByQuery("b:2");
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        coalescer.shutdown();
+
+        assertEquals(asList("(a:1) OR (b:2)"), queries);
+    }
+
+    @Test
+    public void negativeQuery_sentAlone() throws Exception {
+        DeleteByQueryCoalescer coalescer = new DeleteByQueryCoalescer(repository, 50);
+
+        CompletableFuture<Void> first = coalescer.deleteByQuery("a:1");
+        CompletableFuture<Void> negative = coalescer.deleteByQuery("-status:active");
+        CompletableFuture<Void> second = coalescer.deleteByQuery("b:2");
+        CompletableFuture.allOf(first, negative, second).get(5, TimeUnit.SECONDS);
+        coalescer.shutdown();
+
+        assertEquals(asList("-status:active", "(a:1) OR (b:2)"), queries);
+    }
+
+    @Test
+    public void localParamsQuery_sentAlone() throws Exception {
+        DeleteByQueryCoalescer coalescer = new DeleteByQueryCoalescer(repository, 50);
+
+        CompletableFuture<Void> first = coalescer.deleteByQuery("a:1");
+        CompletableFuture<Void> term = coalescer.deleteByQuery("{!term f=id}x y");
+        CompletableFuture.allOf(first, term).get(5, TimeUnit.SECONDS);
+        coalescer.shutdown();
+
+        assertEquals(asList("{!term f=id}x y", "a:1"), queries);
+    }
+
+    @Test
+    public void windowFlushedBySize_timerDoesNotCutNextWindow() throws Exception {
+        DeleteByQueryCoalescer coalescer = new DeleteByQueryCoalescer(repository, 500, 2);
+
+        coalescer.deleteByQuery("a:1");
+        coalescer.deleteByQuery("b:2").get(5, TimeUnit.SECONDS);
+        Thread.sleep(250);
+        CompletableFuture<Void> next = coalescer.deleteByQuery("c:3");
+        // the timer of the first window fires here, the window of c:3 ends 250ms later
+        Thread.sleep(350);
+
+        assertFalse(next.isDone());
+        next.get(5, TimeUnit.SECONDS);
+        coalescer.shutdown();
+        assertEquals(asList("(a:1) OR (b:2)", "c:3"), queries);
+    }
+
+    @Test
+    public void shutdown_pendingSentAndNewRejected() throws Exception {
+        DeleteByQueryCoalescer coalescer = new DeleteByQueryCoalescer(repository, 60_000);
+
+        CompletableFuture<Void> pending = coalescer.deleteByQuery("a:1");
+        coalescer.shutdown();
+        pending.get(5, TimeUnit.SECONDS);
+
+        try {
+            coalescer.deleteByQuery("b:2");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(asList("a:1"), queries);
+    }
+}
@@ -0,0 +1,68 @@
+package makcon.solr.client.update;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FileChunksTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void split_atLineEnds() throws IOException {
+        Path file = write("aaaa\nbb\ncccccc\nd\n");
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertArrayEquals(new long[]{0, 5, 15, 17}, FileChunks.split(channel, 0, 4));
+            assertArrayEquals(new long[]{0, 8, 15, 17}, FileChunks.split(channel, 0, 6));
+            assertArrayEquals(new long[]{0, 17}, FileChunks.split(channel, 0, 100));
+        }
+    }
+
+    @Test
+    public void split_withoutTrailingLineFeed() throws IOException {
+        Path file = write("id,name\n1,a\n2,b");
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            long from = FileChunks.lineEnd(channel, 0);
+
+            assertEquals(8, from);
+            assertArrayEquals(new long[]{8, 12, 15}, FileChunks.split(channel, from, 2));
+        }
+    }
+
+    @Test
+    public void contentStream_readsRange() throws IOException {
+        Path file = write("aaaa\nbb\ncccccc\n");
+
+        try (InputStream in = new FileChunkContentStream(file, 5, 8, "text/csv").getStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[2];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+
+            assertEquals("bb\n", new String(out.toByteArray(), UTF_8));
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(UTF_8));
+
+        return file;
+    }
+}
@@ -0,0 +1,53 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.constant.QueryParams;
+import makcon.solr.client.dataobject.SaveResult;
+import makcon.solr.client.dataobject.SolrDoc;
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.apache.solr.common.SolrDocument;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OptimisticUpdatesTest {
+
+    private final List<SolrInputDoc> sent = new ArrayList<>();
+    private final ForwardingSolrRepository repository = new ForwardingSolrRepository(null) {
+        @Override
+        public List<SolrDoc> getByIds(Collection<String> ids,
+                                      String... fields) {
+            List<SolrDoc> docs = new ArrayList<>();
+            for (String id : ids) {
+                SolrDocument doc = new SolrDocument();
+                doc.setField("id", id);
+                doc.setField(QueryParams.VERSION_FIELD, 5L);
+                docs.add(new SolrDoc(doc));
+            }
+            return docs;
+        }
+
+        @Override
+        public SaveResult saveVersioned(List<SolrInputDoc> documents) {
+            sent.addAll(documents);
+            return new SaveResult(documents.size(), new ArrayList<>());
+        }
+    };
+
+    @Test
+    public void update_versionSetOnCopy() {
+        SolrInputDoc document = SolrInputDoc.toUpdate("id", "1").setField("name", "a").build();
+
+        SaveResult result = OptimisticUpdates.update(repository, "id", singletonList("1"), (id, current) -> document, 3);
+
+        assertEquals(1, result.getSaved());
+        assertEquals(5L, sent.get(0).getSolrInputDocument().getFieldValue(QueryParams.VERSION_FIELD));
+        assertNull(document.getSolrInputDocument().getFieldValue(QueryParams.VERSION_FIELD));
+    }
+}
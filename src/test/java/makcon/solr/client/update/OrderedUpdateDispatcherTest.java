@@ -0,0 +1,151 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import makcon.solr.client.exception.RepositoryAccessException;
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderedUpdateDispatcherTest {
+
+    @Test
+    public void keepsOrderOfEveryId() throws Exception {
+        List<SolrInputDoc> saved = new ArrayList<>();
+        OrderedUpdateDispatcher dispatcher = new OrderedUpdateDispatcher(new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                synchronized (saved) {
+                    saved.addAll(documents);
+                }
+            }
+        }, 4, 3, 100);
+
+        for (int step = 0; step < 20; step++) {
+            for (int id = 0; id < 10; id++) {
+                dispatcher.submit(SolrInputDoc.builder(true, "id", String.valueOf(id))
+                        .setField("step", step)
+                        .build());
+            }
+        }
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+        dispatcher.shutdown();
+
+        assertEquals(200, saved.size());
+        Map<Object, Integer> lastStep = new HashMap<>();
+        for (SolrInputDoc document : saved) {
+            int step = (Integer) document.getSolrInputDocument().getFieldValue("step");
+            assertEquals(lastStep.getOrDefault(document.getId(), -1) + 1, step);
+            lastStep.put(document.getId(), step);
+        }
+        for (int lane = 0; lane < dispatcher.getLanes(); lane++) {
+            assertEquals(0, dispatcher.getPending(lane));
+            assertEquals(0, dispatcher.getLagMillis(lane));
+        }
+    }
+
+    @Test
+    public void failedBatch_failsQueuedUpdatesOfSameIds() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<SolrInputDoc> saved = new ArrayList<>();
+        OrderedUpdateDispatcher dispatcher = new OrderedUpdateDispatcher(new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                if (sending.getCount() > 0) {
+                    sending.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new RepositoryAccessException("Solr is down");
+                }
+                saved.addAll(documents);
+            }
+        }, 1, 1, 10);
+
+        CompletableFuture<Void> failed = dispatcher.submit(doc("1"));
+        sending.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> dependent = dispatcher.submit(doc("1"));
+        CompletableFuture<Void> other = dispatcher.submit(doc("2"));
+        release.countDown();
+
+        other.get(5, TimeUnit.SECONDS);
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(dependent.isCompletedExceptionally());
+        assertEquals(1, saved.size());
+        assertEquals("2", saved.get(0).getId());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void fullLane_flushNotBlocked() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderedUpdateDispatcher dispatcher = new OrderedUpdateDispatcher(new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 1, 1, 1);
+
+        dispatcher.submit(doc("1"));
+        sending.await(5, TimeUnit.SECONDS);
+        dispatcher.submit(doc("2"));
+        CompletableFuture<CompletableFuture<Void>> blocked = CompletableFuture.supplyAsync(() -> dispatcher.submit(doc("3")));
+
+        CompletableFuture<Void> flushed = dispatcher.flush();
+        release.countDown();
+        flushed.get(5, TimeUnit.SECONDS);
+        blocked.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void shutdown_queuedSentAndNewRejected() throws Exception {
+        List<SolrInputDoc> saved = new ArrayList<>();
+        OrderedUpdateDispatcher dispatcher = new OrderedUpdateDispatcher(new ForwardingSolrRepository(null) {
+            @Override
+            public void save(List<SolrInputDoc> documents) {
+                synchronized (saved) {
+                    saved.addAll(documents);
+                }
+            }
+        }, 2, 2, 100);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int id = 0; id < 10; id++) {
+            futures.add(dispatcher.submit(doc(String.valueOf(id))));
+        }
+        dispatcher.shutdown();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(10, saved.size());
+        try {
+            dispatcher.submit(doc("10"));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static SolrInputDoc doc(String id) {
+        return SolrInputDoc.newDoc("id", id).build();
+    }
+}
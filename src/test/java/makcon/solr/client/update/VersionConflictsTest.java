@@ -0,0 +1,58 @@
+package makcon.solr.client.update;
+
+import makcon.solr.client.dataobject.SolrInputDoc;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VersionConflictsTest {
+
+    @Test
+    public void conflictId_versionConflict() {
+        SolrException e = new SolrException(
+                SolrException.ErrorCode.CONFLICT,
+                "Error from server at http://localhost:8983/solr/c: version conflict for doc-1 expected=5 actual=7"
+        );
+
+        assertEquals("doc-1", VersionConflicts.conflictId(new SolrServerException(e)));
+    }
+
+    @Test
+    public void conflictId_notFound() {
+        SolrException e = new SolrException(
+                SolrException.ErrorCode.CONFLICT,
+                "Document not found for update.  id=doc-2"
+        );
+
+        assertEquals("doc-2", VersionConflicts.conflictId(e));
+    }
+
+    @Test
+    public void conflictId_otherError() {
+        SolrException e = new SolrException(SolrException.ErrorCode.BAD_REQUEST, "version conflict for 1 expected=1");
+
+        assertNull(VersionConflicts.conflictId(e));
+    }
+
+    @Test
+    public void indexOf_versionedOnly() {
+        SolrInputDoc plain = SolrInputDoc.newDoc("id", "1").build();
+        SolrInputDoc versioned = SolrInputDoc.newDoc("id", "1").mustNotExist().build();
+
+        assertEquals(1, VersionConflicts.indexOf(asList(plain, versioned), "1"));
+        assertEquals(-1, VersionConflicts.indexOf(asList(plain, versioned), "2"));
+    }
+
+    @Test
+    public void distinctIdPrefix() {
+        SolrInputDoc first = SolrInputDoc.newDoc("id", "1").build();
+        SolrInputDoc second = SolrInputDoc.newDoc("id", "2").build();
+
+        assertEquals(2, VersionConflicts.distinctIdPrefix(asList(first, second, first)));
+        assertEquals(2, VersionConflicts.distinctIdPrefix(asList(first, second)));
+    }
+}
@@ -0,0 +1,82 @@
+package makcon.solr.client.warmup;
+
+import makcon.solr.client.repository.ForwardingSolrRepository;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueryRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForwardingSolrRepository solr = new ForwardingSolrRepository(null) {
+        @Override
+        public QueryResponse findByQuery(SolrQuery query) {
+            return new QueryResponse();
+        }
+    };
+
+    @Test
+    public void keepsLatestSampledQueries() throws IOException {
+        QueryRecorder recorder = new QueryRecorder(solr, 2, 2);
+        for (int i = 0; i < 7; i++) {
+            recorder.findByQuery(new SolrQuery("id:" + i));
+        }
+
+        List<SolrQuery> recorded = recorder.getRecorded();
+        assertEquals(2, recorded.size());
+        assertEquals("id:4", recorded.get(0).getQuery());
+        assertEquals("id:6", recorded.get(1).getQuery());
+
+        Path file = folder.getRoot().toPath().resolve("queries.txt");
+        recorder.writeTo(file);
+        assertEquals("id:6", QueryRecorder.read(file).get(1).getQuery());
+    }
+
+    @Test
+    public void committingWrite_warmsUp() throws InterruptedException {
+        CountDownLatch replayed = new CountDownLatch(2);
+        QueryRecorder recorder = new QueryRecorder(new ForwardingSolrRepository(null) {
+            @Override
+            public QueryResponse findByQuery(SolrQuery query) {
+                replayed.countDown();
+                return new QueryResponse();
+            }
+
+            @Override
+            public void deleteById(String id) {
+            }
+        }, 10, 1, 1, 1);
+        recorder.findByQuery(new SolrQuery("id:1"));
+
+        recorder.deleteById("1");
+
+        assertTrue(replayed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void replay_reportsByShape() {
+        QueryRecorder recorder = new QueryRecorder(solr, 10, 1);
+        recorder.findByQuery(new SolrQuery("id:1"));
+        recorder.findByQuery(new SolrQuery("id:2"));
+        recorder.findByQuery(new SolrQuery("name:x").setRows(1));
+
+        ReplayReport report = new QueryReplayer(solr, 2, 0).replay(recorder.getRecorded());
+
+        assertEquals(3, report.getCount());
+        assertEquals(2, report.getShapes().get("q=id:?").getCount());
+        assertEquals(1, report.getShapes().get("q=name:?&rows").getCount());
+    }
+}
@@ -0,0 +1,36 @@
+package makcon.solr.client.warmup;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class QueryShapesTest {
+
+    @Test
+    public void shape_ignoresValues() {
+        SolrQuery first = new SolrQuery("name:\"John Smith\" AND age:[1 TO 5]")
+                .addFilterQuery("status:active")
+                .setRows(10);
+        SolrQuery second = new SolrQuery("name:Bob AND age:[7 TO 9]")
+                .addFilterQuery("status:(new OR old)")
+                .setRows(20);
+
+        assertEquals("fq=status:?&q=name:? AND age:?&rows", QueryShapes.shape(first));
+        assertEquals(QueryShapes.shape(first), QueryShapes.shape(second));
+    }
+
+    @Test
+    public void toLine_fromLine() {
+        SolrQuery query = new SolrQuery("name:\"a&b=c\"")
+                .addFilterQuery("x:1", "y:2")
+                .setRows(5);
+
+        SolrQuery read = QueryShapes.fromLine(QueryShapes.toLine(query));
+
+        assertEquals("name:\"a&b=c\"", read.getQuery());
+        assertArrayEquals(new String[]{"x:1", "y:2"}, read.getFilterQueries());
+        assertEquals(5, (int) read.getRows());
+    }
+}